@@ -0,0 +1,402 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Queues accepted ActionLib goals and runs at most a configured number of them at the same time.
+ *
+ * <p>Goals wait in a priority queue until a slot is free. The {@link Policy} decides what happens
+ * when a goal arrives and every slot is busy: wait in the queue, be rejected, or preempt the oldest
+ * running goal. Waiting goals stay {@code PENDING} in ActionLib terms; the runner is expected to
+ * move them to {@code ACTIVE} when it starts them.
+ *
+ * <p>The scheduler only decides <em>when</em> a goal runs. Running, cancelling, and publishing
+ * results stay with the action server that owns it.
+ *
+ * <p>The class is public only so that {@link Policy} can be passed to the public
+ * {@link ROSJavaActionServerNodeMain} constructors; everything else stays package-private.
+ *
+ * @param <G> the ActionLib goal message type
+ * @author Spyros Koukas
+ */
+public final class ActionGoalScheduler<G> {
+    /**
+     * What to do with a new goal when every execution slot is busy.
+     */
+    public enum Policy {
+        /**
+         * Keep the goal queued until a slot becomes free.
+         */
+        QUEUE,
+        /**
+         * Reject the goal immediately. With one slot this gives "single active goal" semantics.
+         */
+        REJECT_WHEN_BUSY,
+        /**
+         * Ask the oldest running goal to preempt so that its slot goes to the new goal. Nothing is
+         * preempted while a slot is still free.
+         */
+        NEWEST_PREEMPTS_OLDEST
+    }
+
+    /**
+     * Result of {@link #submit(String, Object)}.
+     */
+    enum Admission {
+        /**
+         * The goal started right away or is waiting in the queue.
+         */
+        SCHEDULED,
+        /**
+         * The goal was rejected by the {@link Policy#REJECT_WHEN_BUSY} policy.
+         */
+        REJECTED
+    }
+
+    /**
+     * One goal known to the scheduler, either waiting or running.
+     *
+     * @param <G> the ActionLib goal message type
+     */
+    static final class ScheduledGoal<G> {
+        private final String goalId;
+        private final G goal;
+        private final long sequence;
+        private final long enqueuedNanos;
+        private volatile long startedNanos;
+        private volatile boolean preemptRequested;
+        private volatile boolean cancelRequested;
+        private volatile long cancelRequestedNanos;
+
+        /**
+         * Released as soon as the goal should stop, so a worker waiting between steps wakes up immediately.
+         */
+        private final CountDownLatch stopSignal = new CountDownLatch(1);
+
+        private ScheduledGoal(final String goalId, final G goal, final long sequence) {
+            this.goalId = goalId;
+            this.goal = goal;
+            this.sequence = sequence;
+            this.enqueuedNanos = System.nanoTime();
+        }
+
+        final String getGoalId() {
+            return this.goalId;
+        }
+
+        final G getGoal() {
+            return this.goal;
+        }
+
+        /**
+         * @return how long the goal waited in the queue before it started, in nanoseconds
+         */
+        final long getWaitNanos() {
+            return this.startedNanos - this.enqueuedNanos;
+        }
+
+        /**
+         * @return {@code true} if the scheduler asked this running goal to stop and give up its slot
+         */
+        final boolean isPreemptRequested() {
+            return this.preemptRequested;
+        }
+
+        /**
+         * Record a client cancel request and wake up the worker running this goal.
+         */
+        final void requestCancel() {
+            if (!this.cancelRequested) {
+                this.cancelRequestedNanos = System.nanoTime();
+                this.cancelRequested = true;
+            }
+            this.stopSignal.countDown();
+        }
+
+        /**
+         * @return {@code true} if {@link #requestCancel()} has been called for this goal
+         */
+        final boolean isCancelRequested() {
+            return this.cancelRequested;
+        }
+
+        /**
+         * @return the {@link System#nanoTime()} of the first cancel request; only meaningful if {@link #isCancelRequested()}
+         */
+        final long getCancelRequestedNanos() {
+            return this.cancelRequestedNanos;
+        }
+
+        /**
+         * Wait between two steps of the goal, returning early if the goal is cancelled or preempted.
+         *
+         * <p>Workers use this instead of {@link Thread#sleep(long)} so a stop request is acted on
+         * right away rather than after the next step interval.
+         *
+         * @param timeout  the longest time to wait
+         * @param timeUnit unit of the timeout
+         * @return {@code true} if the goal was asked to stop while waiting
+         * @throws InterruptedException if the worker is interrupted
+         */
+        final boolean awaitStopSignal(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+            return this.stopSignal.await(timeout, timeUnit);
+        }
+    }
+
+    /**
+     * Point-in-time view of the scheduler metrics.
+     *
+     * @param queueDepth    goals currently waiting for a slot
+     * @param activeGoals   goals currently running
+     * @param started       goals started since creation
+     * @param rejected      goals rejected by the policy
+     * @param preempted     running goals asked to preempt by the policy
+     * @param meanWaitNanos mean queue wait of the started goals
+     * @param maxWaitNanos  longest queue wait of the started goals
+     */
+    record Stats(int queueDepth, int activeGoals, long started, long rejected, long preempted, long meanWaitNanos, long maxWaitNanos) {
+        @Override
+        public final String toString() {
+            return "queue=" + this.queueDepth + ", active=" + this.activeGoals + ", started=" + this.started
+                    + ", rejected=" + this.rejected + ", preempted=" + this.preempted
+                    + ", meanWait=" + TimeUnit.NANOSECONDS.toMillis(this.meanWaitNanos) + " ms"
+                    + ", maxWait=" + TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos) + " ms";
+        }
+    }
+
+    private final int maxConcurrentGoals;
+    private final Policy policy;
+    private final Consumer<ScheduledGoal<G>> runner;
+    private final ExecutorService workers;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final PriorityQueue<ScheduledGoal<G>> queue;
+    private final Map<String, ScheduledGoal<G>> active = new HashMap<>();
+    private long nextSequence;
+    private long started;
+    private long rejected;
+    private long preempted;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private boolean draining;
+    private boolean shutdown;
+
+    /**
+     * @param maxConcurrentGoals how many goals may run at the same time
+     * @param policy             what to do with new goals when every slot is busy
+     * @param priority           ordering of waiting goals; ties are broken in arrival order
+     * @param runner             runs one goal to completion on a scheduler worker thread
+     * @param threadFactory      creates the worker threads
+     */
+    ActionGoalScheduler(
+            final int maxConcurrentGoals,
+            final Policy policy,
+            final Comparator<? super G> priority,
+            final Consumer<ScheduledGoal<G>> runner,
+            final ThreadFactory threadFactory) {
+        if (maxConcurrentGoals < 1) {
+            throw new IllegalArgumentException("maxConcurrentGoals must be at least 1 but was " + maxConcurrentGoals);
+        }
+        this.maxConcurrentGoals = maxConcurrentGoals;
+        this.policy = policy;
+        this.runner = runner;
+        this.queue = new PriorityQueue<>(Comparator
+                .comparing((ScheduledGoal<G> scheduledGoal) -> scheduledGoal.goal, priority)
+                .thenComparingLong(scheduledGoal -> scheduledGoal.sequence));
+        // Concurrency is bounded by the scheduler itself, so the pool only recycles threads.
+        this.workers = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Admit a new goal according to the configured policy.
+     *
+     * @param goalId the ActionLib goal id
+     * @param goal   the goal message
+     * @return whether the goal was scheduled or rejected
+     */
+    final synchronized Admission submit(final String goalId, final G goal) {
+        if (this.shutdown || this.draining) {
+            this.rejected++;
+            return Admission.REJECTED;
+        }
+        final boolean busy = this.active.size() + this.queue.size() >= this.maxConcurrentGoals;
+        if (busy && this.policy == Policy.REJECT_WHEN_BUSY) {
+            this.rejected++;
+            return Admission.REJECTED;
+        }
+        if (this.active.size() >= this.maxConcurrentGoals && this.policy == Policy.NEWEST_PREEMPTS_OLDEST) {
+            this.requestPreemptOfOldest();
+        }
+        this.queue.add(new ScheduledGoal<>(goalId, goal, this.nextSequence++));
+        // Starting under the lock means a goal is never handed to a pool that shutdown() has already stopped.
+        this.startRunnable();
+        return Admission.SCHEDULED;
+    }
+
+    /**
+     * Cancel every known goal that matches, as one ActionLib cancel request may address several goals.
+     *
+     * <p>Matching running goals are signalled with {@link ScheduledGoal#requestCancel()}; matching waiting
+     * goals are removed from the queue and returned, because they never started and must be recalled by the caller.
+     *
+     * @param matches selects the goals addressed by the cancel request
+     * @return the waiting goals that were removed
+     */
+    final synchronized List<ScheduledGoal<G>> cancelMatching(final Predicate<? super G> matches) {
+        for (final ScheduledGoal<G> scheduledGoal : this.active.values()) {
+            if (matches.test(scheduledGoal.goal)) {
+                scheduledGoal.requestCancel();
+            }
+        }
+        final List<ScheduledGoal<G>> removed = new ArrayList<>();
+        this.queue.removeIf(scheduledGoal -> matches.test(scheduledGoal.goal) && removed.add(scheduledGoal));
+        if (!removed.isEmpty()) {
+            this.notifyAll();
+        }
+        return removed;
+    }
+
+    /**
+     * @return the current scheduler metrics
+     */
+    final synchronized Stats getStats() {
+        return new Stats(
+                this.queue.size(),
+                this.active.size(),
+                this.started,
+                this.rejected,
+                this.preempted,
+                this.started == 0 ? 0 : this.totalWaitNanos / this.started,
+                this.maxWaitNanos);
+    }
+
+    /**
+     * Reject new goals but keep running the active goals and starting the waiting ones.
+     */
+    final synchronized void stopAccepting() {
+        this.draining = true;
+    }
+
+    /**
+     * Wait until no goal is running or waiting.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} value after which to give up
+     * @return {@code true} if the scheduler is idle
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    final synchronized boolean awaitIdle(final long deadlineNanos) throws InterruptedException {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        while (!(this.active.isEmpty() && this.queue.isEmpty()) && remainingNanos > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            remainingNanos = deadlineNanos - System.nanoTime();
+        }
+        return this.active.isEmpty() && this.queue.isEmpty();
+    }
+
+    /**
+     * Ask every running goal to preempt, for example because a shutdown cannot wait for them any longer.
+     *
+     * @return how many goals were asked
+     */
+    final synchronized int preemptActive() {
+        int asked = 0;
+        for (final ScheduledGoal<G> scheduledGoal : this.active.values()) {
+            if (!scheduledGoal.preemptRequested) {
+                scheduledGoal.preemptRequested = true;
+                scheduledGoal.stopSignal.countDown();
+                this.preempted++;
+                asked++;
+            }
+        }
+        return asked;
+    }
+
+    /**
+     * Stop admitting goals, drop the waiting ones, and stop the worker pool.
+     *
+     * @return the goals that were still waiting and never started
+     */
+    final synchronized List<ScheduledGoal<G>> shutdown() {
+        this.shutdown = true;
+        final List<ScheduledGoal<G>> dropped = new ArrayList<>(this.queue);
+        this.queue.clear();
+        this.workers.shutdown();
+        this.notifyAll();
+        return dropped;
+    }
+
+    /**
+     * Flag the running goal that started first. Must be called while holding the lock.
+     */
+    private final void requestPreemptOfOldest() {
+        ScheduledGoal<G> oldest = null;
+        for (final ScheduledGoal<G> candidate : this.active.values()) {
+            if (!candidate.preemptRequested && (oldest == null || candidate.sequence < oldest.sequence)) {
+                oldest = candidate;
+            }
+        }
+        if (oldest != null) {
+            oldest.preemptRequested = true;
+            oldest.stopSignal.countDown();
+            this.preempted++;
+        }
+    }
+
+    /**
+     * Move as many waiting goals to the active set as there are free slots and hand them to worker threads.
+     * Each worker frees its slot and starts the next waiting goal when it finishes. Must be called while
+     * holding the lock; the worker pool never blocks the caller.
+     */
+    private final void startRunnable() {
+        while (!this.shutdown && this.active.size() < this.maxConcurrentGoals && !this.queue.isEmpty()) {
+            final ScheduledGoal<G> next = this.queue.poll();
+            next.startedNanos = System.nanoTime();
+            this.active.put(next.goalId, next);
+            this.started++;
+            final long waitNanos = next.getWaitNanos();
+            this.totalWaitNanos += waitNanos;
+            this.maxWaitNanos = Math.max(this.maxWaitNanos, waitNanos);
+            this.workers.execute(() -> {
+                try {
+                    this.runner.accept(next);
+                } finally {
+                    synchronized (this) {
+                        this.active.remove(next.goalId);
+                        this.startRunnable();
+                        this.notifyAll();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import actionlib_msgs.GoalStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bookkeeping for the multi-goal stress mode of {@link ROSJavaActionClientNodeMain}.
+ *
+ * <p>Every goal sent during the run gets a {@link GoalTrace} keyed by its ActionLib goal id.
+ * The client callbacks report status, feedback, and results by goal id, and the trace records the
+ * goal-accept, first-feedback, and result latency measured from the moment the goal was sent.
+ *
+ * <p>The run also checks that the callbacks are routed to the right goal: every status, feedback,
+ * and result must name a goal of this run, feedback must never shrink or exceed the goal order, and
+ * the result returned by a goal's own {@code ActionFuture} must belong to that goal.
+ *
+ * @author Spyros Koukas
+ */
+final class ActionGoalStressRun {
+    /**
+     * The Fibonacci server seeds every sequence with two values before the first step.
+     */
+    private static final int SEED_LENGTH = 2;
+
+    /**
+     * Timing and routing record of one goal.
+     */
+    static final class GoalTrace {
+        private final int order;
+        private final long sentNanos;
+        private volatile long acceptedNanos;
+        private volatile long firstFeedbackNanos;
+        private volatile long resultNanos;
+        private volatile int lastFeedbackLength;
+
+        private GoalTrace(final int order, final long sentNanos) {
+            this.order = order;
+            this.sentNanos = sentNanos;
+        }
+
+        private final long acceptLatencyNanos() {
+            return this.acceptedNanos == 0 ? -1 : this.acceptedNanos - this.sentNanos;
+        }
+
+        private final long firstFeedbackLatencyNanos() {
+            return this.firstFeedbackNanos == 0 ? -1 : this.firstFeedbackNanos - this.sentNanos;
+        }
+
+        private final long resultLatencyNanos() {
+            return this.resultNanos == 0 ? -1 : this.resultNanos - this.sentNanos;
+        }
+    }
+
+    private final Map<String, GoalTrace> traces = new ConcurrentHashMap<>();
+    private final AtomicLong routingErrors = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong notSucceeded = new AtomicLong();
+    private volatile String firstRoutingError;
+
+    /**
+     * Start tracking a goal that has just been sent.
+     *
+     * @param goalId    the ActionLib goal id
+     * @param order     the requested Fibonacci order
+     * @param sentNanos the {@link System#nanoTime()} taken right before the goal was sent
+     */
+    final void onGoalSent(final String goalId, final int order, final long sentNanos) {
+        if (this.traces.putIfAbsent(goalId, new GoalTrace(order, sentNanos)) != null) {
+            this.routingError("Duplicate goal id [" + goalId + "]");
+        }
+    }
+
+    /**
+     * @param goalId the ActionLib goal id
+     * @return {@code true} if the goal belongs to this run
+     */
+    final boolean isTracked(final String goalId) {
+        return goalId != null && this.traces.containsKey(goalId);
+    }
+
+    /**
+     * Record one status entry of a tracked goal.
+     *
+     * @param goalId the ActionLib goal id
+     * @param status the raw ActionLib status byte
+     */
+    final void onStatus(final String goalId, final byte status) {
+        final GoalTrace trace = this.traces.get(goalId);
+        if (trace == null) {
+            return;
+        }
+        if (trace.acceptedNanos == 0 && status != GoalStatus.PENDING) {
+            trace.acceptedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Record one feedback message.
+     *
+     * @param goalId         the goal id carried by the feedback status
+     * @param sequenceLength length of the partial sequence in the feedback
+     */
+    final void onFeedback(final String goalId, final int sequenceLength) {
+        final GoalTrace trace = this.traces.get(goalId);
+        if (trace == null) {
+            this.routingError("Feedback for unknown goal [" + goalId + "]");
+            return;
+        }
+        if (trace.firstFeedbackNanos == 0) {
+            trace.firstFeedbackNanos = System.nanoTime();
+        }
+        if (trace.resultNanos != 0) {
+            this.routingError("Feedback after result for goal [" + goalId + "]");
+        }
+        if (sequenceLength < trace.lastFeedbackLength || sequenceLength > trace.order + SEED_LENGTH) {
+            this.routingError("Feedback of length " + sequenceLength + " does not fit goal [" + goalId + "] with order " + trace.order
+                    + " after length " + trace.lastFeedbackLength);
+        }
+        trace.lastFeedbackLength = sequenceLength;
+    }
+
+    /**
+     * Record a result delivered through the listener callback.
+     *
+     * @param goalId the goal id carried by the result status
+     */
+    final void onResultCallback(final String goalId) {
+        if (!this.isTracked(goalId)) {
+            this.routingError("Result callback for unknown goal [" + goalId + "]");
+        }
+    }
+
+    /**
+     * Record the result returned by the goal's own {@code ActionFuture}.
+     *
+     * @param expectedGoalId the goal the future was created for
+     * @param resultGoalId   the goal id carried by the returned result
+     * @param status         the terminal ActionLib status
+     * @param sequenceLength length of the returned sequence
+     */
+    final void onFutureResult(final String expectedGoalId, final String resultGoalId, final byte status, final int sequenceLength) {
+        final GoalTrace trace = this.traces.get(expectedGoalId);
+        if (trace == null) {
+            this.routingError("Future result for unknown goal [" + expectedGoalId + "]");
+            return;
+        }
+        trace.resultNanos = System.nanoTime();
+        if (!expectedGoalId.equals(resultGoalId)) {
+            this.routingError("Future of goal [" + expectedGoalId + "] returned the result of goal [" + resultGoalId + "]");
+        }
+        if (status == GoalStatus.SUCCEEDED) {
+            this.succeeded.incrementAndGet();
+            if (sequenceLength != trace.order + SEED_LENGTH) {
+                this.routingError("Result of length " + sequenceLength + " does not fit goal [" + expectedGoalId + "] with order " + trace.order);
+            }
+        } else {
+            this.notSucceeded.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record a goal whose future failed or timed out; the caller logs which goal it was.
+     */
+    final void onFutureFailure() {
+        this.notSucceeded.incrementAndGet();
+    }
+
+    /**
+     * @return a multi-line report with latency percentiles and routing results
+     */
+    final String report() {
+        return "goals=" + this.traces.size() + ", succeeded=" + this.succeeded.get() + ", other=" + this.notSucceeded.get()
+                + ", routingErrors=" + this.routingErrors.get()
+                + (this.firstRoutingError == null ? "" : " (first: " + this.firstRoutingError + ")")
+                + System.lineSeparator() + "  accept:         " + this.percentiles(GoalTrace::acceptLatencyNanos)
+                + System.lineSeparator() + "  first feedback: " + this.percentiles(GoalTrace::firstFeedbackLatencyNanos)
+                + System.lineSeparator() + "  result:         " + this.percentiles(GoalTrace::resultLatencyNanos);
+    }
+
+    /**
+     * @return how many routing errors were detected
+     */
+    final long getRoutingErrors() {
+        return this.routingErrors.get();
+    }
+
+    private final void routingError(final String description) {
+        if (this.routingErrors.getAndIncrement() == 0) {
+            this.firstRoutingError = description;
+        }
+    }
+
+    /**
+     * Summarize one latency of all goals that reached that point.
+     *
+     * @param latency extracts the latency of one goal, or {@code -1} if it was never observed
+     * @return p50, p90, p99, and max in milliseconds
+     */
+    private final String percentiles(final ToLongFunction<GoalTrace> latency) {
+        final long[] values = this.traces.values().stream().mapToLong(latency).filter(value -> value >= 0).sorted().toArray();
+        return LatencySummary.of(values);
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.math.BigInteger;
+
+/**
+ * Carries arbitrary-precision Fibonacci numbers in the {@code int[] sequence} field of the
+ * {@code actionlib_tutorials/Fibonacci} feedback and result messages.
+ *
+ * <p>{@code F(47)} no longer fits in an {@code int}, and the message type cannot change, so in this
+ * encoding every {@code int} of the sequence is a 32-bit limb instead of a number. A chunk holds a run of
+ * consecutive terms: {@code [first term index, term count]}, then for every term {@code [limb count]}
+ * followed by its magnitude, most significant limb first.
+ *
+ * <p>The server sends only the terms that are new since the previous feedback, never the whole
+ * sequence, and its result holds only the last term. A {@link Writer} keeps at most one chunk of terms,
+ * and an {@link Assembler} keeps only the last two terms, so neither side needs memory that grows with
+ * the order of the goal.
+ *
+ * @author Spyros Koukas
+ */
+final class BigFibonacciChunks {
+    /**
+     * The largest order whose sequence, {@code F(0)} to {@code F(order + 1)}, fits in an {@code int}.
+     */
+    static final int MAX_INT_ORDER = 45;
+
+    /**
+     * Limbs per feedback chunk, 64 KiB on the wire. A single larger term is sent in a chunk of its own.
+     */
+    static final int DEFAULT_MAX_CHUNK_INTS = 16_384;
+
+    private static final int HEADER_INTS = 2;
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private BigFibonacciChunks() {
+    }
+
+    /**
+     * @param termIndex the index of the term
+     * @param term      the term
+     * @return a chunk holding just that term, as sent in the result
+     */
+    static final int[] single(final int termIndex, final BigInteger term) {
+        final Writer writer = new Writer(termIndex, Integer.MAX_VALUE);
+        writer.add(term);
+        return writer.drain();
+    }
+
+    /**
+     * @param chunk a chunk
+     * @return the index of the first term in the chunk
+     */
+    static final int firstTermIndex(final int[] chunk) {
+        checkHeader(chunk);
+        return chunk[0];
+    }
+
+    /**
+     * @param chunk a chunk
+     * @return the number of terms in the chunk
+     */
+    static final int termCount(final int[] chunk) {
+        checkHeader(chunk);
+        return chunk[1];
+    }
+
+    /**
+     * @param chunk a chunk
+     * @return the last term of the chunk
+     * @throws IllegalArgumentException if the chunk is empty or malformed
+     */
+    static final BigInteger lastTerm(final int[] chunk) {
+        final int count = termCount(chunk);
+        if (count == 0) {
+            throw new IllegalArgumentException("Empty chunk");
+        }
+        int offset = HEADER_INTS;
+        for (int term = 1; term < count; term++) {
+            offset += 1 + limbCount(chunk, offset);
+        }
+        return decodeTerm(chunk, offset);
+    }
+
+    /**
+     * @param chunk a chunk
+     * @return a short description for logs, without the digits
+     */
+    static final String describe(final int[] chunk) {
+        final int count = termCount(chunk);
+        if (count == 0) {
+            return "no terms";
+        }
+        final int first = chunk[0];
+        return "F(" + first + ")..F(" + (first + count - 1) + "), " + chunk.length + " ints, last term " + lastTerm(chunk).bitLength() + " bits";
+    }
+
+    /**
+     * Collects consecutive terms into chunks of a bounded size.
+     */
+    static final class Writer {
+        private final int maxChunkInts;
+        private int[] limbs = new int[64];
+        private int size = HEADER_INTS;
+        private int firstTermIndex;
+        private int termCount;
+
+        /**
+         * @param firstTermIndex the index of the first term that will be added
+         * @param maxChunkInts   chunk size after which {@link #add(BigInteger)} reports the chunk as full
+         */
+        Writer(final int firstTermIndex, final int maxChunkInts) {
+            this.firstTermIndex = firstTermIndex;
+            this.maxChunkInts = maxChunkInts;
+        }
+
+        /**
+         * Append the next term.
+         *
+         * @param term the next term, not negative
+         * @return {@code true} if the chunk is full and should be {@link #drain() drained}
+         */
+        final boolean add(final BigInteger term) {
+            if (term.signum() < 0) {
+                throw new IllegalArgumentException("Negative term " + term);
+            }
+            final byte[] bytes = term.toByteArray();
+            // toByteArray adds a leading zero byte when the top bit is set; it carries no magnitude.
+            final int start = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+            final int byteCount = bytes.length - start;
+            final int limbCount = (byteCount + Integer.BYTES - 1) / Integer.BYTES;
+            this.ensureCapacity(this.size + 1 + limbCount);
+            this.limbs[this.size++] = limbCount;
+            // The most significant limb may be partial, so fill the limbs from the least significant end.
+            for (int limb = 0; limb < limbCount; limb++) {
+                int value = 0;
+                for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+                    final int index = bytes.length - 1 - limb * Integer.BYTES - shift / Byte.SIZE;
+                    if (index >= start) {
+                        value |= (bytes[index] & 0xff) << shift;
+                    }
+                }
+                this.limbs[this.size + limbCount - 1 - limb] = value;
+            }
+            this.size += limbCount;
+            this.termCount++;
+            return this.size >= this.maxChunkInts;
+        }
+
+        /**
+         * @return {@code true} if no term was added since the last {@link #drain()}
+         */
+        final boolean isEmpty() {
+            return this.termCount == 0;
+        }
+
+        /**
+         * @return the chunk of the terms added since the last drain; the writer continues with the next term index
+         */
+        final int[] drain() {
+            this.limbs[0] = this.firstTermIndex;
+            this.limbs[1] = this.termCount;
+            final int[] chunk = new int[this.size];
+            System.arraycopy(this.limbs, 0, chunk, 0, this.size);
+            this.firstTermIndex += this.termCount;
+            this.termCount = 0;
+            this.size = HEADER_INTS;
+            return chunk;
+        }
+
+        private final void ensureCapacity(final int capacity) {
+            if (capacity > this.limbs.length) {
+                final int[] grown = new int[Math.max(capacity, this.limbs.length * 2)];
+                System.arraycopy(this.limbs, 0, grown, 0, this.size);
+                this.limbs = grown;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the sequence from feedback chunks on the client, checking every term as it arrives.
+     *
+     * <p>Only the last two terms are kept: each new term must be their sum, so the whole sequence is
+     * verified without storing it.
+     *
+     * <p>rosjava drops the oldest queued messages when a publisher runs far ahead of a subscriber. After
+     * such a gap the assembler continues from the next chunk it gets, counts the gap, and starts checking
+     * again once it has two consecutive terms.
+     */
+    static final class Assembler {
+        private int nextTermIndex;
+        private BigInteger previous;
+        private BigInteger current;
+        private int chunks;
+        private long ints;
+        private int gaps;
+
+        /**
+         * Consume the next feedback chunk.
+         *
+         * @param chunk the chunk
+         * @throws IllegalArgumentException if the chunk repeats terms, or holds a wrong term
+         */
+        final void accept(final int[] chunk) {
+            final int first = firstTermIndex(chunk);
+            if (first < this.nextTermIndex) {
+                throw new IllegalArgumentException("Expected F(" + this.nextTermIndex + ") but the chunk starts at F(" + first + ")");
+            }
+            if (first > this.nextTermIndex) {
+                this.gaps++;
+                this.nextTermIndex = first;
+                this.previous = null;
+                this.current = null;
+            }
+            final int count = chunk[1];
+            int offset = HEADER_INTS;
+            for (int term = 0; term < count; term++) {
+                this.append(decodeTerm(chunk, offset));
+                offset += 1 + limbCount(chunk, offset);
+            }
+            if (offset != chunk.length) {
+                throw new IllegalArgumentException("Chunk has " + (chunk.length - offset) + " trailing ints");
+            }
+            this.chunks++;
+            this.ints += chunk.length;
+        }
+
+        /**
+         * @param result the result chunk of the goal
+         * @return {@code true} if the result is the last term assembled from the feedback
+         */
+        final boolean matchesResult(final int[] result) {
+            return termCount(result) == 1
+                    && firstTermIndex(result) == this.nextTermIndex - 1
+                    && lastTerm(result).equals(this.current);
+        }
+
+        /**
+         * @return the number of terms received so far
+         */
+        final int getTermCount() {
+            return this.nextTermIndex;
+        }
+
+        /**
+         * @return how many times chunks were missing from the feedback stream
+         */
+        final int getGapCount() {
+            return this.gaps;
+        }
+
+        /**
+         * @return the last term received, or {@code null} before the first chunk
+         */
+        final BigInteger getLastTerm() {
+            return this.current;
+        }
+
+        /**
+         * @return a short description for logs, without the digits
+         */
+        final String summary() {
+            return this.nextTermIndex + " terms in " + this.chunks + " chunks, " + this.ints + " ints, last term "
+                    + (this.current == null ? 0 : this.current.bitLength()) + " bits, " + this.gaps + " gaps";
+        }
+
+        private final void append(final BigInteger term) {
+            final BigInteger expected = switch (this.nextTermIndex) {
+                case 0 -> BigInteger.ZERO;
+                case 1 -> BigInteger.ONE;
+                // Right after a gap there is nothing to check against yet.
+                default -> this.previous == null ? term : this.previous.add(this.current);
+            };
+            if (!term.equals(expected)) {
+                throw new IllegalArgumentException("F(" + this.nextTermIndex + ") has " + term.bitLength()
+                        + " bits but should have " + expected.bitLength());
+            }
+            this.previous = this.current;
+            this.current = term;
+            this.nextTermIndex++;
+        }
+    }
+
+    private static final void checkHeader(final int[] chunk) {
+        if (chunk.length < HEADER_INTS || chunk[0] < 0 || chunk[1] < 0) {
+            throw new IllegalArgumentException("Malformed chunk of " + chunk.length + " ints");
+        }
+    }
+
+    private static final int limbCount(final int[] chunk, final int offset) {
+        if (offset >= chunk.length || chunk[offset] < 0 || chunk[offset] > chunk.length - offset - 1) {
+            throw new IllegalArgumentException("Truncated chunk at int " + offset);
+        }
+        return chunk[offset];
+    }
+
+    private static final BigInteger decodeTerm(final int[] chunk, final int offset) {
+        final int limbCount = limbCount(chunk, offset);
+        final byte[] magnitude = new byte[limbCount * Integer.BYTES];
+        for (int limb = 0; limb < limbCount; limb++) {
+            final int value = chunk[offset + 1 + limb];
+            final int base = limb * Integer.BYTES;
+            magnitude[base] = (byte) (value >>> 24);
+            magnitude[base + 1] = (byte) (value >>> 16);
+            magnitude[base + 2] = (byte) (value >>> 8);
+            magnitude[base + 3] = (byte) value;
+        }
+        return new BigInteger(1, magnitude);
+    }
+}
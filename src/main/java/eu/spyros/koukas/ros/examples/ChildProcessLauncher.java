@@ -0,0 +1,215 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the nodes that a {@link SystemDescription} assigns to a {@code process} in child JVMs.
+ *
+ * <p>Every child is a {@link MainExternal} with its own heap and garbage collector settings, pointed at
+ * the master of the launching JVM through {@code ROS_MASTER_URI}. It reads the same description file and
+ * starts only the nodes of its process, so a GC pause in one process no longer stalls the nodes of the
+ * others, and the processes spread over the cores of the host.
+ *
+ * <p>A child writes its output to {@code build/processes/<process>.log} and, just before it shuts
+ * down, a snapshot of its metrics to {@code build/processes/<process>.prom}.
+ * {@link #awaitResults(long, TimeUnit)} waits for the children and logs the exit code, run time, and
+ * garbage collection totals of each one next to those of the launching JVM.
+ *
+ * @author Spyros Koukas
+ */
+final class ChildProcessLauncher implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(ChildProcessLauncher.class);
+
+    /**
+     * System property with the file a child writes its metrics snapshot to.
+     */
+    static final String RESULT_FILE_PROPERTY = "ros.system.result_file";
+
+    /**
+     * System property with the directory of the child logs and results.
+     */
+    private static final String OUTPUT_DIRECTORY_PROPERTY = "ros.system.output_dir";
+    private static final String DEFAULT_OUTPUT_DIRECTORY = "build/processes";
+
+    /**
+     * How long a child that is still running when the launcher closes gets to shut down before it is killed.
+     */
+    private static final long DESTROY_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * One started child JVM.
+     */
+    private record Child(String name, Process process, long startNanos, Path logFile, Path resultFile) {
+    }
+
+    private final List<Child> children = new ArrayList<>();
+
+    /**
+     * Start one child JVM per process of the description.
+     *
+     * @param system       the description, read from a file
+     * @param rosHostIp    the local IP address advertised by the child nodes
+     * @param rosMasterUri the URI of the ROS master
+     * @throws IOException if a child cannot be started
+     */
+    final void start(final SystemDescription system, final String rosHostIp, final URI rosMasterUri) throws IOException {
+        final List<String> processNames = system.getChildProcessNames();
+        if (processNames.isEmpty()) {
+            return;
+        }
+        final Path outputDirectory = Path.of(System.getProperty(OUTPUT_DIRECTORY_PROPERTY, DEFAULT_OUTPUT_DIRECTORY));
+        Files.createDirectories(outputDirectory);
+        final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (final String processName : processNames) {
+            final Path logFile = outputDirectory.resolve(processName + ".log");
+            final Path resultFile = outputDirectory.resolve(processName + ".prom");
+            Files.deleteIfExists(resultFile);
+
+            final List<String> command = new ArrayList<>();
+            command.add(java);
+            // Pass on this JVM's ROS settings, such as thread pinning; the process options come later and win.
+            for (final String key : System.getProperties().stringPropertyNames()) {
+                if (key.startsWith("ros.") && !key.startsWith("ros.system") && !key.equals(MetricsHttpEndpoint.PORT_PROPERTY)) {
+                    command.add("-D" + key + "=" + System.getProperty(key));
+                }
+            }
+            command.addAll(system.getJvmArgs(processName));
+            command.add("-D" + SystemDescription.SYSTEM_PROPERTY + "=" + system.getFile().toAbsolutePath());
+            command.add("-D" + SystemDescription.PROCESS_PROPERTY + "=" + processName);
+            command.add("-D" + RESULT_FILE_PROPERTY + "=" + resultFile.toAbsolutePath());
+            command.add("-D" + MetricsHttpEndpoint.PORT_PROPERTY + "=0");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(MainExternal.class.getName());
+
+            final ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile.toFile());
+            final Map<String, String> environment = builder.environment();
+            environment.put("ROS_MASTER_URI", rosMasterUri.toString());
+            environment.put("ROS_IP", rosHostIp);
+            final Process process = builder.start();
+            this.children.add(new Child(processName, process, System.nanoTime(), logFile, resultFile));
+            LOGGER.info("Process " + processName + ": Started pid " + process.pid() + " with " + system.getJvmArgs(processName) + ", log " + logFile);
+        }
+    }
+
+    /**
+     * Wait for every child to exit, then log its result and the garbage collection of this JVM for comparison.
+     *
+     * @param timeout  how long to wait for all children together
+     * @param timeUnit unit of the timeout
+     * @return {@code true} if every child exited with status 0 in time
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    final boolean awaitResults(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        if (this.children.isEmpty()) {
+            return true;
+        }
+        final long deadlineNanos = System.nanoTime() + timeUnit.toNanos(timeout);
+        boolean success = true;
+        for (final Child child : this.children) {
+            if (!child.process().waitFor(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOGGER.warn("Process " + child.name() + ": Still running after the timeout, see " + child.logFile());
+                success = false;
+                continue;
+            }
+            final int exitCode = child.process().exitValue();
+            success &= exitCode == 0;
+            final long runMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - child.startNanos());
+            String gc = "no metrics snapshot";
+            if (Files.isRegularFile(child.resultFile())) {
+                try {
+                    gc = gcSummary(Files.readString(child.resultFile(), StandardCharsets.UTF_8)) + ", metrics " + child.resultFile();
+                } catch (final IOException exception) {
+                    gc = "unreadable metrics snapshot: " + exception.getMessage();
+                }
+            }
+            LOGGER.info("Process " + child.name() + ": Exit code " + exitCode + " after about " + runMillis + " ms, " + gc + ", log " + child.logFile());
+        }
+        LOGGER.info("Process main: " + gcSummary(MetricsRegistry.getDefault().toPrometheusText()));
+        return success;
+    }
+
+    /**
+     * Stop the children that are still running.
+     */
+    @Override
+    public final void close() {
+        for (final Child child : this.children) {
+            if (child.process().isAlive()) {
+                // MainExternal runs its coordinated shutdown on SIGTERM.
+                child.process().destroy();
+            }
+        }
+        for (final Child child : this.children) {
+            try {
+                if (!child.process().waitFor(DESTROY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    child.process().destroyForcibly();
+                }
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                child.process().destroyForcibly();
+            }
+        }
+        this.children.clear();
+    }
+
+    /**
+     * Write the metrics of this JVM to the file named by {@value #RESULT_FILE_PROPERTY}, if this is a child.
+     *
+     * <p>Call it while the nodes are still running, since their metrics are released when they shut down.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    static final void writeResultIfChild() throws IOException {
+        final String resultFile = System.getProperty(RESULT_FILE_PROPERTY);
+        if (resultFile != null) {
+            Files.writeString(Path.of(resultFile), MetricsRegistry.getDefault().toPrometheusText(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param prometheusText a metrics snapshot
+     * @return the garbage collection totals of the snapshot, from the gauges of {@link MetricsHttpEndpoint}
+     */
+    private static final String gcSummary(final String prometheusText) {
+        long collections = 0;
+        long millis = 0;
+        for (final String line : prometheusText.split("\n")) {
+            if (line.startsWith("jvm_gc_collections{")) {
+                collections += Math.max(0, Long.parseLong(line.substring(line.lastIndexOf(' ') + 1)));
+            } else if (line.startsWith("jvm_gc_collection_millis{")) {
+                millis += Math.max(0, Long.parseLong(line.substring(line.lastIndexOf(' ') + 1)));
+            }
+        }
+        return "GC " + collections + " collections, " + millis + " ms";
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Publishes one stream of messages at the full rate and at reduced rates on separate lane topics.
+ *
+ * <p>A rosjava {@link Publisher} serializes each message once and writes the same bytes to every
+ * connected subscriber, so it cannot send a different rate to each connection. Subscribers that only
+ * need a lower rate subscribe to a lane instead: a sibling topic such as {@code /chatter/every_10} or
+ * {@code /chatter/min_interval_100ms} that only carries every Nth message, or at most one message per
+ * interval.
+ *
+ * <p>For every message the publisher first decides which topics are due, and skips every topic
+ * that has no subscriber. The message is only built and serialized if at least one topic remains,
+ * and only handed to those topics. Lanes nobody listens to cost nothing.
+ *
+ * <p>Not thread safe: call {@link #publish(Consumer)} from one thread, like a publishing loop.
+ *
+ * @param <M> the generated message class of the topic
+ * @author Spyros Koukas
+ */
+final class DecimatedPublisher<M> {
+    /**
+     * A reduced-rate lane of the topic.
+     *
+     * @param suffix           appended to the topic name to form the lane topic
+     * @param everyNth         publish every Nth message, or 1
+     * @param minIntervalNanos shortest time between two messages on the lane, or 0
+     */
+    record Lane(String suffix, int everyNth, long minIntervalNanos) {
+        /**
+         * @param n keep one message out of every {@code n}
+         * @return the lane, published on {@code <topic>/every_<n>}
+         */
+        static final Lane everyNth(final int n) {
+            if (n < 1) {
+                throw new IllegalArgumentException("n must be at least 1 but was " + n);
+            }
+            return new Lane("every_" + n, n, 0);
+        }
+
+        /**
+         * @param minInterval shortest time between two messages
+         * @param timeUnit    unit of the interval
+         * @return the lane, published on {@code <topic>/min_interval_<millis>ms}
+         */
+        static final Lane atMostOnceEvery(final long minInterval, final TimeUnit timeUnit) {
+            return new Lane("min_interval_" + timeUnit.toMillis(minInterval) + "ms", 1, timeUnit.toNanos(minInterval));
+        }
+    }
+
+    /**
+     * One topic, full-rate or lane, with its decimation state.
+     */
+    private static final class Target<M> {
+        private final Publisher<M> publisher;
+        private final Lane lane;
+        private final MetricsRegistry.Counter published;
+        private final MetricsRegistry.Counter skipped;
+        private long sequence;
+        private long lastPublishedNanos;
+        private boolean publishedBefore;
+
+        private Target(final Publisher<M> publisher, final Lane lane, final MetricsRegistry.Counter published, final MetricsRegistry.Counter skipped) {
+            this.publisher = publisher;
+            this.lane = lane;
+            this.published = published;
+            this.skipped = skipped;
+        }
+
+        /**
+         * Advance the lane by one message.
+         *
+         * @return {@code true} if the lane is due and has a subscriber
+         */
+        private final boolean take(final long now) {
+            final boolean due = this.sequence++ % this.lane.everyNth() == 0
+                    && (!this.publishedBefore || now - this.lastPublishedNanos >= this.lane.minIntervalNanos());
+            if (!due || !this.publisher.hasSubscribers()) {
+                this.skipped.increment();
+                return false;
+            }
+            this.publishedBefore = true;
+            this.lastPublishedNanos = now;
+            return true;
+        }
+    }
+
+    private final List<Target<M>> targets = new ArrayList<>();
+    private final List<Target<M>> due = new ArrayList<>();
+
+    /**
+     * Create the full-rate publisher and one publisher per lane.
+     *
+     * @param connectedNode the connected rosjava node handle
+     * @param topic         the graph name of the full-rate topic
+     * @param messageType   the ROS message type of the topic
+     * @param lanes         the reduced-rate lanes
+     * @param metrics       the metrics scope of the owning node
+     */
+    DecimatedPublisher(final ConnectedNode connectedNode, final String topic, final String messageType, final List<Lane> lanes,
+                       final MetricsRegistry.Scope metrics) {
+        this.addTarget(connectedNode, topic, messageType, new Lane("", 1, 0), metrics);
+        final String prefix = topic.endsWith("/") ? topic : topic + "/";
+        for (final Lane lane : lanes) {
+            this.addTarget(connectedNode, prefix + lane.suffix(), messageType, lane, metrics);
+        }
+    }
+
+    /**
+     * Publish one message of the full-rate stream on every topic that is due and has subscribers.
+     *
+     * @param filler fills a fresh message; not called if no topic needs the message
+     * @return the published message, or {@code null} if it was not needed anywhere
+     */
+    final M publish(final Consumer<? super M> filler) {
+        final long now = System.nanoTime();
+        for (final Target<M> target : this.targets) {
+            if (target.take(now)) {
+                this.due.add(target);
+            }
+        }
+        if (this.due.isEmpty()) {
+            return null;
+        }
+        // All topics share the message type, so one message object serves every due topic.
+        final M message = this.due.get(0).publisher.newMessage();
+        filler.accept(message);
+        for (final Target<M> target : this.due) {
+            target.publisher.publish(message);
+            target.published.increment();
+        }
+        this.due.clear();
+        return message;
+    }
+
+    /**
+     * @return the graph names of the full-rate topic and every lane topic
+     */
+    final List<String> getTopicNames() {
+        return this.targets.stream().map(target -> target.publisher.getTopicName().toString()).toList();
+    }
+
+    private final void addTarget(final ConnectedNode connectedNode, final String topic, final String messageType, final Lane lane,
+                                 final MetricsRegistry.Scope metrics) {
+        final Publisher<M> publisher = connectedNode.newPublisher(topic, messageType);
+        this.targets.add(new Target<>(
+                publisher,
+                lane,
+                metrics.counter("ros_topic_messages_published_total", "Messages published", "topic", topic),
+                metrics.counter("ros_topic_messages_skipped_total", "Messages not published because the topic was not due or had no subscriber", "topic", topic)));
+    }
+}
@@ -16,12 +16,20 @@
  */
 package eu.spyros.koukas.ros.examples;
 
+import actionlib_tutorials.FibonacciActionFeedback;
+import org.ros.RosCore;
 import org.ros.exception.RosRuntimeException;
+import org.ros.node.DefaultNodeMainExecutor;
 import org.ros.node.NodeConfiguration;
 import org.ros.node.NodeMain;
 import org.ros.node.NodeMainExecutor;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -34,6 +42,13 @@ import java.util.concurrent.TimeUnit;
  * run the same topic, service, and action demonstrations.
  */
 final class ExampleSystemNodes {
+    /**
+     * Local host IP, standard ROS master port, and roscore start timeout of the embedded example setups.
+     */
+    static final String LOCAL_ROS_HOST_IP = "127.0.0.1";
+    static final int LOCAL_ROS_MASTER_PORT = 11311;
+    static final long ROSCORE_START_TIMEOUT_MILLIS = 2_000;
+
     /**
      * Service example graph names.
      */
@@ -41,6 +56,15 @@ final class ExampleSystemNodes {
     private static final String SERVICE_CLIENT_NODE_NAME = "/spyros/test/client/";
     private static final String SERVICE_NAME = "/spyros/test/service/sum";
 
+    /**
+     * Replicas of the service example. Each replica advertises the same service type under its own name,
+     * and the client balances its calls over the ones that are registered.
+     */
+    private static final int SERVICE_REPLICA_COUNT = 2;
+    private static final String SERVICE_REPLICA_SERVER_NODE_NAME_PREFIX = "/spyros/test/server_replica_";
+    private static final String SERVICE_REPLICA_NAME_PREFIX = SERVICE_NAME + "_replica_";
+    private static final ManagedServiceClient.Policy SERVICE_BALANCING_POLICY = ManagedServiceClient.Policy.ROUND_ROBIN;
+
     /**
      * Action example graph names.
      */
@@ -55,6 +79,44 @@ final class ExampleSystemNodes {
     private static final String SUBSCRIBER_NODE_NAME = "/spyros/test/subscriber/";
     private static final String TOPIC_NAME = "/spyros/test/topic/";
 
+    /**
+     * Reduced-rate lanes of the example topic, for subscribers that need fewer messages.
+     */
+    private static final List<DecimatedPublisher.Lane> TOPIC_LANES = List.of(
+            DecimatedPublisher.Lane.everyNth(5),
+            DecimatedPublisher.Lane.atMostOnceEvery(3, TimeUnit.SECONDS));
+    private static final String DECIMATED_SUBSCRIBER_NODE_NAME = "/spyros/test/subscriber_every_5/";
+    private static final String DECIMATED_TOPIC_NAME = TOPIC_NAME + "every_5";
+
+    /**
+     * Topic pipeline example graph names. The pipeline republishes the example topic in upper case and in batches.
+     */
+    private static final String PIPELINE_NODE_NAME = "/spyros/test/pipeline/";
+    private static final String PIPELINE_UPPER_CASE_TOPIC_NAME = "/spyros/test/topic/upper_case";
+    private static final String PIPELINE_BATCH_TOPIC_NAME = "/spyros/test/topic/batched";
+
+    /**
+     * Flow adapter example graph names.
+     */
+    private static final String FLOW_NODE_NAME = "/spyros/test/flow/";
+    private static final String FLOW_REPUBLISH_TOPIC_NAME = "/spyros/test/topic/flow";
+
+    /**
+     * Compressed variants of the example topic and of the action feedback, for subscribers on slow links.
+     */
+    private static final String COMPRESSED_TOPIC_NODE_NAME = "/spyros/test/compression/topic/";
+    private static final String COMPRESSED_TOPIC_NAME = TOPIC_NAME + "compressed";
+    private static final String COMPRESSED_FEEDBACK_NODE_NAME = "/spyros/test/compression/feedback/";
+    private static final String ACTION_FEEDBACK_TOPIC_NAME = ACTION_NAME + "/feedback";
+    private static final String COMPRESSED_FEEDBACK_TOPIC_NAME = ACTION_FEEDBACK_TOPIC_NAME + "/compressed";
+    private static final String DECOMPRESSING_SUBSCRIBER_NODE_NAME = "/spyros/test/compression/subscriber/";
+
+    /**
+     * Size of the example topic messages. Above {@link PayloadCodec#DEFAULT_THRESHOLD_BYTES}, so the
+     * compressed variant of the topic is deflated.
+     */
+    private static final int TOPIC_PAYLOAD_BYTES = 1_024;
+
     /**
      * Utility class. No instances are needed.
      */
@@ -73,6 +135,8 @@ final class ExampleSystemNodes {
      * @param actionFibonacciOrder        the Fibonacci order used by the ActionLib client
      * @param serviceRegistrationTimeout  how long to wait for service registration
      * @param timeUnit                    unit of the registration timeout
+     * @param shutdownCoordinator         drains the nodes before they stop; callers and publishers are
+     *                                    registered first so they stop sending before the servers stop serving
      * @throws InterruptedException if the waiting thread is interrupted
      */
     static final void start(
@@ -81,7 +145,8 @@ final class ExampleSystemNodes {
             final URI rosMasterUri,
             final int actionFibonacciOrder,
             final long serviceRegistrationTimeout,
-            final TimeUnit timeUnit) throws InterruptedException {
+            final TimeUnit timeUnit,
+            final ShutdownCoordinator shutdownCoordinator) throws InterruptedException {
         // Start the service server first so the service client can find it reliably.
         final ROSJavaServerNodeMain serviceServerNodeMain = new ROSJavaServerNodeMain(SERVICE_NAME, SERVICE_SERVER_NODE_NAME);
         execute(nodeMainExecutor, serviceServerNodeMain, rosHostIp, SERVICE_SERVER_NODE_NAME, rosMasterUri);
@@ -91,12 +156,130 @@ final class ExampleSystemNodes {
             throw new RosRuntimeException("Timed out while waiting for service server registration.");
         }
 
+        // The replicas do not need to be registered yet; the client starts using each one once it is.
+        final List<String> replicaServiceNames = new ArrayList<>();
+        final List<ROSJavaServerNodeMain> replicaNodeMains = new ArrayList<>();
+        for (int replica = 1; replica <= SERVICE_REPLICA_COUNT; replica++) {
+            final String replicaServiceName = SERVICE_REPLICA_NAME_PREFIX + replica;
+            final String replicaNodeName = SERVICE_REPLICA_SERVER_NODE_NAME_PREFIX + replica + "/";
+            final ROSJavaServerNodeMain replicaNodeMain = new ROSJavaServerNodeMain(replicaServiceName, replicaNodeName);
+            execute(nodeMainExecutor, replicaNodeMain, rosHostIp, replicaNodeName, rosMasterUri);
+            replicaServiceNames.add(replicaServiceName);
+            replicaNodeMains.add(replicaNodeMain);
+        }
+
         // Start the remaining examples. They all share the same ROS master and advertised host.
-        execute(nodeMainExecutor, new ROSJavaClientNodeMain(SERVICE_NAME, SERVICE_CLIENT_NODE_NAME), rosHostIp, SERVICE_CLIENT_NODE_NAME, rosMasterUri);
-        execute(nodeMainExecutor, new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME), rosHostIp, ACTION_SERVER_NODE_NAME, rosMasterUri);
+        final ROSJavaClientNodeMain serviceClientNodeMain =
+                new ROSJavaClientNodeMain(SERVICE_NAME, SERVICE_CLIENT_NODE_NAME, replicaServiceNames, SERVICE_BALANCING_POLICY);
+        execute(nodeMainExecutor, serviceClientNodeMain, rosHostIp, SERVICE_CLIENT_NODE_NAME, rosMasterUri);
+        final ROSJavaActionServerNodeMain actionServerNodeMain = new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME);
+        execute(nodeMainExecutor, actionServerNodeMain, rosHostIp, ACTION_SERVER_NODE_NAME, rosMasterUri);
         execute(nodeMainExecutor, new ROSJavaActionClientNodeMain(ACTION_NAME, ACTION_CLIENT_NODE_NAME, actionFibonacciOrder), rosHostIp, ACTION_CLIENT_NODE_NAME, rosMasterUri);
-        execute(nodeMainExecutor, new ROSJavaPublisherNodeMain(TOPIC_NAME, PUBLISHER_NODE_NAME), rosHostIp, PUBLISHER_NODE_NAME, rosMasterUri);
+        final ROSJavaPublisherNodeMain publisherNodeMain = new ROSJavaPublisherNodeMain(TOPIC_NAME, PUBLISHER_NODE_NAME, TOPIC_LANES,
+                ROSJavaPublisherNodeMain.DEFAULT_PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, TOPIC_PAYLOAD_BYTES);
+        execute(nodeMainExecutor, publisherNodeMain, rosHostIp, PUBLISHER_NODE_NAME, rosMasterUri);
         execute(nodeMainExecutor, new ROSJavaSubscriberNodeMain(TOPIC_NAME, SUBSCRIBER_NODE_NAME), rosHostIp, SUBSCRIBER_NODE_NAME, rosMasterUri);
+        // This subscriber only receives every fifth message; nobody subscribes to the other lane, so it is never serialized.
+        execute(nodeMainExecutor, new ROSJavaSubscriberNodeMain(DECIMATED_TOPIC_NAME, DECIMATED_SUBSCRIBER_NODE_NAME), rosHostIp, DECIMATED_SUBSCRIBER_NODE_NAME, rosMasterUri);
+        final TopicPipeline<String> pipeline = TopicPipeline.<std_msgs.String>from(TOPIC_NAME, std_msgs.String._TYPE)
+                .map("payload", std_msgs.String::getData)
+                .filter("non_blank", data -> !data.isBlank())
+                .map("upper_case", data -> data.toUpperCase(Locale.ROOT))
+                .republish("republish_upper_case", PIPELINE_UPPER_CASE_TOPIC_NAME, std_msgs.String._TYPE, std_msgs.String::setData)
+                .throttle("throttle", 2, TimeUnit.SECONDS)
+                .window("batch", 3, batch -> String.join(", ", batch))
+                .republish("republish_batch", PIPELINE_BATCH_TOPIC_NAME, std_msgs.String._TYPE, std_msgs.String::setData);
+        execute(nodeMainExecutor, new TopicPipelineNodeMain(PIPELINE_NODE_NAME, pipeline), rosHostIp, PIPELINE_NODE_NAME, rosMasterUri);
+        startCompressedVariants(nodeMainExecutor, rosHostIp, rosMasterUri);
+        execute(nodeMainExecutor, new ROSJavaFlowNodeMain(TOPIC_NAME, FLOW_REPUBLISH_TOPIC_NAME, FLOW_NODE_NAME), rosHostIp, FLOW_NODE_NAME, rosMasterUri);
+
+        // Senders first, so no new requests arrive while the servers drain.
+        shutdownCoordinator.register(SERVICE_CLIENT_NODE_NAME, serviceClientNodeMain.getShutdownParticipant());
+        shutdownCoordinator.register(PUBLISHER_NODE_NAME, publisherNodeMain.getShutdownParticipant());
+        shutdownCoordinator.register(SERVICE_SERVER_NODE_NAME, serviceServerNodeMain.getShutdownParticipant());
+        for (final ROSJavaServerNodeMain replicaNodeMain : replicaNodeMains) {
+            shutdownCoordinator.register(replicaNodeMain.getDefaultNodeName().toString(), replicaNodeMain.getShutdownParticipant());
+        }
+        shutdownCoordinator.register(ACTION_SERVER_NODE_NAME, actionServerNodeMain.getShutdownParticipant());
+    }
+
+    /**
+     * Republish the example topic and the action feedback as compressed {@code std_msgs/ByteMultiArray} frames.
+     *
+     * <p>A subscriber gets the original payload back with {@link PayloadCodec#toFrame(org.jboss.netty.buffer.ChannelBuffer)}
+     * and {@link PayloadCodec#decode(byte[])}. One such subscriber follows the compressed topic and checks that every frame
+     * decodes to a complete example message. Frames that do not are counted by the {@code round_trip} stage, as the
+     * difference between its {@code ros_pipeline_stage_messages_in_total} and {@code ..._out_total}; frames that cannot
+     * be decoded at all are counted in {@code ros_pipeline_failures_total}.
+     *
+     * @param nodeMainExecutor the rosjava executor
+     * @param rosHostIp        the advertised host IP
+     * @param rosMasterUri     the URI of the ROS master
+     */
+    private static final void startCompressedVariants(final NodeMainExecutor nodeMainExecutor, final String rosHostIp, final URI rosMasterUri) {
+        final PayloadCodec codec = PayloadCodec.getDefault();
+        final TopicPipeline<byte[]> compressedTopic = TopicPipeline.<std_msgs.String>from(TOPIC_NAME, std_msgs.String._TYPE)
+                .map("encode", message -> codec.encode(message.getData().getBytes(StandardCharsets.UTF_8)))
+                .republish("republish_compressed", COMPRESSED_TOPIC_NAME, std_msgs.ByteMultiArray._TYPE,
+                        (std_msgs.ByteMultiArray message, byte[] frame) -> message.setData(PayloadCodec.toMessageData(frame)));
+        execute(nodeMainExecutor, new TopicPipelineNodeMain(COMPRESSED_TOPIC_NODE_NAME, compressedTopic), rosHostIp, COMPRESSED_TOPIC_NODE_NAME, rosMasterUri);
+
+        final TopicPipeline<byte[]> compressedFeedback = TopicPipeline.<FibonacciActionFeedback>from(ACTION_FEEDBACK_TOPIC_NAME, FibonacciActionFeedback._TYPE)
+                .map("encode", feedback -> {
+                    final int[] sequence = feedback.getFeedback().getSequence();
+                    final ByteBuffer payload = ByteBuffer.allocate(sequence.length * Integer.BYTES);
+                    payload.asIntBuffer().put(sequence);
+                    return codec.encode(payload.array());
+                })
+                .republish("republish_compressed", COMPRESSED_FEEDBACK_TOPIC_NAME, std_msgs.ByteMultiArray._TYPE,
+                        (std_msgs.ByteMultiArray message, byte[] frame) -> message.setData(PayloadCodec.toMessageData(frame)));
+        execute(nodeMainExecutor, new TopicPipelineNodeMain(COMPRESSED_FEEDBACK_NODE_NAME, compressedFeedback), rosHostIp, COMPRESSED_FEEDBACK_NODE_NAME, rosMasterUri);
+
+        final TopicPipeline<String> decompressedTopic = TopicPipeline.<std_msgs.ByteMultiArray>from(COMPRESSED_TOPIC_NAME, std_msgs.ByteMultiArray._TYPE)
+                .map("decode", message -> new String(codec.decode(PayloadCodec.toFrame(message.getData())), StandardCharsets.UTF_8))
+                // The example publisher pads every message to the same size after its "Hello <n>" text.
+                .filter("round_trip", payload -> payload.length() == TOPIC_PAYLOAD_BYTES && payload.startsWith("Hello "));
+        execute(nodeMainExecutor, new TopicPipelineNodeMain(DECOMPRESSING_SUBSCRIBER_NODE_NAME, decompressedTopic), rosHostIp, DECOMPRESSING_SUBSCRIBER_NODE_NAME, rosMasterUri);
+    }
+
+    /**
+     * Start an embedded, publicly visible roscore and wait until it is ready.
+     *
+     * <p>The roscore is shut down again if it does not start within {@link #ROSCORE_START_TIMEOUT_MILLIS}.
+     *
+     * @param port the port of the ROS master
+     * @return the started roscore; the caller shuts it down
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    static final RosCore startLocalRosCore(final int port) throws InterruptedException {
+        final RosCore rosCore = RosCore.newPublic(port);
+        rosCore.start();
+        if (!rosCore.awaitStart(ROSCORE_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            rosCore.shutdown();
+            throw new RosRuntimeException("Timed out while waiting for roscore to start on port " + port + ".");
+        }
+        return rosCore;
+    }
+
+    /**
+     * @param port the port of an embedded ROS master
+     * @return the URI of the embedded ROS master on the local host
+     */
+    static final URI localMasterUri(final int port) {
+        return URI.create("http://" + LOCAL_ROS_HOST_IP + ":" + port);
+    }
+
+    /**
+     * Create the rosjava executor for the example nodes.
+     *
+     * <p>Every node started by {@link #execute(NodeMainExecutor, NodeMain, String, String, URI)} runs its
+     * Netty I/O, publishers, subscribers, and {@code CancellableLoop}s on this executor. Its threads are
+     * named, prioritized, and pinned as I/O threads by the default {@link ThreadPolicy}.
+     *
+     * @return the executor
+     */
+    static final NodeMainExecutor newNodeMainExecutor() {
+        return DefaultNodeMainExecutor.newDefault(ThreadPolicy.getDefault().newRosExecutorService());
     }
 
     /**
@@ -104,13 +287,13 @@ final class ExampleSystemNodes {
      *
      * <p>The configuration binds together the node name, advertised host IP, and ROS master URI.
      *
-     * @param nodeMainExecutor the rosjava executor
+     * @param nodeMainExecutor the rosjava executor, normally from {@link #newNodeMainExecutor()}
      * @param nodeMain         the node to execute
      * @param rosHostIp        the advertised host IP
      * @param nodeName         the ROS graph name of the node
      * @param rosMasterUri     the URI of the ROS master
      */
-    private static final void execute(
+    static final void execute(
             final NodeMainExecutor nodeMainExecutor,
             final NodeMain nodeMain,
             final String rosHostIp,
@@ -124,4 +307,16 @@ final class ExampleSystemNodes {
         // Ask rosjava to start the node with this configuration.
         nodeMainExecutor.execute(nodeMain, nodeConfiguration);
     }
+
+    /**
+     * Execute one {@link NodeMain} on the local host against an embedded master.
+     *
+     * @param nodeMainExecutor the rosjava executor
+     * @param nodeMain         the node to execute
+     * @param nodeName         the ROS graph name of the node
+     * @param rosMasterUri     the URI of the ROS master
+     */
+    static final void execute(final NodeMainExecutor nodeMainExecutor, final NodeMain nodeMain, final String nodeName, final URI rosMasterUri) {
+        execute(nodeMainExecutor, nodeMain, LOCAL_ROS_HOST_IP, nodeName, rosMasterUri);
+    }
 }
@@ -0,0 +1,237 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import actionlib_msgs.GoalStatus;
+import actionlib_msgs.GoalStatusArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Goal-id keyed index of the ActionLib {@code /status} topic.
+ *
+ * <p>The action server publishes the status of every goal it tracks on every status tick.
+ * This tracker keeps the last known status per goal in a hash map and, for each new
+ * {@link GoalStatusArray}, only acts on the entries that differ from the previous array: a status
+ * change, a goal that appears, or a goal that disappears. Each array entry costs one map lookup,
+ * and listeners are only called for the changes.
+ *
+ * <p>Listeners are registered per goal id, so a client that follows hundreds of goals does not scan
+ * its goals on every tick. Per-goal listeners are dropped automatically once the goal reaches a
+ * terminal status or the server stops reporting it. Listeners of a goal the server never reports, for
+ * example because the goal was lost or the server restarted, expire after
+ * {@value #UNREPORTED_LISTENER_TTL_MILLIS} ms.
+ *
+ * @author Spyros Koukas
+ */
+final class GoalStatusTracker {
+    /**
+     * Marker used as the previous status of a goal that has not been seen before.
+     */
+    static final byte UNKNOWN_STATUS = -1;
+
+    /**
+     * How long the listeners of a goal are kept while the server has not reported the goal.
+     */
+    static final long UNREPORTED_LISTENER_TTL_MILLIS = 30_000;
+
+    /**
+     * The listeners of unreported goals are checked for expiry at most this often.
+     */
+    private static final long LISTENER_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Receives the status changes of one goal.
+     */
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * Called when the goal appears or its status changes.
+         *
+         * @param goalId         the ActionLib goal id
+         * @param previousStatus the last known status, or {@link #UNKNOWN_STATUS} for a new goal
+         * @param status         the new status entry
+         */
+        void onStatusChanged(String goalId, byte previousStatus, GoalStatus status);
+    }
+
+    /**
+     * The listeners of one goal and when the first of them was registered.
+     */
+    private record GoalListeners(List<Listener> listeners, long registeredNanos) {
+    }
+
+    /**
+     * Last known state of one goal. Guarded by the tracker lock.
+     */
+    private static final class TrackedGoal {
+        private GoalStatus status;
+        private long seenInUpdate;
+
+        private TrackedGoal(final GoalStatus status, final long seenInUpdate) {
+            this.status = status;
+            this.seenInUpdate = seenInUpdate;
+        }
+    }
+
+    /**
+     * One change detected while applying a status array, delivered after the lock is released.
+     */
+    private record Change(String goalId, byte previousStatus, GoalStatus status) {
+    }
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Map<String, TrackedGoal> goals = new HashMap<>();
+    private long update;
+    private long lastSweepNanos = System.nanoTime();
+
+    private final Map<String, GoalListeners> goalListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Listen to the status changes of one goal.
+     *
+     * <p>If the goal is already known, the listener is called once right away with its current status,
+     * so registering after {@code sendGoal(...)} cannot miss the first transition.
+     *
+     * @param goalId   the ActionLib goal id
+     * @param listener the listener
+     */
+    final void addListener(final String goalId, final Listener listener) {
+        final GoalListeners entry = this.goalListeners.computeIfAbsent(goalId, id -> new GoalListeners(new CopyOnWriteArrayList<>(), System.nanoTime()));
+        entry.listeners().add(listener);
+        final Optional<GoalStatus> current = this.getStatus(goalId);
+        current.ifPresent(status -> {
+            listener.onStatusChanged(goalId, UNKNOWN_STATUS, status);
+            if (isTerminal(status.getStatus())) {
+                this.goalListeners.remove(goalId, entry);
+            }
+        });
+    }
+
+    /**
+     * @param goalId the ActionLib goal id
+     * @return the last status entry the server reported for the goal
+     */
+    final synchronized Optional<GoalStatus> getStatus(final String goalId) {
+        final TrackedGoal trackedGoal = this.goals.get(goalId);
+        return trackedGoal == null ? Optional.empty() : Optional.of(trackedGoal.status);
+    }
+
+    /**
+     * Apply one status array and notify the listeners of the goals that changed.
+     *
+     * @param statusArray the status array received on the {@code /status} topic
+     * @return how many changes were detected
+     */
+    final int apply(final GoalStatusArray statusArray) {
+        final List<Change> changes = new ArrayList<>();
+        synchronized (this) {
+            final long currentUpdate = ++this.update;
+            int matched = 0;
+            int added = 0;
+            for (final GoalStatus status : statusArray.getStatusList()) {
+                final String goalId = status.getGoalId().getId();
+                final TrackedGoal trackedGoal = this.goals.get(goalId);
+                if (trackedGoal == null) {
+                    this.goals.put(goalId, new TrackedGoal(status, currentUpdate));
+                    changes.add(new Change(goalId, UNKNOWN_STATUS, status));
+                    added++;
+                    continue;
+                }
+                if (trackedGoal.seenInUpdate != currentUpdate) {
+                    matched++;
+                    trackedGoal.seenInUpdate = currentUpdate;
+                }
+                if (trackedGoal.status.getStatus() != status.getStatus()) {
+                    changes.add(new Change(goalId, trackedGoal.status.getStatus(), status));
+                }
+                trackedGoal.status = status;
+            }
+
+            // Only walk the index when some previously known goal was missing from this array.
+            if (matched + added < this.goals.size()) {
+                final Iterator<Map.Entry<String, TrackedGoal>> iterator = this.goals.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<String, TrackedGoal> entry = iterator.next();
+                    if (entry.getValue().seenInUpdate != currentUpdate) {
+                        iterator.remove();
+                        changes.add(new Change(entry.getKey(), entry.getValue().status.getStatus(), null));
+                    }
+                }
+            }
+
+            final long nowNanos = System.nanoTime();
+            if (nowNanos - this.lastSweepNanos >= LISTENER_SWEEP_INTERVAL_NANOS) {
+                this.lastSweepNanos = nowNanos;
+                this.expireUnreportedListeners(nowNanos);
+            }
+        }
+
+        for (final Change change : changes) {
+            this.notifyListeners(change);
+        }
+        return changes.size();
+    }
+
+    /**
+     * Drop the listeners of goals the server has not reported within {@link #UNREPORTED_LISTENER_TTL_MILLIS}.
+     * Must be called while holding the lock.
+     */
+    private final void expireUnreportedListeners(final long nowNanos) {
+        final long ttlNanos = TimeUnit.MILLISECONDS.toNanos(UNREPORTED_LISTENER_TTL_MILLIS);
+        this.goalListeners.entrySet().removeIf(entry -> !this.goals.containsKey(entry.getKey())
+                && nowNanos - entry.getValue().registeredNanos() > ttlNanos);
+    }
+
+    /**
+     * Notify the listeners of the goal, and drop them once the goal is terminal or gone.
+     */
+    private final void notifyListeners(final Change change) {
+        if (change.status == null) {
+            this.goalListeners.remove(change.goalId);
+            return;
+        }
+        final boolean terminal = isTerminal(change.status.getStatus());
+        final GoalListeners entry = terminal ? this.goalListeners.remove(change.goalId) : this.goalListeners.get(change.goalId);
+        if (entry != null) {
+            for (final Listener listener : entry.listeners()) {
+                listener.onStatusChanged(change.goalId, change.previousStatus, change.status);
+            }
+        }
+    }
+
+    /**
+     * @param status an ActionLib goal status
+     * @return {@code true} if the goal cannot change status any more
+     */
+    private static final boolean isTerminal(final byte status) {
+        return switch (status) {
+            case GoalStatus.SUCCEEDED, GoalStatus.ABORTED, GoalStatus.REJECTED, GoalStatus.PREEMPTED, GoalStatus.RECALLED, GoalStatus.LOST -> true;
+            default -> false;
+        };
+    }
+}
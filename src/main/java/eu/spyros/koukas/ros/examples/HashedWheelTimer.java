@@ -0,0 +1,277 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for large numbers of short deadlines that are usually cancelled before they fire.
+ *
+ * <p>Service call deadlines almost never expire: the response arrives and the deadline is cancelled.
+ * A {@link java.util.concurrent.ScheduledExecutorService} keeps every pending task in a heap, so each
+ * call pays a logarithmic insert and remove under a lock. This timer instead hashes every deadline
+ * into one of a fixed number of buckets arranged as a wheel. A single thread advances the wheel one
+ * bucket per tick and fires the expired deadlines of that bucket. Adding and cancelling a deadline
+ * only appends it to a lock-free queue; the wheel thread links and unlinks it in constant time.
+ *
+ * <p>Deadlines fire up to one tick late, which is fine for timeouts. Cancelled deadlines are unlinked
+ * on the next tick, so memory stays proportional to the number of deadlines that are actually pending.
+ *
+ * @author Spyros Koukas
+ */
+final class HashedWheelTimer implements AutoCloseable {
+    /**
+     * Defaults of the shared timer: 10 ms ticks and 512 buckets, so one turn of the wheel is about 5 s.
+     */
+    static final long DEFAULT_TICK_MILLIS = 10;
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final class DefaultHolder {
+        private static final HashedWheelTimer DEFAULT = new HashedWheelTimer("hashed-wheel-timer", DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * A pending deadline. Linked into a bucket by the wheel thread only.
+     */
+    static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(final HashedWheelTimer timer, final Runnable task, final long deadlineNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancel the deadline.
+         *
+         * @return {@code true} if the deadline had not fired or been cancelled yet
+         */
+        final boolean cancel() {
+            if (!this.state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            this.timer.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * @return {@code true} if the task has run
+         */
+        final boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of the deadlines hashed into one slot of the wheel.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private final void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        private final Timeout remove(final Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            }
+            if (next != null) {
+                next.previous = timeout.previous;
+            }
+            if (timeout == this.head) {
+                this.head = next;
+            }
+            if (timeout == this.tail) {
+                this.tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean closed;
+    private long tick;
+
+    /**
+     * @return the process-wide timer, started on first use
+     */
+    static final HashedWheelTimer getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Create and start a timer.
+     *
+     * @param threadName name of the wheel thread
+     * @param tick       duration of one tick
+     * @param timeUnit   unit of the tick
+     * @param wheelSize  number of buckets, rounded up to a power of two
+     */
+    HashedWheelTimer(final String threadName, final long tick, final TimeUnit timeUnit, final int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tick and wheelSize must be positive");
+        }
+        this.tickNanos = timeUnit.toNanos(tick);
+        final int size = Integer.highestOneBit(wheelSize - 1 | 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int index = 0; index < size; index++) {
+            this.wheel[index] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run a task once the delay has elapsed, unless the returned deadline is cancelled first.
+     *
+     * <p>The task runs on the wheel thread, so it must be short and must not block.
+     *
+     * @param task     the task to run on expiry
+     * @param delay    how long from now
+     * @param timeUnit unit of the delay
+     * @return the deadline handle
+     */
+    final Timeout newTimeout(final Runnable task, final long delay, final TimeUnit timeUnit) {
+        if (this.closed) {
+            throw new IllegalStateException("Timer is closed.");
+        }
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0L, timeUnit.toNanos(delay)));
+        this.pending.incrementAndGet();
+        this.added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return deadlines still held by the wheel, including cancelled ones not yet unlinked
+     */
+    final int getPendingCount() {
+        return this.pending.get();
+    }
+
+    /**
+     * Stop the wheel thread. Pending deadlines never fire.
+     */
+    @Override
+    public final void close() {
+        this.closed = true;
+        this.worker.interrupt();
+    }
+
+    private final void run() {
+        while (!this.closed) {
+            final long tickDeadlineNanos = this.startNanos + (this.tick + 1) * this.tickNanos;
+            long sleepNanos = tickDeadlineNanos - System.nanoTime();
+            while (sleepNanos > 0 && !this.closed) {
+                LockSupport.parkNanos(sleepNanos);
+                sleepNanos = tickDeadlineNanos - System.nanoTime();
+            }
+            if (this.closed) {
+                return;
+            }
+
+            this.unlinkCancelled();
+            this.linkAdded();
+            this.expire(this.wheel[(int) (this.tick & this.mask)]);
+            this.tick++;
+        }
+    }
+
+    private final void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = this.cancelled.poll()) != null) {
+            // A deadline cancelled before it was linked is dropped by linkAdded, and one that
+            // reached its bucket in the meantime was already unlinked by expire.
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                this.pending.decrementAndGet();
+            }
+        }
+    }
+
+    private final void linkAdded() {
+        Timeout timeout;
+        while ((timeout = this.added.poll()) != null) {
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                this.pending.decrementAndGet();
+                continue;
+            }
+            final long ticksFromStart = Math.max((timeout.deadlineNanos - this.startNanos + this.tickNanos - 1) / this.tickNanos - 1, this.tick);
+            timeout.remainingRounds = (ticksFromStart - this.tick) / this.wheel.length;
+            this.wheel[(int) (ticksFromStart & this.mask)].add(timeout);
+        }
+    }
+
+    private final void expire(final Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                timeout = timeout.next;
+                continue;
+            }
+            final Timeout next = bucket.remove(timeout);
+            this.pending.decrementAndGet();
+            if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                try {
+                    timeout.task.run();
+                } catch (final RuntimeException exception) {
+                    // One failing task must not stop the wheel for every other deadline.
+                }
+            }
+            timeout = next;
+        }
+    }
+}
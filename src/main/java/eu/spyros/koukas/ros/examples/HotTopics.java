@@ -0,0 +1,231 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which topics run in the low-latency busy-spin mode.
+ *
+ * <p>By default the publishing loop sleeps until its next message is due and the subscriber processes
+ * messages on the rosjava callback thread. Sleeping and parking threads are cheap, but waking them up
+ * takes the scheduler tens of microseconds, sometimes much more on a busy machine. For control loops with
+ * sub-millisecond budgets a hot topic can instead use {@link Mode#BUSY_SPIN}: a dedicated thread that
+ * never sleeps and polls with {@link Thread#onSpinWait()}, which trades one full core for a wakeup of
+ * well under a microsecond.
+ *
+ * <p>The hot topics are listed in the {@code ros.topics.busy_spin} system property, for example
+ * {@code -Dros.topics.busy_spin=/spyros/test/topic/}. Every spinning thread occupies a core, so at most
+ * {@link #getMaxSpinningThreads()} of them run at once; topics beyond that fall back to
+ * {@link Mode#DEFAULT}. The spinning threads use {@link ThreadPolicy.Role#SPIN}, so they can be pinned to
+ * their own cores, away from the I/O threads that move their messages.
+ *
+ * <p>To compare the modes, the publisher stamps each message with its send time, see
+ * {@link #stampSent(String)}, and the subscriber records the time from the stamp to the start of
+ * processing in both modes.
+ *
+ * @author Spyros Koukas
+ */
+final class HotTopics {
+    /**
+     * At most a quarter of the cores spin by default, and at least one.
+     */
+    private static final int DEFAULT_MAX_SPINNING_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+    /**
+     * Separates the send stamp from the text of a published message.
+     */
+    private static final String SENT_STAMP_PREFIX = " @";
+
+    /**
+     * Stamps older than this are not counted as a delivery, for example those of a replayed capture.
+     */
+    private static final long MAX_DELIVERY_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The publisher and the subscriber write at most one message line per interval at info level, and
+     * the others at debug level, so a fast topic does not turn into a logging benchmark.
+     */
+    static final long MESSAGE_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final class DefaultHolder {
+        private static final HotTopics DEFAULT = new HotTopics(
+                Arrays.stream(System.getProperty("ros.topics.busy_spin", "").split(","))
+                        .map(String::strip)
+                        .filter(topic -> !topic.isEmpty())
+                        .collect(Collectors.toSet()),
+                Integer.getInteger("ros.topics.busy_spin.max_threads", DEFAULT_MAX_SPINNING_THREADS));
+    }
+
+    /**
+     * How the loop thread of a topic waits for its next message.
+     */
+    enum Mode {
+        /**
+         * Sleep or park until woken up. Uses no CPU while waiting.
+         */
+        DEFAULT,
+        /**
+         * Spin on a dedicated thread. Lowest wakeup latency, one busy core per topic.
+         */
+        BUSY_SPIN;
+
+        /**
+         * @return the metrics label of the mode
+         */
+        final String label() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Set<String> hotTopics;
+    private final int maxSpinningThreads;
+    private final Semaphore spinningThreads;
+
+    /**
+     * @return the process-wide configuration, read from the {@code ros.topics.busy_spin} system properties
+     */
+    static final HotTopics getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * @param hotTopics          graph names of the topics that should busy-spin
+     * @param maxSpinningThreads how many threads may spin at the same time
+     */
+    HotTopics(final Set<String> hotTopics, final int maxSpinningThreads) {
+        if (maxSpinningThreads < 0) {
+            throw new IllegalArgumentException("maxSpinningThreads must not be negative but was " + maxSpinningThreads);
+        }
+        this.hotTopics = Set.copyOf(hotTopics);
+        this.maxSpinningThreads = maxSpinningThreads;
+        this.spinningThreads = new Semaphore(maxSpinningThreads);
+    }
+
+    /**
+     * Reserve a spinning thread for the topic if it is hot and the limit allows one more.
+     *
+     * <p>Every {@link Mode#BUSY_SPIN} result must be given back with {@link #release(Mode)} when the
+     * spinning thread stops.
+     *
+     * @param topic the graph name of the topic
+     * @return the mode the topic runs in
+     */
+    final Mode acquire(final String topic) {
+        return this.hotTopics.contains(topic) && this.spinningThreads.tryAcquire() ? Mode.BUSY_SPIN : Mode.DEFAULT;
+    }
+
+    /**
+     * Give back a spinning thread reserved by {@link #acquire(String)}.
+     *
+     * @param mode the mode returned by {@link #acquire(String)}
+     */
+    final void release(final Mode mode) {
+        if (mode == Mode.BUSY_SPIN) {
+            this.spinningThreads.release();
+        }
+    }
+
+    /**
+     * @param topic the graph name of the topic
+     * @return {@code true} if the topic is configured to busy-spin, whether or not it got a thread
+     */
+    final boolean isHot(final String topic) {
+        return this.hotTopics.contains(topic);
+    }
+
+    /**
+     * @return how many threads may spin at the same time
+     */
+    final int getMaxSpinningThreads() {
+        return this.maxSpinningThreads;
+    }
+
+    /**
+     * Wait until {@code System.nanoTime()} reaches the deadline.
+     *
+     * @param mode          {@link Mode#DEFAULT} sleeps, {@link Mode#BUSY_SPIN} spins
+     * @param deadlineNanos the {@link System#nanoTime()} to wait for
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    static final void awaitDeadline(final Mode mode, final long deadlineNanos) throws InterruptedException {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (mode == Mode.BUSY_SPIN) {
+                Thread.onSpinWait();
+            } else {
+                // Sleeps can end early, so loop until the deadline has really passed.
+                LockSupport.parkNanos(remainingNanos);
+            }
+        }
+    }
+
+    /**
+     * Append the current wall-clock time to the text of a message. Wall-clock time is used because the
+     * publisher and the subscriber may run in different JVMs on the same host.
+     *
+     * @param text the message text
+     * @return the text followed by the send stamp in microseconds since the epoch
+     */
+    static final String stampSent(final String text) {
+        return text + SENT_STAMP_PREFIX + epochMicros();
+    }
+
+    /**
+     * @param data the data of a received message
+     * @return the nanoseconds since the message was stamped by {@link #stampSent(String)}, or -1 if it has
+     * no stamp or the stamp is not recent
+     */
+    static final long deliveryLatencyNanos(final String data) {
+        final long nowMicros = epochMicros();
+        final int start = data.indexOf(SENT_STAMP_PREFIX);
+        if (start < 0) {
+            return -1;
+        }
+        long sentMicros = 0;
+        int index = start + SENT_STAMP_PREFIX.length();
+        final int firstDigit = index;
+        for (; index < data.length() && Character.isDigit(data.charAt(index)); index++) {
+            sentMicros = sentMicros * 10 + (data.charAt(index) - '0');
+        }
+        if (index == firstDigit) {
+            return -1;
+        }
+        final long latencyNanos = TimeUnit.MICROSECONDS.toNanos(nowMicros - sentMicros);
+        return latencyNanos >= 0 && latencyNanos <= MAX_DELIVERY_LATENCY_NANOS ? latencyNanos : -1;
+    }
+
+    private static final long epochMicros() {
+        final Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+    }
+
+    @Override
+    public final String toString() {
+        return "busy-spin topics " + this.hotTopics + ", at most " + this.maxSpinningThreads + " spinning threads";
+    }
+}
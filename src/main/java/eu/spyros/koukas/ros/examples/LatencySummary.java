@@ -0,0 +1,70 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact latency percentiles of the samples collected by a benchmark run, for its text report.
+ *
+ * <p>Unlike {@link MetricsRegistry.Histogram}, which keeps bucket counts, the runs that use this
+ * helper keep every sample, so the percentiles are exact.
+ *
+ * @author Spyros Koukas
+ */
+final class LatencySummary {
+    /**
+     * Utility class. No instances are needed.
+     */
+    private LatencySummary() {
+    }
+
+    /**
+     * Summarize latency samples.
+     *
+     * @param sortedNanos the samples in nanoseconds, sorted in ascending order
+     * @return sample count, p50, p90, p99, and max in milliseconds, or {@code n/a} if there are no samples
+     */
+    static final String of(final long[] sortedNanos) {
+        if (sortedNanos.length == 0) {
+            return "n/a";
+        }
+        return "n=" + sortedNanos.length
+                + " p50=" + toMillis(percentile(sortedNanos, 0.50))
+                + " p90=" + toMillis(percentile(sortedNanos, 0.90))
+                + " p99=" + toMillis(percentile(sortedNanos, 0.99))
+                + " max=" + toMillis(sortedNanos[sortedNanos.length - 1]) + " ms";
+    }
+
+    /**
+     * @param sortedNanos the samples, sorted in ascending order; must not be empty
+     * @param quantile    the quantile between 0 and 1
+     * @return the nearest-rank percentile of the samples
+     */
+    static final long percentile(final long[] sortedNanos, final double quantile) {
+        final int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))];
+    }
+
+    /**
+     * @param nanos a duration in nanoseconds
+     * @return the duration in milliseconds with one decimal
+     */
+    static final String toMillis(final long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
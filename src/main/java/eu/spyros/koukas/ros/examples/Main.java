@@ -16,9 +16,10 @@
  */
 package eu.spyros.koukas.ros.examples;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.ros.RosCore;
 import org.ros.exception.RosRuntimeException;
-import org.ros.node.DefaultNodeMainExecutor;
 import org.ros.node.NodeMainExecutor;
 
 import java.net.URI;
@@ -35,20 +36,13 @@ import java.util.concurrent.TimeUnit;
  * @author Spyros Koukas
  */
 public final class Main {
-    /**
-     * Local host IP used by the embedded example setup.
-     */
-    private static final String ROS_HOST_IP = "127.0.0.1";
-
-    /**
-     * Standard ROS master port used by the embedded roscore.
-     */
-    private static final int ROS_MASTER_PORT = 11311;
+    private static final Logger LOGGER = LogManager.getLogger(Main.class);
 
     /**
-     * How long to wait for the embedded roscore to start.
+     * Local host IP and standard ROS master port used by the embedded example setup.
      */
-    private static final long ROSCORE_START_TIMEOUT_MILLIS = 2_000;
+    private static final String ROS_HOST_IP = ExampleSystemNodes.LOCAL_ROS_HOST_IP;
+    private static final int ROS_MASTER_PORT = ExampleSystemNodes.LOCAL_ROS_MASTER_PORT;
 
     /**
      * How long to wait for the service server to register before starting the service client.
@@ -65,6 +59,19 @@ public final class Main {
      */
     private static final int ACTION_FIBONACCI_ORDER = 8;
 
+    /**
+     * How long to wait after the demo for child JVMs to finish their own run and shutdown.
+     */
+    private static final long CHILD_PROCESS_EXIT_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Shutdown budget: how long in-flight calls and goals may take to finish, how long the last
+     * published messages get to leave the process, and how long each of the node and master shutdowns may take.
+     */
+    static final long SHUTDOWN_DRAIN_TIMEOUT_MILLIS = 5_000;
+    static final long SHUTDOWN_FLUSH_LINGER_MILLIS = 200;
+    static final long SHUTDOWN_STOP_TIMEOUT_MILLIS = 3_000;
+
     /**
      * Utility class. No instances are needed.
      */
@@ -81,36 +88,64 @@ public final class Main {
         // Create a publicly visible rosjava ROS master bound to the standard ROS port.
         final RosCore rosCore = RosCore.newPublic(ROS_MASTER_PORT);
 
+        // A description file passed with -Dros.system replaces the built-in examples.
+        final SystemDescription system = SystemDescription.fromSystemProperty();
+
+        // An executor is needed to spawn rosjava nodes from Java. Its threads follow the ThreadPolicy.
+        final NodeMainExecutor nodeMainExecutor = system == null ? ExampleSystemNodes.newNodeMainExecutor() : system.newNodeMainExecutor();
+        LOGGER.info("Threads: " + ThreadPolicy.getDefault());
+
+        // Stops new work, drains in-flight calls and goals, and then stops the nodes and the master, all within a bounded time.
+        // The JVM shutdown hook runs the same shutdown when the process is stopped early, e.g. by SIGTERM during a deploy.
+        final ShutdownCoordinator shutdownCoordinator = new ShutdownCoordinator(
+                SHUTDOWN_DRAIN_TIMEOUT_MILLIS, SHUTDOWN_FLUSH_LINGER_MILLIS, SHUTDOWN_STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        final Runnable shutdown = () -> LOGGER.info("Shutdown: " + shutdownCoordinator.shutdown(nodeMainExecutor::shutdown, rosCore::shutdown));
+        final Thread shutdownHook = new Thread(shutdown, "ros-shutdown-hook");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
         // Start the embedded roscore.
         rosCore.start();
         try {
             // Before proceeding any further we need to make sure that the roscore is already started.
-            if (!rosCore.awaitStart(ROSCORE_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!rosCore.awaitStart(ExampleSystemNodes.ROSCORE_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
                 throw new RosRuntimeException("Timed out while waiting for roscore to start.");
             }
 
-            // An executor is needed to spawn rosjava nodes from Java.
-            final NodeMainExecutor nodeMainExecutor = DefaultNodeMainExecutor.newDefault();
-            try {
+            // The node metrics are also available over JMX; the endpoint adds a Prometheus scrape target.
+            try (final MetricsHttpEndpoint metricsEndpoint = MetricsHttpEndpoint.startConfigured(MetricsRegistry.getDefault());
+                 final ChildProcessLauncher childProcesses = new ChildProcessLauncher()) {
+                final URI rosMasterUri = new URI("http://" + ROS_HOST_IP + ":" + ROS_MASTER_PORT);
                 // Start the topic, service, and action examples against the embedded master.
-                ExampleSystemNodes.start(
-                        nodeMainExecutor,
-                        ROS_HOST_IP,
-                        new URI("http://" + ROS_HOST_IP + ":" + ROS_MASTER_PORT),
-                        ACTION_FIBONACCI_ORDER,
-                        SERVICE_REGISTRATION_TIMEOUT_MILLIS,
-                        TimeUnit.MILLISECONDS
-                );
+                if (system == null) {
+                    ExampleSystemNodes.start(
+                            nodeMainExecutor,
+                            ROS_HOST_IP,
+                            rosMasterUri,
+                            ACTION_FIBONACCI_ORDER,
+                            SERVICE_REGISTRATION_TIMEOUT_MILLIS,
+                            TimeUnit.MILLISECONDS,
+                            shutdownCoordinator
+                    );
+                } else {
+                    system.start(nodeMainExecutor, ROS_HOST_IP, rosMasterUri, SERVICE_REGISTRATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, shutdownCoordinator);
+                    // Nodes assigned to a process run in child JVMs against the same master.
+                    childProcesses.start(system, ROS_HOST_IP, rosMasterUri);
+                }
 
                 // Keep the demo alive long enough to observe the node interaction in the logs.
-                Thread.sleep(DEMO_DURATION_MILLIS);
-            } finally {
-                // Shutting down the executor stops all example nodes.
-                nodeMainExecutor.shutdown();
+                Thread.sleep(system == null ? DEMO_DURATION_MILLIS : system.getDurationMillis());
+
+                // The child JVMs run for the same time; wait for them to shut down and log their results.
+                childProcesses.awaitResults(CHILD_PROCESS_EXIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
             }
         } finally {
-            // Shut down the embedded roscore as the final cleanup step.
-            rosCore.shutdown();
+            // Drain and stop the example nodes, then shut down the embedded roscore as the final cleanup step.
+            shutdown.run();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (final IllegalStateException exception) {
+                // The JVM is already shutting down and the hook has run the same shutdown.
+            }
         }
     }
 }
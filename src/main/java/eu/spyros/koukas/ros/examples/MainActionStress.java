@@ -0,0 +1,93 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.RosCore;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that runs the ActionLib client stress mode against the example action server
+ * on an embedded roscore.
+ *
+ * <p>Usage: {@code [goals-in-flight] [goal-count] [order]}. The defaults keep 16 goals in flight
+ * until 200 goals of order 4 have finished.
+ *
+ * @author Spyros Koukas
+ */
+public final class MainActionStress {
+    /**
+     * Default stress parameters.
+     */
+    private static final int DEFAULT_GOALS_IN_FLIGHT = 16;
+    private static final int DEFAULT_GOAL_COUNT = 200;
+    private static final int DEFAULT_ORDER = 4;
+
+    /**
+     * Upper bound for a stress run.
+     */
+    private static final long STRESS_TIMEOUT_MINUTES = 30;
+
+    /**
+     * Action example graph names.
+     */
+    private static final String ACTION_SERVER_NODE_NAME = "/spyros/test/action/server/";
+    private static final String ACTION_CLIENT_NODE_NAME = "/spyros/test/action/client/";
+    private static final String ACTION_NAME = "/spyros/test/action/fibonacci";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainActionStress() {
+    }
+
+    /**
+     * Start an embedded roscore, the action server, and the stress client, and wait for the stress run to finish.
+     *
+     * @param args optional {@code [goals-in-flight] [goal-count] [order]}
+     * @throws Exception if startup or shutdown fails
+     */
+    public static final void main(final String[] args) throws Exception {
+        final int goalsInFlight = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GOALS_IN_FLIGHT;
+        final int goalCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GOAL_COUNT;
+        final int order = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ORDER;
+
+        final RosCore rosCore = ExampleSystemNodes.startLocalRosCore(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+        try {
+            final URI rosMasterUri = ExampleSystemNodes.localMasterUri(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            try {
+                // Let the server run every in-flight goal at once so the run measures the client, not the queue.
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME, goalsInFlight,
+                        ActionGoalScheduler.Policy.QUEUE, ROSJavaActionServerNodeMain.GoalPriority.ARRIVAL_ORDER), ACTION_SERVER_NODE_NAME, rosMasterUri);
+
+                final ROSJavaActionClientNodeMain stressClient = new ROSJavaActionClientNodeMain(ACTION_NAME, ACTION_CLIENT_NODE_NAME, order, goalsInFlight, goalCount);
+                ExampleSystemNodes.execute(nodeMainExecutor, stressClient, ACTION_CLIENT_NODE_NAME, rosMasterUri);
+                if (!stressClient.awaitFinished(STRESS_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    throw new RosRuntimeException("Timed out while waiting for the action stress run.");
+                }
+            } finally {
+                nodeMainExecutor.shutdown();
+            }
+        } finally {
+            rosCore.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.RosCore;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that runs one large Fibonacci goal in big-number mode on an embedded roscore.
+ *
+ * <p>The server computes arbitrary-precision Fibonacci numbers and streams them to the client in
+ * {@link BigFibonacciChunks}, which the client assembles and checks as they arrive. Large orders make a
+ * compute- and payload-heavy action workload for profiling; order 20000 sends about 17 MB of feedback.
+ *
+ * <p>Usage: {@code [order]}, 20000 by default.
+ *
+ * @author Spyros Koukas
+ */
+public final class MainBigFibonacci {
+    private static final Logger LOGGER = LogManager.getLogger(MainBigFibonacci.class);
+
+    private static final int DEFAULT_ORDER = 20_000;
+
+    /**
+     * Upper bound for the run, slightly longer than the client's own result timeout.
+     */
+    private static final long RUN_TIMEOUT_MINUTES = 11;
+
+    /**
+     * Action example graph names.
+     */
+    private static final String ACTION_SERVER_NODE_NAME = "/spyros/test/action/big_server/";
+    private static final String ACTION_CLIENT_NODE_NAME = "/spyros/test/action/big_client/";
+    private static final String ACTION_NAME = "/spyros/test/action/fibonacci_big";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainBigFibonacci() {
+    }
+
+    /**
+     * Start an embedded roscore, a big-number action server and client, and wait for the goal to finish.
+     *
+     * @param args optional {@code [order]}
+     * @throws Exception if startup or shutdown fails
+     */
+    public static final void main(final String[] args) throws Exception {
+        final int order = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ORDER;
+
+        final RosCore rosCore = ExampleSystemNodes.startLocalRosCore(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+        try {
+            final URI rosMasterUri = ExampleSystemNodes.localMasterUri(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            try {
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME, 1,
+                        ActionGoalScheduler.Policy.QUEUE, ROSJavaActionServerNodeMain.GoalPriority.ARRIVAL_ORDER,
+                        ROSJavaActionServerNodeMain.SequenceEncoding.BIG_INTEGER_CHUNKS), ACTION_SERVER_NODE_NAME, rosMasterUri);
+
+                final ROSJavaActionClientNodeMain client = new ROSJavaActionClientNodeMain(ACTION_NAME, ACTION_CLIENT_NODE_NAME, order,
+                        ROSJavaActionServerNodeMain.SequenceEncoding.BIG_INTEGER_CHUNKS);
+                ExampleSystemNodes.execute(nodeMainExecutor, client, ACTION_CLIENT_NODE_NAME, rosMasterUri);
+                if (!client.awaitFinished(RUN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                    throw new RosRuntimeException("Timed out while waiting for the big-number goal.");
+                }
+                LOGGER.info("Big-number Fibonacci: " + client.getBigGoalReport());
+            } finally {
+                nodeMainExecutor.shutdown();
+            }
+        } finally {
+            rosCore.shutdown();
+        }
+    }
+}
@@ -16,7 +16,8 @@
  */
 package eu.spyros.koukas.ros.examples;
 
-import org.ros.node.DefaultNodeMainExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.ros.node.NodeMainExecutor;
 
 import java.net.URI;
@@ -31,6 +32,8 @@ import java.util.concurrent.TimeUnit;
  * @author Spyros Koukas
  */
 public final class MainExternal {
+    private static final Logger LOGGER = LogManager.getLogger(MainExternal.class);
+
     /**
      * Environment variable that points to the external ROS master URI.
      */
@@ -56,6 +59,11 @@ public final class MainExternal {
      */
     private static final int ACTION_FIBONACCI_ORDER = 8;
 
+    /**
+     * How long to wait after the demo for child JVMs to finish their own run and shutdown.
+     */
+    private static final long CHILD_PROCESS_EXIT_TIMEOUT_MILLIS = 60_000;
+
     /**
      * Utility class. No instances are needed.
      */
@@ -70,24 +78,56 @@ public final class MainExternal {
      * @throws Exception if startup or shutdown fails
      */
     public static final void main(final String[] args) throws Exception {
-        // An executor is needed to spawn rosjava nodes from Java.
-        final NodeMainExecutor nodeMainExecutor = DefaultNodeMainExecutor.newDefault();
-        try {
+        // A description file passed with -Dros.system replaces the built-in examples.
+        final SystemDescription system = SystemDescription.fromSystemProperty();
+
+        // An executor is needed to spawn rosjava nodes from Java. Its threads follow the ThreadPolicy.
+        final NodeMainExecutor nodeMainExecutor = system == null ? ExampleSystemNodes.newNodeMainExecutor() : system.newNodeMainExecutor();
+        LOGGER.info("Threads: " + ThreadPolicy.getDefault());
+
+        // Same bounded shutdown as Main, except that the external master is left running.
+        final ShutdownCoordinator shutdownCoordinator = new ShutdownCoordinator(
+                Main.SHUTDOWN_DRAIN_TIMEOUT_MILLIS, Main.SHUTDOWN_FLUSH_LINGER_MILLIS, Main.SHUTDOWN_STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        final Runnable shutdown = () -> LOGGER.info("Shutdown: " + shutdownCoordinator.shutdown(nodeMainExecutor::shutdown, null));
+        final Thread shutdownHook = new Thread(shutdown, "ros-shutdown-hook");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        // The node metrics are also available over JMX; the endpoint adds a Prometheus scrape target.
+        try (final MetricsHttpEndpoint metricsEndpoint = MetricsHttpEndpoint.startConfigured(MetricsRegistry.getDefault());
+             final ChildProcessLauncher childProcesses = new ChildProcessLauncher()) {
+            final String rosHostIp = requiredEnv(ROS_IP);
+            final URI rosMasterUri = new URI(requiredEnv(ROS_MASTER_URI));
             // Start the topic, service, and action examples against the external master.
-            ExampleSystemNodes.start(
-                    nodeMainExecutor,
-                    requiredEnv(ROS_IP),
-                    new URI(requiredEnv(ROS_MASTER_URI)),
-                    ACTION_FIBONACCI_ORDER,
-                    SERVICE_REGISTRATION_TIMEOUT_MILLIS,
-                    TimeUnit.MILLISECONDS
-            );
+            if (system == null) {
+                ExampleSystemNodes.start(
+                        nodeMainExecutor,
+                        rosHostIp,
+                        rosMasterUri,
+                        ACTION_FIBONACCI_ORDER,
+                        SERVICE_REGISTRATION_TIMEOUT_MILLIS,
+                        TimeUnit.MILLISECONDS,
+                        shutdownCoordinator
+                );
+            } else {
+                system.start(nodeMainExecutor, rosHostIp, rosMasterUri, SERVICE_REGISTRATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, shutdownCoordinator);
+                // Nodes assigned to a process run in child JVMs against the same master.
+                childProcesses.start(system, rosHostIp, rosMasterUri);
+            }
 
             // Keep the demo alive long enough to observe the node interaction in the logs.
-            Thread.sleep(DEMO_DURATION_MILLIS);
+            Thread.sleep(system == null ? DEMO_DURATION_MILLIS : system.getDurationMillis());
+            // A child JVM leaves a metrics snapshot for its launcher while its nodes are still running.
+            ChildProcessLauncher.writeResultIfChild();
+
+            // The child JVMs run for the same time; wait for them to shut down and log their results.
+            childProcesses.awaitResults(CHILD_PROCESS_EXIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
         } finally {
-            // Shutting down the executor stops all example nodes.
-            nodeMainExecutor.shutdown();
+            // Drain and stop the example nodes.
+            shutdown.run();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (final IllegalStateException exception) {
+                // The JVM is already shutting down and the hook has run the same shutdown.
+            }
         }
     }
 
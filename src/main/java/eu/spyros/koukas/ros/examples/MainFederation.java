@@ -0,0 +1,146 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import actionlib_tutorials.FibonacciActionFeedback;
+import actionlib_tutorials.FibonacciActionGoal;
+import actionlib_tutorials.FibonacciActionResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.RosCore;
+import org.ros.node.NodeMainExecutor;
+import rosjava_test_msgs.AddTwoInts;
+import rosjava_test_msgs.AddTwoIntsRequest;
+import rosjava_test_msgs.AddTwoIntsResponse;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that splits the examples over two embedded roscores and bridges them.
+ *
+ * <p>Master A runs the publisher, the service server, and the action server. Master B runs the
+ * subscriber, the service client, and the action client. Neither master knows about the nodes of the
+ * other; a {@link MasterBridge} forwards the topic, the service, and the action between them, so the
+ * logs show the same traffic as {@link Main}.
+ *
+ * <p>Usage: no arguments. The batching of the bridge is set with {@code ros.bridge.batch_size} and
+ * {@code ros.bridge.batch_interval_ms}.
+ *
+ * @author Spyros Koukas
+ */
+public final class MainFederation {
+    private static final Logger LOGGER = LogManager.getLogger(MainFederation.class);
+
+    /**
+     * Ports of the two embedded roscores.
+     */
+    private static final int ROS_MASTER_A_PORT = ExampleSystemNodes.LOCAL_ROS_MASTER_PORT;
+    private static final int ROS_MASTER_B_PORT = 11312;
+
+    /**
+     * How long to keep the example nodes alive so the logs show the bridged traffic.
+     */
+    private static final long DEMO_DURATION_MILLIS = 30_000;
+
+    /**
+     * Fibonacci order sent by the ActionLib client example.
+     */
+    private static final int ACTION_FIBONACCI_ORDER = 8;
+
+    /**
+     * Bridge batching, configurable with system properties.
+     */
+    private static final String BATCH_SIZE_PROPERTY = "ros.bridge.batch_size";
+    private static final String BATCH_INTERVAL_PROPERTY = "ros.bridge.batch_interval_ms";
+
+    /**
+     * Example graph names, the same on both masters.
+     */
+    private static final String BRIDGE_NODE_NAME = "/spyros/test/bridge/";
+    private static final String PUBLISHER_NODE_NAME = "/spyros/test/publisher/";
+    private static final String SUBSCRIBER_NODE_NAME = "/spyros/test/subscriber/";
+    private static final String TOPIC_NAME = "/spyros/test/topic/";
+    private static final String SERVICE_SERVER_NODE_NAME = "/spyros/test/server/";
+    private static final String SERVICE_CLIENT_NODE_NAME = "/spyros/test/client/";
+    private static final String SERVICE_NAME = "/spyros/test/service/sum";
+    private static final String ACTION_SERVER_NODE_NAME = "/spyros/test/action/server/";
+    private static final String ACTION_CLIENT_NODE_NAME = "/spyros/test/action/client/";
+    private static final String ACTION_NAME = "/spyros/test/action/fibonacci";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainFederation() {
+    }
+
+    /**
+     * Start two embedded roscores, the example nodes split between them, and the bridge, then shut down after the demo.
+     *
+     * @param args ignored command-line arguments
+     * @throws Exception if startup or shutdown fails
+     */
+    public static final void main(final String[] args) throws Exception {
+        final RosCore rosCoreA = ExampleSystemNodes.startLocalRosCore(ROS_MASTER_A_PORT);
+        final RosCore rosCoreB;
+        try {
+            rosCoreB = ExampleSystemNodes.startLocalRosCore(ROS_MASTER_B_PORT);
+        } catch (final RuntimeException | InterruptedException exception) {
+            rosCoreA.shutdown();
+            throw exception;
+        }
+        try {
+            final URI masterA = ExampleSystemNodes.localMasterUri(ROS_MASTER_A_PORT);
+            final URI masterB = ExampleSystemNodes.localMasterUri(ROS_MASTER_B_PORT);
+
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            LOGGER.info("Threads: " + ThreadPolicy.getDefault());
+            try {
+                final MasterBridge bridge = new MasterBridge(BRIDGE_NODE_NAME, List.of(masterA, masterB),
+                        Integer.getInteger(BATCH_SIZE_PROPERTY, MasterBridge.DEFAULT_BATCH_SIZE),
+                        Long.getLong(BATCH_INTERVAL_PROPERTY, MasterBridge.DEFAULT_BATCH_INTERVAL_MILLIS), TimeUnit.MILLISECONDS)
+                        .topic(TOPIC_NAME, std_msgs.String._TYPE, masterA, masterB)
+                        .<AddTwoIntsRequest, AddTwoIntsResponse>service(SERVICE_NAME, AddTwoInts._TYPE, masterA, masterB,
+                                (forwarded, received) -> {
+                                    forwarded.setA(received.getA());
+                                    forwarded.setB(received.getB());
+                                },
+                                (returned, server) -> returned.setSum(server.getSum()))
+                        .action(ACTION_NAME, FibonacciActionGoal._TYPE, FibonacciActionFeedback._TYPE, FibonacciActionResult._TYPE, masterA, masterB);
+                bridge.start(nodeMainExecutor, ExampleSystemNodes.LOCAL_ROS_HOST_IP);
+                LOGGER.info("Bridge: Topic routes " + bridge.getTopicRouteLabels());
+
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaServerNodeMain(SERVICE_NAME, SERVICE_SERVER_NODE_NAME), SERVICE_SERVER_NODE_NAME, masterA);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME), ACTION_SERVER_NODE_NAME, masterA);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaPublisherNodeMain(TOPIC_NAME, PUBLISHER_NODE_NAME), PUBLISHER_NODE_NAME, masterA);
+
+                // The client keeps retrying until the bridge advertises the service on master B.
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaClientNodeMain(SERVICE_NAME, SERVICE_CLIENT_NODE_NAME), SERVICE_CLIENT_NODE_NAME, masterB);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaActionClientNodeMain(ACTION_NAME, ACTION_CLIENT_NODE_NAME, ACTION_FIBONACCI_ORDER), ACTION_CLIENT_NODE_NAME, masterB);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaSubscriberNodeMain(TOPIC_NAME, SUBSCRIBER_NODE_NAME), SUBSCRIBER_NODE_NAME, masterB);
+
+                Thread.sleep(DEMO_DURATION_MILLIS);
+            } finally {
+                nodeMainExecutor.shutdown();
+            }
+        } finally {
+            rosCoreB.shutdown();
+            rosCoreA.shutdown();
+        }
+    }
+}
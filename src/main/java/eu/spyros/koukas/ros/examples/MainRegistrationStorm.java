@@ -0,0 +1,124 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.RosCore;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that benchmarks the embedded roscore master under a registration storm.
+ *
+ * <p>Every rosjava publisher, subscriber, and service is registered with the master through one
+ * XML-RPC call, so bringing up a large system means hundreds of calls that all arrive at the master
+ * together. The benchmark starts many {@link RegistrationStormNodeMain} nodes against an embedded
+ * {@link RosCore} and reports the latency of every registration and service lookup.
+ *
+ * <p>Two modes are available:
+ * <ul>
+ *     <li>{@code burst} starts every node at once, which is what a naive launcher does.</li>
+ *     <li>{@code bounded} only lets a fixed number of nodes register at the same time and admits
+ *     the next node when one is done. The master then works through a short request backlog instead
+ *     of a long one, which keeps each registration fast and usually finishes the whole storm sooner.</li>
+ * </ul>
+ *
+ * <p>Usage: {@code [node-count] [burst|bounded] [max-concurrent-nodes]}. The defaults start 200 nodes
+ * in {@code bounded} mode with 16 nodes registering at a time.
+ *
+ * @author Spyros Koukas
+ */
+public final class MainRegistrationStorm {
+    private static final Logger LOGGER = LogManager.getLogger(MainRegistrationStorm.class);
+
+    /**
+     * Default benchmark parameters.
+     */
+    private static final int DEFAULT_NODE_COUNT = 200;
+    private static final String DEFAULT_MODE = "bounded";
+    private static final int DEFAULT_MAX_CONCURRENT_NODES = 16;
+
+    /**
+     * Storm nodes share this many topics, so the master also has to match publishers with subscribers.
+     */
+    private static final int TOPIC_COUNT = 10;
+
+    /**
+     * Upper bound for a benchmark run.
+     */
+    private static final long STORM_TIMEOUT_MINUTES = 10;
+
+    /**
+     * Graph name prefixes of the storm nodes, topics, and services.
+     */
+    private static final String NODE_NAME_PREFIX = "/spyros/storm/node_";
+    private static final String TOPIC_NAME_PREFIX = "/spyros/storm/topic_";
+    private static final String SERVICE_NAME_PREFIX = "/spyros/storm/service_";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainRegistrationStorm() {
+    }
+
+    /**
+     * Start an embedded roscore, run the registration storm, and log the report.
+     *
+     * @param args optional {@code [node-count] [burst|bounded] [max-concurrent-nodes]}
+     * @throws Exception if startup or shutdown fails
+     */
+    public static final void main(final String[] args) throws Exception {
+        final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NODE_COUNT;
+        final String mode = args.length > 1 ? args[1] : DEFAULT_MODE;
+        final int maxConcurrentNodes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_CONCURRENT_NODES;
+        if (!"burst".equals(mode) && !"bounded".equals(mode)) {
+            throw new IllegalArgumentException("Usage: [node-count] [burst|bounded] [max-concurrent-nodes]");
+        }
+
+        // In burst mode every node is admitted at once.
+        final Semaphore admission = new Semaphore("bounded".equals(mode) ? maxConcurrentNodes : nodeCount);
+
+        final RosCore rosCore = ExampleSystemNodes.startLocalRosCore(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+        try {
+            final URI rosMasterUri = ExampleSystemNodes.localMasterUri(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            try {
+                final RegistrationStormRun run = new RegistrationStormRun(nodeCount);
+                for (int index = 0; index < nodeCount; index++) {
+                    if (!admission.tryAcquire(STORM_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                        throw new RosRuntimeException("Timed out while waiting to admit storm node " + index + ". " + run.report());
+                    }
+                    final String nodeName = NODE_NAME_PREFIX + index;
+                    ExampleSystemNodes.execute(nodeMainExecutor, new RegistrationStormNodeMain(nodeName, TOPIC_NAME_PREFIX + (index % TOPIC_COUNT),
+                            SERVICE_NAME_PREFIX + index, run, admission::release), nodeName, rosMasterUri);
+                }
+                final boolean finished = run.awaitFinished(STORM_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                LOGGER.info("Registration storm (" + mode + ("bounded".equals(mode) ? ", " + maxConcurrentNodes + " at a time" : "") + "): "
+                        + (finished ? "" : "TIMED OUT, ") + run.report());
+            } finally {
+                nodeMainExecutor.shutdown();
+            }
+        } finally {
+            rosCore.shutdown();
+        }
+    }
+}
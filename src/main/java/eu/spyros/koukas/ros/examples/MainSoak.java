@@ -0,0 +1,174 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.RosCore;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that runs the examples for hours and watches for leaks and drift.
+ *
+ * <p>A topic, a service with a long-lived client, and an action server run for the whole soak. On top of
+ * them, every cycle
+ * <ul>
+ *     <li>starts a subscriber node and stops it at the end of the cycle,</li>
+ *     <li>starts a fresh action client node, which sends one goal, sends and cancels a second one, and is then stopped,</li>
+ *     <li>every few cycles, restarts the service server, so the long-lived client has to reconnect.</li>
+ * </ul>
+ * A {@link SoakMonitor} samples the heap, threads, file descriptors, and service and cancel latencies
+ * into {@code build/soak/samples.csv} and flags the ones that keep growing. The run fails if any did.
+ *
+ * <p>Usage: {@code [duration-minutes] [cycle-seconds] [sample-seconds]}, 60, 20, and 30 by default.
+ *
+ * @author Spyros Koukas
+ */
+public final class MainSoak {
+    private static final Logger LOGGER = LogManager.getLogger(MainSoak.class);
+
+    /**
+     * Default soak parameters.
+     */
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+    private static final int DEFAULT_CYCLE_SECONDS = 20;
+    private static final int DEFAULT_SAMPLE_SECONDS = 30;
+
+    /**
+     * The service server is restarted on every this many cycles.
+     */
+    private static final int SERVER_RESTART_EVERY_CYCLES = 5;
+
+    /**
+     * Fibonacci order sent by the churned action clients.
+     */
+    private static final int ACTION_FIBONACCI_ORDER = 8;
+
+    private static final Path SAMPLES_FILE = Path.of("build", "soak", "samples.csv");
+
+    /**
+     * Soak graph names.
+     */
+    private static final String PUBLISHER_NODE_NAME = "/spyros/soak/publisher/";
+    private static final String SUBSCRIBER_NODE_NAME = "/spyros/soak/subscriber/";
+    private static final String CHURN_SUBSCRIBER_NODE_NAME = "/spyros/soak/subscriber_churn/";
+    private static final String TOPIC_NAME = "/spyros/soak/topic";
+    private static final String SERVICE_SERVER_NODE_NAME = "/spyros/soak/server/";
+    private static final String SERVICE_CLIENT_NODE_NAME = "/spyros/soak/client/";
+    private static final String SERVICE_NAME = "/spyros/soak/service/sum";
+    private static final String ACTION_SERVER_NODE_NAME = "/spyros/soak/action/server/";
+    private static final String ACTION_CLIENT_NODE_NAME = "/spyros/soak/action/client/";
+    private static final String ACTION_NAME = "/spyros/soak/action/fibonacci";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainSoak() {
+    }
+
+    /**
+     * Start an embedded roscore and the long-lived nodes, run the cycles until the duration is over, and report the trends.
+     *
+     * @param args optional {@code [duration-minutes] [cycle-seconds] [sample-seconds]}
+     * @throws Exception if startup or shutdown fails, or if a resource or latency kept growing
+     */
+    public static final void main(final String[] args) throws Exception {
+        final int durationMinutes = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DURATION_MINUTES;
+        final int cycleSeconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CYCLE_SECONDS;
+        final int sampleSeconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SAMPLE_SECONDS;
+
+        final List<SoakMonitor.Trend> growth;
+        final RosCore rosCore = ExampleSystemNodes.startLocalRosCore(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+        try {
+            final URI rosMasterUri = ExampleSystemNodes.localMasterUri(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            // Scopes under the names of the client nodes share their histograms and keep them across restarts.
+            final MetricsRegistry.Scope clientMetrics = MetricsRegistry.getDefault().newScope(SERVICE_CLIENT_NODE_NAME);
+            final MetricsRegistry.Scope actionClientMetrics = MetricsRegistry.getDefault().newScope(ACTION_CLIENT_NODE_NAME);
+            try (final MetricsHttpEndpoint metricsEndpoint = MetricsHttpEndpoint.startConfigured(MetricsRegistry.getDefault());
+                 final SoakMonitor monitor = new SoakMonitor(SAMPLES_FILE)) {
+                ROSJavaServerNodeMain server = new ROSJavaServerNodeMain(SERVICE_NAME, SERVICE_SERVER_NODE_NAME);
+                ExampleSystemNodes.execute(nodeMainExecutor, server, SERVICE_SERVER_NODE_NAME, rosMasterUri);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaClientNodeMain(SERVICE_NAME, SERVICE_CLIENT_NODE_NAME), SERVICE_CLIENT_NODE_NAME, rosMasterUri);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaActionServerNodeMain(ACTION_NAME, ACTION_SERVER_NODE_NAME), ACTION_SERVER_NODE_NAME, rosMasterUri);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaPublisherNodeMain(TOPIC_NAME, PUBLISHER_NODE_NAME), PUBLISHER_NODE_NAME, rosMasterUri);
+                ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaSubscriberNodeMain(TOPIC_NAME, SUBSCRIBER_NODE_NAME), SUBSCRIBER_NODE_NAME, rosMasterUri);
+
+                monitor.watchLatency("service_call", clientMetrics.histogram("ros_service_call_latency_seconds", "Service call round trip", "service", SERVICE_NAME));
+                monitor.watchLatency("service_reconnect", clientMetrics.histogram("ros_service_reconnect_seconds",
+                        "Time from a dropped service connection to a new one", "service", SERVICE_NAME));
+                monitor.watchLatency("action_cancel", actionClientMetrics.histogram("ros_action_client_cancel_latency_seconds",
+                        "ActionFuture cancel to terminal result", "action", ACTION_NAME));
+                monitor.start(sampleSeconds, TimeUnit.SECONDS);
+                LOGGER.info("Soak: Running for " + durationMinutes + " min in cycles of " + cycleSeconds + " s, threads " + ThreadPolicy.getDefault());
+
+                final long cycleMillis = TimeUnit.SECONDS.toMillis(cycleSeconds);
+                final long endNanos = System.nanoTime() + TimeUnit.MINUTES.toNanos(durationMinutes);
+                for (int cycle = 1; System.nanoTime() < endNanos; cycle++) {
+                    final long cycleEndNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cycleMillis);
+
+                    // Node churn: a subscriber that lives for one cycle.
+                    final ROSJavaSubscriberNodeMain churnSubscriber = new ROSJavaSubscriberNodeMain(TOPIC_NAME, CHURN_SUBSCRIBER_NODE_NAME);
+                    ExampleSystemNodes.execute(nodeMainExecutor, churnSubscriber, CHURN_SUBSCRIBER_NODE_NAME, rosMasterUri);
+
+                    // Goal send and cancel: a fresh client completes one goal and cancels another, then goes away.
+                    final ROSJavaActionClientNodeMain actionClient = new ROSJavaActionClientNodeMain(ACTION_NAME, ACTION_CLIENT_NODE_NAME, ACTION_FIBONACCI_ORDER);
+                    ExampleSystemNodes.execute(nodeMainExecutor, actionClient, ACTION_CLIENT_NODE_NAME, rosMasterUri);
+                    if (!actionClient.awaitFinished(cycleMillis, TimeUnit.MILLISECONDS)) {
+                        LOGGER.warn("Soak: Cycle " + cycle + " action client did not finish within the cycle");
+                    }
+                    nodeMainExecutor.shutdownNodeMain(actionClient);
+
+                    // Service reconnect: replace the server; the long-lived client has to find the new one.
+                    if (cycle % SERVER_RESTART_EVERY_CYCLES == 0) {
+                        nodeMainExecutor.shutdownNodeMain(server);
+                        server = new ROSJavaServerNodeMain(SERVICE_NAME, SERVICE_SERVER_NODE_NAME);
+                        ExampleSystemNodes.execute(nodeMainExecutor, server, SERVICE_SERVER_NODE_NAME, rosMasterUri);
+                    }
+
+                    final long remainingNanos = cycleEndNanos - System.nanoTime();
+                    if (remainingNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                    }
+                    nodeMainExecutor.shutdownNodeMain(churnSubscriber);
+                }
+
+                monitor.sample();
+                for (final SoakMonitor.Trend trend : monitor.getTrends()) {
+                    LOGGER.info("Soak: " + trend.describe());
+                }
+                growth = monitor.findGrowth();
+            } finally {
+                nodeMainExecutor.shutdown();
+                clientMetrics.close();
+                actionClientMetrics.close();
+            }
+        } finally {
+            rosCore.shutdown();
+        }
+        if (!growth.isEmpty()) {
+            throw new RosRuntimeException("Soak run found " + growth.size() + " growing series: "
+                    + growth.stream().map(SoakMonitor.Trend::series).toList());
+        }
+    }
+}
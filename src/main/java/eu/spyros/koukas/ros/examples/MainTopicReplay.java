@@ -0,0 +1,114 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.RosCore;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.NodeMainExecutor;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main executable class that records the example topic into a log file, or replays such a log
+ * against a subscriber, on an embedded roscore.
+ *
+ * <p>Usage:
+ * <pre>
+ * record &lt;log-file&gt; [seconds]       capture the example publisher for the given duration
+ * replay &lt;log-file&gt; [rate|max]      replay the log at 1x, Nx, or as fast as possible
+ * </pre>
+ *
+ * @author Spyros Koukas
+ */
+public final class MainTopicReplay {
+    /**
+     * Default capture duration of the record mode.
+     */
+    private static final long DEFAULT_RECORD_SECONDS = 10;
+
+    /**
+     * Upper bound for a replay run, so a broken log can never keep the process alive forever.
+     */
+    private static final long REPLAY_TIMEOUT_MINUTES = 60;
+
+    /**
+     * Graph names used by the record and replay modes.
+     */
+    private static final String TOPIC_NAME = "/spyros/test/topic/";
+    private static final String PUBLISHER_NODE_NAME = "/spyros/test/publisher/";
+    private static final String SUBSCRIBER_NODE_NAME = "/spyros/test/subscriber/";
+    private static final String RECORDER_NODE_NAME = "/spyros/test/recorder/";
+    private static final String REPLAY_NODE_NAME = "/spyros/test/replay/";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private MainTopicReplay() {
+    }
+
+    /**
+     * Start an embedded roscore and run the requested record or replay mode.
+     *
+     * @param args {@code record <log-file> [seconds]} or {@code replay <log-file> [rate|max]}
+     * @throws Exception if startup or shutdown fails
+     */
+    public static final void main(final String[] args) throws Exception {
+        if (args.length < 2 || !("record".equals(args[0]) || "replay".equals(args[0]))) {
+            throw new IllegalArgumentException("Usage: record <log-file> [seconds] | replay <log-file> [rate|max]");
+        }
+        final Path logFile = Path.of(args[1]);
+
+        final RosCore rosCore = ExampleSystemNodes.startLocalRosCore(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+        try {
+            final URI rosMasterUri = ExampleSystemNodes.localMasterUri(ExampleSystemNodes.LOCAL_ROS_MASTER_PORT);
+            final NodeMainExecutor nodeMainExecutor = ExampleSystemNodes.newNodeMainExecutor();
+            try {
+                if ("record".equals(args[0])) {
+                    final long seconds = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_RECORD_SECONDS;
+                    ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaTopicRecorderNodeMain(List.of(TOPIC_NAME), logFile, RECORDER_NODE_NAME), RECORDER_NODE_NAME, rosMasterUri);
+                    ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaPublisherNodeMain(TOPIC_NAME, PUBLISHER_NODE_NAME), PUBLISHER_NODE_NAME, rosMasterUri);
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+                } else {
+                    final double rate = args.length > 2 ? parseRate(args[2]) : 1.0;
+                    final ROSJavaReplayNodeMain replayNodeMain = new ROSJavaReplayNodeMain(logFile, REPLAY_NODE_NAME, rate);
+                    ExampleSystemNodes.execute(nodeMainExecutor, new ROSJavaSubscriberNodeMain(TOPIC_NAME, SUBSCRIBER_NODE_NAME), SUBSCRIBER_NODE_NAME, rosMasterUri);
+                    ExampleSystemNodes.execute(nodeMainExecutor, replayNodeMain, REPLAY_NODE_NAME, rosMasterUri);
+                    if (!replayNodeMain.awaitFinished(REPLAY_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                        throw new RosRuntimeException("Timed out while replaying [" + logFile + "].");
+                    }
+                }
+            } finally {
+                nodeMainExecutor.shutdown();
+            }
+        } finally {
+            rosCore.shutdown();
+        }
+    }
+
+    /**
+     * Parse the replay rate argument.
+     *
+     * @param value a positive factor such as {@code 1} or {@code 10}, or {@code max}
+     * @return the replay rate understood by {@link ROSJavaReplayNodeMain}
+     */
+    private static final double parseRate(final String value) {
+        return "max".equalsIgnoreCase(value) ? ROSJavaReplayNodeMain.AS_FAST_AS_POSSIBLE : Double.parseDouble(value);
+    }
+}
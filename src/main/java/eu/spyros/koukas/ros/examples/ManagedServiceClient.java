@@ -0,0 +1,446 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.exception.RemoteException;
+import org.ros.exception.ServiceNotFoundException;
+import org.ros.node.ConnectedNode;
+import org.ros.node.RosLog;
+import org.ros.node.service.ServiceClient;
+import org.ros.node.service.ServiceResponseListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A service client that keeps its connections alive on its own.
+ *
+ * <p>A plain rosjava {@link ServiceClient} is bound to the server it connected to when it was
+ * created. If that server node restarts, the client stays disconnected forever. This class owns one
+ * {@link ServiceClient} per endpoint and checks them on a short interval: a dropped connection is
+ * shut down and a new client is created as soon as the master knows the service again. Failed attempts
+ * back off exponentially so a missing server does not flood the master. The checks and the blocking
+ * master lookups run on a dedicated thread of this client, so a slow or unreachable master never
+ * stalls the node's shared scheduler.
+ *
+ * <p>Every service name is one endpoint advertising the same service type, and every endpoint is kept
+ * connected, so endpoints join as soon as their server registers and leave when it goes away. A
+ * {@link Policy} decides which connected endpoint gets each call: {@link Policy#PRIMARY_FIRST} treats
+ * the first name as the primary and the others as warm standbys, while the other policies spread calls
+ * across all of them as replicas.
+ *
+ * @author Spyros Koukas
+ */
+final class ManagedServiceClient<T, S> implements AutoCloseable {
+    /**
+     * How often the connections are checked. This bounds how long a dropped connection goes unnoticed.
+     */
+    static final long HEALTH_CHECK_INTERVAL_MILLIS = 20;
+
+    /**
+     * Reconnect backoff bounds. The delay doubles after every failed attempt.
+     */
+    static final long INITIAL_BACKOFF_MILLIS = 10;
+    static final long MAX_BACKOFF_MILLIS = 2_000;
+
+    /**
+     * Consecutive timed-out calls after which an endpoint is treated as hung and its connection is recycled.
+     */
+    static final int MAX_CONSECUTIVE_TIMEOUTS = 3;
+
+    /**
+     * Smoothing factor of the per-endpoint latency average used by {@link Policy#LATENCY_AWARE}.
+     */
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+
+    /**
+     * How calls are spread over the connected endpoints.
+     */
+    enum Policy {
+        /**
+         * Always use the first connected endpoint in the given order. The first name is the primary; the rest are failover standbys.
+         */
+        PRIMARY_FIRST,
+        /**
+         * Rotate over the connected endpoints.
+         */
+        ROUND_ROBIN,
+        /**
+         * Use the connected endpoint with the fewest calls waiting for a response.
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Use the connected endpoint with the lowest expected wait: its average latency times its outstanding calls plus one.
+         * Endpoints without a measurement yet are tried first.
+         */
+        LATENCY_AWARE
+    }
+
+    /**
+     * Connection state of one service endpoint. The connection fields are only touched on the connection
+     * thread; the volatile client and the load figures are read by callers.
+     */
+    private final class Endpoint {
+        private final String serviceName;
+        private volatile ServiceClient<T, S> client;
+        private long disconnectedAtNanos = System.nanoTime();
+        private long backoffNanos = TimeUnit.MILLISECONDS.toNanos(INITIAL_BACKOFF_MILLIS);
+        private long nextAttemptNanos = System.nanoTime();
+        private boolean connectedBefore;
+        private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong latencyEwmaNanos = new AtomicLong();
+        private MetricsRegistry.Counter calls;
+
+        private Endpoint(final String serviceName) {
+            this.serviceName = serviceName;
+        }
+
+        private final void recordLatency(final long latencyNanos) {
+            this.latencyEwmaNanos.updateAndGet(average -> average == 0
+                    ? Math.max(1L, latencyNanos)
+                    : Math.max(1L, average + (long) (LATENCY_EWMA_ALPHA * (latencyNanos - average))));
+        }
+
+        private final long expectedWaitNanos() {
+            return this.latencyEwmaNanos.get() * (this.outstanding.get() + 1L);
+        }
+
+        private final boolean isConnected() {
+            final ServiceClient<T, S> currentClient = this.client;
+            return currentClient != null && currentClient.isConnected();
+        }
+    }
+
+    private final ConnectedNode connectedNode;
+    private final String serviceType;
+    private final RosLog log;
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final Policy policy;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * The single thread that owns the connection fields of the endpoints: health checks, reconnects, recycling, and closing.
+     */
+    private final ScheduledExecutorService connectionThread;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final MetricsRegistry.Counter reconnects;
+    private final MetricsRegistry.Counter failovers;
+    private final MetricsRegistry.Histogram reconnectTime;
+    private final MetricsRegistry.Counter timeouts;
+    private final HashedWheelTimer timer;
+
+    /**
+     * The endpoint that served the previous call, used to count failovers.
+     */
+    private volatile Endpoint lastUsed;
+
+    /**
+     * Create the client and start connecting to every endpoint.
+     *
+     * @param connectedNode the node that owns the connections
+     * @param serviceType   the ROS service type, for example {@code rosjava_test_msgs/AddTwoInts}
+     * @param serviceNames  the endpoints; with {@link Policy#PRIMARY_FIRST} the primary comes first
+     * @param policy        how calls are spread over the connected endpoints
+     * @param metrics       the metrics scope of the owning node
+     */
+    ManagedServiceClient(final ConnectedNode connectedNode, final String serviceType, final List<String> serviceNames,
+                         final Policy policy, final MetricsRegistry.Scope metrics) {
+        if (serviceNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one service name is needed.");
+        }
+        this.connectedNode = connectedNode;
+        this.serviceType = serviceType;
+        this.policy = policy;
+        this.log = connectedNode.getLog();
+        final String primary = serviceNames.get(0);
+        for (final String serviceName : serviceNames) {
+            final Endpoint endpoint = new Endpoint(serviceName);
+            endpoint.calls = metrics.counter("ros_service_endpoint_calls_total", "Service calls sent to one endpoint", "service", primary, "endpoint", serviceName);
+            this.endpoints.add(endpoint);
+        }
+
+        this.reconnects = metrics.counter("ros_service_reconnects_total", "Service connections re-established", "service", primary);
+        this.failovers = metrics.counter("ros_service_failovers_total", "Calls that switched to another service endpoint", "service", primary);
+        this.timeouts = metrics.counter("ros_service_call_timeouts_total", "Service calls that missed their deadline", "service", primary);
+        this.timer = HashedWheelTimer.getDefault();
+        this.reconnectTime = metrics.histogram("ros_service_reconnect_seconds", "Time from a dropped service connection to a new one", "service", primary);
+        metrics.gauge("ros_service_endpoints_connected", "Connected service endpoints",
+                () -> this.endpoints.stream().filter(Endpoint::isConnected).count(), "service", primary);
+
+        this.connectionThread = Executors.newSingleThreadScheduledExecutor(
+                ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.IO, "rosjava-service-connections"));
+        this.connectionThread.scheduleWithFixedDelay(this::checkConnections, 0, HEALTH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send one call to the connected endpoint chosen by the {@link Policy}, with a deadline.
+     *
+     * <p>rosjava's own {@code call(...)} waits for the response forever. Here every call gets a deadline
+     * on the shared {@link HashedWheelTimer}: if no response arrives in time the future fails with a
+     * {@link TimeoutException} and a late response is ignored. An endpoint that misses
+     * {@link #MAX_CONSECUTIVE_TIMEOUTS} deadlines in a row is treated as hung and its connection is
+     * recycled, which also releases the state rosjava keeps for the unanswered requests.
+     *
+     * @param requestFiller fills the request message created by the chosen endpoint
+     * @param timeout       how long to wait for the response
+     * @param timeUnit      unit of the timeout
+     * @return the response; fails with {@link ServiceNotFoundException} if no endpoint is connected,
+     * {@link TimeoutException} if the deadline passes, the {@link RemoteException} of the server, or the
+     * exception of a connection that could not send the request
+     */
+    final CompletableFuture<S> call(final Consumer<T> requestFiller, final long timeout, final TimeUnit timeUnit) {
+        // Read the client once: the health check may drop it concurrently.
+        final Endpoint chosen = this.select();
+        final ServiceClient<T, S> client = chosen == null ? null : chosen.client;
+        if (client == null) {
+            return CompletableFuture.failedFuture(new ServiceNotFoundException("No connected endpoint for " + this.endpoints.get(0).serviceName));
+        }
+        if (this.policy == Policy.PRIMARY_FIRST) {
+            final Endpoint previous = this.lastUsed;
+            if (previous != null && previous != chosen) {
+                this.failovers.increment();
+                this.log.info("Managed service client: Calls moved from [" + previous.serviceName + "] to [" + chosen.serviceName + "]");
+            }
+            this.lastUsed = chosen;
+        }
+        chosen.calls.increment();
+
+        final T request = client.newMessage();
+        requestFiller.accept(request);
+
+        final CompletableFuture<S> response = new CompletableFuture<>();
+        final Endpoint target = chosen;
+        final ServiceClient<T, S> targetClient = client;
+        final long startNanos = System.nanoTime();
+        target.outstanding.incrementAndGet();
+        response.whenComplete((message, failure) -> target.outstanding.decrementAndGet());
+        // Timer tasks must be short, so the wheel thread only hands the expiry over; the caller's callbacks then run on the node executor.
+        final Runnable expire = () -> {
+            if (response.completeExceptionally(new TimeoutException("No response from " + target.serviceName + " within " + timeout + " " + timeUnit))) {
+                this.timeouts.increment();
+                if (target.consecutiveTimeouts.incrementAndGet() >= MAX_CONSECUTIVE_TIMEOUTS) {
+                    this.onConnectionThread(() -> this.recycle(target, targetClient));
+                }
+            }
+        };
+        final HashedWheelTimer.Timeout deadline = this.timer.newTimeout(() -> {
+            try {
+                this.connectedNode.getScheduledExecutorService().execute(expire);
+            } catch (final RejectedExecutionException exception) {
+                // The node is shutting down; fail the call here rather than leave it pending.
+                expire.run();
+            }
+        }, timeout, timeUnit);
+
+        try {
+            client.call(request, new ServiceResponseListener<>() {
+                @Override
+                public final void onSuccess(final S message) {
+                    deadline.cancel();
+                    target.consecutiveTimeouts.set(0);
+                    target.recordLatency(System.nanoTime() - startNanos);
+                    response.complete(message);
+                }
+
+                @Override
+                public final void onFailure(final RemoteException exception) {
+                    deadline.cancel();
+                    if (response.completeExceptionally(exception)) {
+                        // Check the connections now rather than at the next health check.
+                        ManagedServiceClient.this.reportFailure();
+                    }
+                }
+            });
+        } catch (final RuntimeException exception) {
+            // The connection closed under the call, for example while the node shuts down. Disarm the
+            // deadline so it does not count a timeout against an endpoint that may be healthy.
+            deadline.cancel();
+            if (response.completeExceptionally(exception)) {
+                this.reportFailure();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Pick the endpoint for the next call.
+     *
+     * @return a connected endpoint, or {@code null} if there is none
+     */
+    private final Endpoint select() {
+        final int size = this.endpoints.size();
+        // Start the scan at a rotating offset, so the balancing policies also spread ties.
+        final int start = this.policy == Policy.PRIMARY_FIRST ? 0 : Math.floorMod(this.cursor.getAndIncrement(), size);
+        Endpoint best = null;
+        for (int offset = 0; offset < size; offset++) {
+            final Endpoint endpoint = this.endpoints.get((start + offset) % size);
+            if (!endpoint.isConnected()) {
+                continue;
+            }
+            switch (this.policy) {
+                case PRIMARY_FIRST, ROUND_ROBIN -> {
+                    return endpoint;
+                }
+                case LEAST_OUTSTANDING -> {
+                    if (best == null || endpoint.outstanding.get() < best.outstanding.get()) {
+                        best = endpoint;
+                    }
+                }
+                case LATENCY_AWARE -> {
+                    if (endpoint.latencyEwmaNanos.get() == 0) {
+                        return endpoint;
+                    }
+                    if (best == null || endpoint.expectedWaitNanos() < best.expectedWaitNanos()) {
+                        best = endpoint;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return {@code true} if at least one endpoint is connected
+     */
+    final boolean isConnected() {
+        return this.endpoints.stream().anyMatch(Endpoint::isConnected);
+    }
+
+    /**
+     * Report a failed call so the connections are checked right away instead of at the next interval.
+     */
+    final void reportFailure() {
+        this.onConnectionThread(this::checkConnections);
+    }
+
+    /**
+     * Run a task on the connection thread, unless the client is closed.
+     *
+     * @param task the task
+     */
+    private final void onConnectionThread(final Runnable task) {
+        try {
+            this.connectionThread.execute(task);
+        } catch (final RejectedExecutionException exception) {
+            // Closed concurrently; there is nothing left to check.
+        }
+    }
+
+    /**
+     * Stop the health check and shut every connection down.
+     *
+     * <p>The connections are shut down on the connection thread after any reconnect attempt in progress,
+     * so a client created by that attempt is shut down as well.
+     */
+    @Override
+    public final void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        this.onConnectionThread(() -> {
+            for (final Endpoint endpoint : this.endpoints) {
+                final ServiceClient<T, S> client = endpoint.client;
+                endpoint.client = null;
+                if (client != null) {
+                    client.shutdown();
+                }
+            }
+        });
+        this.connectionThread.shutdown();
+    }
+
+    /**
+     * Drop the connection of an endpoint that stopped answering, unless it was already replaced. Runs on the connection thread.
+     *
+     * @param endpoint   the hung endpoint
+     * @param hungClient the client that missed its deadlines
+     */
+    private final void recycle(final Endpoint endpoint, final ServiceClient<T, S> hungClient) {
+        if (endpoint.client != hungClient) {
+            return;
+        }
+        this.log.warn("Managed service client: [" + endpoint.serviceName + "] missed " + MAX_CONSECUTIVE_TIMEOUTS + " deadlines in a row, reconnecting");
+        endpoint.consecutiveTimeouts.set(0);
+        hungClient.shutdown();
+        // The health check sees the closed client as dropped and reconnects it.
+        this.checkConnections();
+    }
+
+    /**
+     * Find dropped connections and reconnect the endpoints whose backoff has elapsed. Runs on the connection thread.
+     */
+    private final void checkConnections() {
+        if (this.closed.get()) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (final Endpoint endpoint : this.endpoints) {
+            final ServiceClient<T, S> client = endpoint.client;
+            if (client != null) {
+                if (client.isConnected()) {
+                    continue;
+                }
+                // The server went away. Drop the dead client.
+                endpoint.client = null;
+                client.shutdown();
+                endpoint.disconnectedAtNanos = now;
+                endpoint.nextAttemptNanos = now;
+                this.log.warn("Managed service client: Lost connection to [" + endpoint.serviceName + "]");
+            }
+            if (now - endpoint.nextAttemptNanos >= 0) {
+                this.connect(endpoint, now);
+            }
+        }
+    }
+
+    private final void connect(final Endpoint endpoint, final long now) {
+        try {
+            // newServiceClient does the master lookup itself; the shared cache only short-circuits a recent "not registered".
+            // A cached answer older than the current backoff is not used, so a quick retry after a restart really asks the master.
+            endpoint.client = ServiceLookupCache.getDefault().newServiceClient(this.connectedNode, endpoint.serviceName, this.serviceType,
+                    endpoint.backoffNanos, TimeUnit.NANOSECONDS);
+            endpoint.backoffNanos = TimeUnit.MILLISECONDS.toNanos(INITIAL_BACKOFF_MILLIS);
+            if (endpoint.connectedBefore) {
+                this.reconnects.increment();
+                this.reconnectTime.recordSince(endpoint.disconnectedAtNanos);
+            }
+            endpoint.connectedBefore = true;
+            this.log.info("Managed service client: Connected to [" + endpoint.serviceName + "]");
+            return;
+        } catch (final ServiceNotFoundException exception) {
+            // Not registered yet.
+            this.log.debug("Managed service client: [" + endpoint.serviceName + "] is not registered");
+        } catch (final RuntimeException exception) {
+            // The server went away between the lookup and the connection, or the connection failed.
+            this.log.debug("Managed service client: Could not connect to [" + endpoint.serviceName + "]: " + exception);
+        }
+        endpoint.nextAttemptNanos = now + endpoint.backoffNanos;
+        endpoint.backoffNanos = Math.min(endpoint.backoffNanos * 2, TimeUnit.MILLISECONDS.toNanos(MAX_BACKOFF_MILLIS));
+    }
+}
@@ -0,0 +1,517 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import actionlib_msgs.GoalID;
+import actionlib_msgs.GoalStatusArray;
+import org.ros.exception.ServiceException;
+import org.ros.internal.message.Message;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.NodeMainExecutor;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Forwards selected topics, services, and actions between several ROS masters.
+ *
+ * <p>Every node registers with exactly one master, and every master handles the registrations and
+ * lookups of all of its nodes. Splitting a large system across masters spreads that load, and the
+ * bridge connects the pieces: it runs one node per master and, for every route, subscribes on one
+ * master and republishes on another.
+ * <ul>
+ *     <li>A topic route forwards messages in one direction. Messages are batched: they are published on
+ *     the target master when a batch fills up or a short interval after the first message, so a busy
+ *     topic costs a few wakeups per interval instead of one per message.</li>
+ *     <li>A service route advertises the service on the client's master and forwards every call to the
+ *     server's master through a {@link ManagedServiceClient}, which reconnects when the server restarts.</li>
+ *     <li>An action route forwards the five ActionLib topics: goal and cancel towards the server, status,
+ *     feedback, and result back towards the client.</li>
+ * </ul>
+ *
+ * <p>A topic routed both ways would bounce between the masters forever, so the bridge never forwards a
+ * message that it published itself: every message it publishes on a master is remembered for a short
+ * time, and the same message arriving back at the bridge from that master is dropped. As a consequence
+ * messages are not forwarded over more than one hop; with three or more masters, route every pair that
+ * needs the topic.
+ *
+ * <p>rosjava does not tell a listener which publisher a message came from, so echoes are recognized by
+ * content, not by origin. On a topic routed both ways, a local message that is equal to one the bridge
+ * published on the same master within the last {@value #ECHO_TTL_MILLIS} ms is taken for an echo and
+ * is not forwarded. Route a topic both ways only if its messages differ, for example by a sequence
+ * number or a stamp.
+ *
+ * <p>Configure all routes before {@link #start(NodeMainExecutor, String)}. Each route is connected as
+ * soon as the bridge nodes on both of its masters have started.
+ *
+ * @author Spyros Koukas
+ */
+final class MasterBridge {
+    /**
+     * Default batching: publish after 32 messages, or 5 ms after the first message of a batch.
+     */
+    static final int DEFAULT_BATCH_SIZE = 32;
+    static final long DEFAULT_BATCH_INTERVAL_MILLIS = 5;
+
+    /**
+     * Messages queued per route before new ones are dropped, when the target master cannot keep up.
+     */
+    private static final int MAX_QUEUED_MESSAGES = 4_096;
+
+    /**
+     * How long a published message is remembered to recognize it when it comes back.
+     */
+    private static final long ECHO_TTL_MILLIS = 5_000;
+
+    /**
+     * Deadline of a forwarded service call.
+     */
+    private static final long SERVICE_CALL_TIMEOUT_MILLIS = 5_000;
+
+    /**
+     * How long past its deadline the rosjava server thread waits for a forwarded call before giving up on it.
+     */
+    private static final long SERVICE_CALL_GRACE_MILLIS = 1_000;
+
+    /**
+     * One direction of one topic.
+     */
+    private record TopicRoute(String topic, String messageType, URI from, URI to) {
+        private final String label() {
+            return this.topic + " " + authority(this.from) + ">" + authority(this.to);
+        }
+    }
+
+    private final String bridgeNodeName;
+    private final int batchSize;
+    private final long batchIntervalNanos;
+    private final Map<URI, BridgeNodeMain> nodes = new LinkedHashMap<>();
+    private final List<TopicRoute> topicRoutes = new ArrayList<>();
+    private final List<Runnable> serviceRoutes = new ArrayList<>();
+    private final Map<String, EchoFilter> echoFilters = new ConcurrentHashMap<>();
+
+    /**
+     * @param bridgeNodeName graph name prefix of the bridge nodes; the node on the Nth master is {@code <prefix>master_N}
+     * @param masterUris     the masters to bridge, at least two
+     * @param batchSize      messages per published batch
+     * @param batchInterval  longest time a message waits for its batch to fill
+     * @param timeUnit       unit of the batch interval
+     */
+    MasterBridge(final String bridgeNodeName, final List<URI> masterUris, final int batchSize, final long batchInterval, final TimeUnit timeUnit) {
+        if (masterUris.size() < 2) {
+            throw new IllegalArgumentException("A bridge needs at least two masters but got " + masterUris);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1 but was " + batchSize);
+        }
+        this.bridgeNodeName = bridgeNodeName.endsWith("/") ? bridgeNodeName : bridgeNodeName + "/";
+        this.batchSize = batchSize;
+        this.batchIntervalNanos = timeUnit.toNanos(batchInterval);
+        for (final URI masterUri : masterUris) {
+            this.nodes.put(masterUri, new BridgeNodeMain(this.bridgeNodeName + "master_" + (this.nodes.size() + 1)));
+        }
+    }
+
+    /**
+     * Forward a topic from one master to another.
+     *
+     * <p>If the topic is also routed back, equal messages within the echo window are forwarded only once
+     * per direction; see the class description.
+     *
+     * @param topic       the graph name of the topic, the same on both masters
+     * @param messageType the ROS message type of the topic
+     * @param from        the master whose publishers are forwarded
+     * @param to          the master whose subscribers receive the messages
+     * @return this bridge
+     */
+    final MasterBridge topic(final String topic, final String messageType, final URI from, final URI to) {
+        this.node(from);
+        this.node(to);
+        if (from.equals(to)) {
+            throw new IllegalArgumentException("Topic [" + topic + "] is routed from " + from + " to itself");
+        }
+        this.topicRoutes.add(new TopicRoute(topic, messageType, from, to));
+        return this;
+    }
+
+    /**
+     * Make a service of one master callable on another.
+     *
+     * @param service       the graph name of the service, the same on both masters
+     * @param serviceType   the ROS service type
+     * @param serverMaster  the master where the service server runs
+     * @param clientMaster  the master where the bridge advertises the service for its clients
+     * @param copyRequest   copies a received request into the forwarded one: {@code (forwarded, received)}
+     * @param copyResponse  copies the server's response into the one returned to the client: {@code (returned, server)}
+     * @param <T>           the request message class
+     * @param <S>           the response message class
+     * @return this bridge
+     */
+    final <T, S> MasterBridge service(final String service, final String serviceType, final URI serverMaster, final URI clientMaster,
+                                      final BiConsumer<? super T, ? super T> copyRequest, final BiConsumer<? super S, ? super S> copyResponse) {
+        final BridgeNodeMain serverNode = this.node(serverMaster);
+        final BridgeNodeMain clientNode = this.node(clientMaster);
+        final String label = service + " " + authority(clientMaster) + ">" + authority(serverMaster);
+        this.serviceRoutes.add(() -> serverNode.connected.thenAcceptBoth(clientNode.connected, (serverSide, clientSide) ->
+                this.linkService(label, service, serviceType, serverNode, serverSide, clientNode, clientSide, copyRequest, copyResponse)));
+        return this;
+    }
+
+    /**
+     * Make an ActionLib action of one master usable on another.
+     *
+     * @param action       the graph name of the action, the same on both masters
+     * @param goalType     the ROS message type of the action goal, for example {@code actionlib_tutorials/FibonacciActionGoal}
+     * @param feedbackType the ROS message type of the action feedback
+     * @param resultType   the ROS message type of the action result
+     * @param serverMaster the master where the action server runs
+     * @param clientMaster the master where the action clients run
+     * @return this bridge
+     */
+    final MasterBridge action(final String action, final String goalType, final String feedbackType, final String resultType,
+                              final URI serverMaster, final URI clientMaster) {
+        return this.topic(action + "/goal", goalType, clientMaster, serverMaster)
+                .topic(action + "/cancel", GoalID._TYPE, clientMaster, serverMaster)
+                .topic(action + "/status", GoalStatusArray._TYPE, serverMaster, clientMaster)
+                .topic(action + "/feedback", feedbackType, serverMaster, clientMaster)
+                .topic(action + "/result", resultType, serverMaster, clientMaster);
+    }
+
+    /**
+     * Start one bridge node per master. The routes are connected as the nodes come up.
+     *
+     * @param nodeMainExecutor the rosjava executor
+     * @param rosHostIp        the local IP address advertised by the bridge nodes
+     */
+    final void start(final NodeMainExecutor nodeMainExecutor, final String rosHostIp) {
+        for (final TopicRoute route : this.topicRoutes) {
+            final BridgeNodeMain fromNode = this.nodes.get(route.from());
+            final BridgeNodeMain toNode = this.nodes.get(route.to());
+            fromNode.connected.thenAcceptBoth(toNode.connected, (fromSide, toSide) -> this.linkTopic(route, fromNode, fromSide, toNode, toSide));
+        }
+        this.serviceRoutes.forEach(Runnable::run);
+        for (final Map.Entry<URI, BridgeNodeMain> entry : this.nodes.entrySet()) {
+            final NodeConfiguration nodeConfiguration = NodeConfiguration.newPublic(rosHostIp);
+            nodeConfiguration.setNodeName(entry.getValue().nodeName);
+            nodeConfiguration.setMasterUri(entry.getKey());
+            nodeMainExecutor.execute(entry.getValue(), nodeConfiguration);
+        }
+    }
+
+    /**
+     * @return a readable list of the topic routes, for startup logs
+     */
+    final List<String> getTopicRouteLabels() {
+        return this.topicRoutes.stream().map(TopicRoute::label).toList();
+    }
+
+    private final BridgeNodeMain node(final URI masterUri) {
+        final BridgeNodeMain node = this.nodes.get(masterUri);
+        if (node == null) {
+            throw new IllegalArgumentException("Master " + masterUri + " is not part of the bridge " + this.nodes.keySet());
+        }
+        return node;
+    }
+
+    private final void linkTopic(final TopicRoute route, final BridgeNodeMain fromNode, final ConnectedNode fromSide,
+                                 final BridgeNodeMain toNode, final ConnectedNode toSide) {
+        final String label = route.label();
+        final Subscriber<Object> subscriber = fromSide.newSubscriber(route.topic(), route.messageType());
+        final Publisher<Object> publisher = toSide.newPublisher(route.topic(), route.messageType());
+
+        // Only a route back from the target master can see the forwarded messages again.
+        final boolean echoExpected = this.topicRoutes.stream()
+                .anyMatch(other -> other.topic().equals(route.topic()) && other.from().equals(route.to()));
+        final EchoFilter incomingEchoes = this.echoFilter(route.from(), route.topic());
+        final EchoFilter outgoingEchoes = echoExpected ? this.echoFilter(route.to(), route.topic()) : null;
+
+        final MetricsRegistry.Counter received = fromNode.metrics.counter("ros_bridge_messages_received_total", "Messages received by a bridge route", "route", label);
+        final MetricsRegistry.Counter echoes = fromNode.metrics.counter("ros_bridge_messages_deduplicated_total", "Messages dropped because the bridge published them itself", "route", label);
+        final Batch batch = new Batch(publisher, outgoingEchoes, toSide.getScheduledExecutorService(), toNode.metrics, label);
+        subscriber.addMessageListener(message -> {
+            received.increment();
+            if (incomingEchoes.consume(echoKey(message))) {
+                echoes.increment();
+                return;
+            }
+            batch.add(message);
+        });
+        fromSide.getLog().info("Bridge: Forwarding " + label);
+    }
+
+    private final <T, S> void linkService(final String label, final String service, final String serviceType,
+                                          final BridgeNodeMain serverNode, final ConnectedNode serverSide,
+                                          final BridgeNodeMain clientNode, final ConnectedNode clientSide,
+                                          final BiConsumer<? super T, ? super T> copyRequest, final BiConsumer<? super S, ? super S> copyResponse) {
+        final ManagedServiceClient<T, S> client = new ManagedServiceClient<>(serverSide, serviceType, List.of(service),
+                ManagedServiceClient.Policy.PRIMARY_FIRST, serverNode.metrics);
+        if (!serverNode.own(client)) {
+            return;
+        }
+        final MetricsRegistry.Counter calls = clientNode.metrics.counter("ros_bridge_service_calls_total", "Service calls forwarded by the bridge", "route", label);
+        final MetricsRegistry.Counter failures = clientNode.metrics.counter("ros_bridge_service_failures_total", "Forwarded service calls that failed", "route", label);
+        final MetricsRegistry.Histogram latency = clientNode.metrics.histogram("ros_bridge_service_latency_seconds", "Forwarded service call round trip", "route", label);
+        clientSide.<T, S>newServiceServer(service, serviceType, (request, response) -> {
+            final long startNanos = System.nanoTime();
+            calls.increment();
+            try {
+                final S serverResponse = client.call(forwarded -> copyRequest.accept(forwarded, request), SERVICE_CALL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                        .get(SERVICE_CALL_TIMEOUT_MILLIS + SERVICE_CALL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                copyResponse.accept(response, serverResponse);
+                latency.recordSince(startNanos);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                failures.increment();
+                throw new ServiceException(exception);
+            } catch (final ExecutionException exception) {
+                failures.increment();
+                throw new ServiceException(exception.getCause());
+            } catch (final TimeoutException exception) {
+                failures.increment();
+                throw new ServiceException("Forwarded call to " + service + " did not finish within "
+                        + (SERVICE_CALL_TIMEOUT_MILLIS + SERVICE_CALL_GRACE_MILLIS) + " ms");
+            }
+        });
+        clientSide.getLog().info("Bridge: Forwarding service " + label);
+    }
+
+    private final EchoFilter echoFilter(final URI masterUri, final String topic) {
+        return this.echoFilters.computeIfAbsent(authority(masterUri) + topic, key -> new EchoFilter());
+    }
+
+    /**
+     * Generated message objects compare by content through their raw message.
+     */
+    private static final Object echoKey(final Object message) {
+        return message instanceof Message rosMessage ? rosMessage.toRawMessage() : message;
+    }
+
+    private static final String authority(final URI masterUri) {
+        return masterUri.getHost() + ":" + masterUri.getPort();
+    }
+
+    /**
+     * Messages the bridge published on one topic of one master, remembered until they come back or expire.
+     */
+    private static final class EchoFilter {
+        private final Map<Object, Integer> pending = new HashMap<>();
+        private final ArrayDeque<Object> order = new ArrayDeque<>();
+        private final ArrayDeque<Long> publishedNanos = new ArrayDeque<>();
+
+        private final synchronized void expect(final Object key, final long nowNanos) {
+            this.expire(nowNanos);
+            this.pending.merge(key, 1, Integer::sum);
+            this.order.add(key);
+            this.publishedNanos.add(nowNanos);
+        }
+
+        /**
+         * @return {@code true} if the message is an echo of one the bridge published
+         */
+        private final synchronized boolean consume(final Object key) {
+            this.expire(System.nanoTime());
+            final Integer count = this.pending.get(key);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1) {
+                this.pending.remove(key);
+            } else {
+                this.pending.put(key, count - 1);
+            }
+            return true;
+        }
+
+        private final void expire(final long nowNanos) {
+            final long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ECHO_TTL_MILLIS);
+            while (!this.publishedNanos.isEmpty() && nowNanos - this.publishedNanos.peek() > ttlNanos) {
+                this.publishedNanos.poll();
+                // An entry that already came back was consumed; then this may forget an equal, newer one a little early.
+                this.pending.computeIfPresent(this.order.poll(), (key, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    /**
+     * Queues the messages of one route and publishes them in batches on the target master.
+     */
+    private final class Batch {
+        private final Publisher<Object> publisher;
+        private final EchoFilter echoes;
+        private final ScheduledExecutorService executor;
+        private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        /**
+         * Set while a flush is scheduled or running, so that each message has one flush that will see it.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * Set while a flush of a full batch is submitted and has not started draining, so that a burst
+         * submits one such flush instead of one per message.
+         */
+        private final AtomicBoolean fullBatchFlushSubmitted = new AtomicBoolean();
+        private final MetricsRegistry.Counter forwarded;
+        private final MetricsRegistry.Counter batches;
+        private final MetricsRegistry.Counter dropped;
+
+        private Batch(final Publisher<Object> publisher, final EchoFilter echoes, final ScheduledExecutorService executor,
+                      final MetricsRegistry.Scope metrics, final String label) {
+            this.publisher = publisher;
+            this.echoes = echoes;
+            this.executor = executor;
+            this.forwarded = metrics.counter("ros_bridge_messages_forwarded_total", "Messages published by a bridge route", "route", label);
+            this.batches = metrics.counter("ros_bridge_batches_total", "Batches published by a bridge route", "route", label);
+            this.dropped = metrics.counter("ros_bridge_messages_dropped_total", "Messages dropped because a bridge route fell behind", "route", label);
+        }
+
+        private final void add(final Object message) {
+            final int size = this.queued.incrementAndGet();
+            if (size > MAX_QUEUED_MESSAGES) {
+                this.queued.decrementAndGet();
+                this.dropped.increment();
+                return;
+            }
+            this.queue.add(message);
+            if (size >= MasterBridge.this.batchSize) {
+                // A full batch goes out now, even if a delayed flush is already scheduled.
+                if (this.fullBatchFlushSubmitted.compareAndSet(false, true)) {
+                    this.scheduled.set(true);
+                    this.executor.execute(this::flush);
+                }
+            } else if (this.scheduled.compareAndSet(false, true)) {
+                // The first message of a batch waits at most one interval for the rest.
+                this.executor.schedule(this::flush, MasterBridge.this.batchIntervalNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Publish everything queued. Synchronized so that batches keep the order of the messages.
+         */
+        private final synchronized void flush() {
+            // Messages added from here on may need the next full-batch flush.
+            this.fullBatchFlushSubmitted.set(false);
+            int published = 0;
+            Object message;
+            while ((message = this.queue.poll()) != null) {
+                this.queued.decrementAndGet();
+                if (this.echoes != null) {
+                    this.echoes.expect(echoKey(message), System.nanoTime());
+                }
+                this.publisher.publish(message);
+                published++;
+            }
+            if (published > 0) {
+                this.forwarded.add(published);
+                this.batches.increment();
+            }
+            // A message added after the last poll may have found the flag still set and scheduled nothing.
+            this.scheduled.set(false);
+            if (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+                this.executor.schedule(this::flush, MasterBridge.this.batchIntervalNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * The bridge node on one master.
+     */
+    private static final class BridgeNodeMain extends AbstractNodeMain {
+        private final String nodeName;
+        private final CompletableFuture<ConnectedNode> connected = new CompletableFuture<>();
+        private final List<AutoCloseable> resources = new ArrayList<>();
+        /**
+         * Set under the {@link #resources} lock once the node has closed them.
+         */
+        private boolean closed;
+        private MetricsRegistry.Scope metrics;
+
+        private BridgeNodeMain(final String nodeName) {
+            this.nodeName = nodeName;
+        }
+
+        @Override
+        public final GraphName getDefaultNodeName() {
+            return GraphName.of(this.nodeName);
+        }
+
+        @Override
+        public final void onStart(final ConnectedNode connectedNode) {
+            this.metrics = MetricsRegistry.getDefault().newScope(this.nodeName);
+            this.connected.complete(connectedNode);
+        }
+
+        /**
+         * Close the resource when this node shuts down, or right away if it already has.
+         *
+         * @return {@code false} if the node has shut down and the resource was closed
+         */
+        private final boolean own(final AutoCloseable resource) {
+            synchronized (this.resources) {
+                if (!this.closed) {
+                    this.resources.add(resource);
+                    return true;
+                }
+            }
+            try {
+                resource.close();
+            } catch (final Exception exception) {
+                // The node is gone; nothing is left to report the failure to.
+            }
+            return false;
+        }
+
+        @Override
+        public final void onShutdown(final Node node) {
+            synchronized (this.resources) {
+                this.closed = true;
+                for (final AutoCloseable resource : this.resources) {
+                    try {
+                        resource.close();
+                    } catch (final Exception exception) {
+                        node.getLog().error("Bridge: Failed to close " + resource, exception);
+                    }
+                }
+                this.resources.clear();
+            }
+            if (this.metrics != null) {
+                this.metrics.close();
+                this.metrics = null;
+            }
+        }
+    }
+}
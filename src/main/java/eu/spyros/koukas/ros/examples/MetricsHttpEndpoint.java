@@ -0,0 +1,168 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint that serves a {@link MetricsRegistry} in the Prometheus text format.
+ *
+ * <p>The endpoint binds to the loopback interface only and answers {@code GET /metrics}.
+ * It also registers process-wide JVM thread and garbage collection gauges, so thread growth and GC
+ * activity are visible next to the per-node ROS metrics.
+ *
+ * <p>The entry points start it with {@link #startConfigured(MetricsRegistry)}, so a second process on
+ * the same host, or a negative {@value #PORT_PROPERTY}, only costs the scrape target and never the startup.
+ *
+ * @author Spyros Koukas
+ */
+final class MetricsHttpEndpoint implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(MetricsHttpEndpoint.class);
+
+    /**
+     * Default local port of the endpoint.
+     */
+    static final int DEFAULT_PORT = 9464;
+
+    /**
+     * System property that overrides the port; child JVMs set it to {@code 0} so they do not collide,
+     * and a negative value disables the endpoint.
+     */
+    static final String PORT_PROPERTY = "ros.metrics.port";
+
+    /**
+     * Content type of the Prometheus text exposition format.
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MetricsRegistry.Scope processMetrics;
+
+    /**
+     * Start serving the registry.
+     *
+     * @param registry the registry to serve
+     * @param port     the local port; {@code 0} picks a free port
+     * @throws IOException if the port cannot be bound
+     */
+    MetricsHttpEndpoint(final MetricsRegistry registry, final int port) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.createContext("/metrics", this::handle);
+
+        // One daemon thread is enough for occasional scrapes and never keeps the JVM alive.
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-http-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        this.processMetrics = registry.newProcessScope();
+        this.processMetrics.gauge("jvm_threads_live", "Live JVM threads", threads::getThreadCount);
+        this.processMetrics.gauge("jvm_threads_daemon", "Live JVM daemon threads", threads::getDaemonThreadCount);
+        this.processMetrics.gauge("jvm_threads_peak", "Peak live JVM threads", threads::getPeakThreadCount);
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            this.processMetrics.gauge("jvm_gc_collections", "Garbage collections so far", collector::getCollectionCount, "gc", collector.getName());
+            this.processMetrics.gauge("jvm_gc_collection_millis", "Accumulated garbage collection time in milliseconds",
+                    collector::getCollectionTime, "gc", collector.getName());
+        }
+
+        this.server.start();
+    }
+
+    /**
+     * Start the endpoint on the configured port, if it is enabled and the port is free.
+     *
+     * <p>The metrics stay available over JMX either way, so a port that is already in use is logged
+     * instead of failing the caller.
+     *
+     * @param registry the registry to serve
+     * @return the endpoint, or {@code null} if it is disabled or could not bind; try-with-resources skips a {@code null}
+     */
+    static final MetricsHttpEndpoint startConfigured(final MetricsRegistry registry) {
+        final int port = configuredPort();
+        if (port < 0) {
+            LOGGER.info("Metrics endpoint: Disabled by " + PORT_PROPERTY + "=" + port);
+            return null;
+        }
+        try {
+            final MetricsHttpEndpoint endpoint = new MetricsHttpEndpoint(registry, port);
+            LOGGER.info("Metrics endpoint: Serving http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+            return endpoint;
+        } catch (final IOException exception) {
+            LOGGER.warn("Metrics endpoint: Could not bind port " + port + " (" + exception.getMessage()
+                    + "); set " + PORT_PROPERTY + " to another port, 0 for a free one, or -1 to disable it");
+            return null;
+        }
+    }
+
+    /**
+     * @return the port from the {@value #PORT_PROPERTY} system property, or {@link #DEFAULT_PORT}
+     */
+    static final int configuredPort() {
+        return Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+    }
+
+    /**
+     * @return the port the endpoint is listening on
+     */
+    final int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Stop serving and release the process-wide gauges.
+     */
+    @Override
+    public final void close() {
+        this.server.stop(0);
+        this.executor.shutdown();
+        this.processMetrics.close();
+    }
+
+    private final void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final byte[] body = this.registry.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,689 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of the runtime metrics exported by the example nodes.
+ *
+ * <p>Three instrument kinds cover what the nodes need: {@link Counter} for message, byte, and call
+ * counts, {@link Gauge} for queue depths and thread counts, and {@link Histogram} for latencies.
+ * Every instrument is identified by a metric name plus labels such as {@code node} and {@code topic}.
+ *
+ * <p>Instruments are readable in two ways: each one is registered as a read-only JMX MBean under the
+ * {@value #JMX_DOMAIN} domain, and {@link #toPrometheusText()} renders all of them in the Prometheus
+ * text format served by {@link MetricsHttpEndpoint}.
+ *
+ * <p>Nodes do not create instruments on the registry directly. They open a {@link Scope} in
+ * {@code onStart}, which adds the {@code node} label, and close it in {@code onShutdown}, which
+ * releases every instrument the node created.
+ *
+ * @author Spyros Koukas
+ */
+final class MetricsRegistry {
+    /**
+     * JMX domain of all instrument MBeans.
+     */
+    static final String JMX_DOMAIN = "eu.spyros.koukas.ros.examples";
+
+    /**
+     * Shared registry used by all nodes in the JVM.
+     */
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry(ManagementFactory.getPlatformMBeanServer());
+
+    /**
+     * Upper bucket bounds of every latency histogram, in nanoseconds: 10 us to 10 s.
+     */
+    private static final long[] LATENCY_BUCKET_BOUNDS_NANOS = {
+            10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private final MBeanServer mBeanServer;
+
+    /**
+     * Registered instruments keyed by name and sorted labels.
+     * Registration and release are synchronized on the registry; rendering reads the map without locking.
+     */
+    private final Map<String, Instrument> instruments = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param mBeanServer the MBean server that receives one MBean per instrument, or {@code null} to skip JMX
+     */
+    MetricsRegistry(final MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * @return the registry shared by all nodes in this JVM
+     */
+    static final MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Open a scope whose instruments all carry the given {@code node} label.
+     *
+     * @param nodeName the ROS node name
+     * @return a new scope; close it to release its instruments
+     */
+    final Scope newScope(final String nodeName) {
+        return new Scope(this, Map.of("node", nodeName));
+    }
+
+    /**
+     * Open a scope for process-wide instruments that do not belong to a single node.
+     *
+     * @return a new scope without default labels
+     */
+    final Scope newProcessScope() {
+        return new Scope(this, Map.of());
+    }
+
+    /**
+     * Render every registered instrument in the Prometheus text exposition format.
+     *
+     * @return the exposition text
+     */
+    final String toPrometheusText() {
+        // Keys sort "a_b{...}" between "a" and "a{...}", so group by family name first; every family gets one HELP and TYPE.
+        final Map<String, List<Instrument>> families = new TreeMap<>();
+        for (final Instrument instrument : this.instruments.values()) {
+            families.computeIfAbsent(instrument.name, name -> new ArrayList<>()).add(instrument);
+        }
+        final StringBuilder text = new StringBuilder();
+        for (final List<Instrument> family : families.values()) {
+            final Instrument first = family.get(0);
+            text.append("# HELP ").append(first.name).append(' ').append(first.help).append('\n');
+            text.append("# TYPE ").append(first.name).append(' ').append(first.prometheusType()).append('\n');
+            for (final Instrument instrument : family) {
+                instrument.appendPrometheus(text);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Count the UTF-8 encoded length of a string without encoding it, so byte counters add no garbage per message.
+     *
+     * @param text the text
+     * @return the number of bytes of the UTF-8 encoding
+     */
+    static final int utf8Length(final String text) {
+        int bytes = 0;
+        for (int index = 0; index < text.length(); index++) {
+            final char character = text.charAt(index);
+            if (character < 0x80) {
+                bytes += 1;
+            } else if (character < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(character) && index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1))) {
+                bytes += 4;
+                index++;
+            } else {
+                // Other characters, including unpaired surrogates that the encoder replaces with '?', take 3 bytes or fewer.
+                bytes += Character.isSurrogate(character) ? 1 : 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Register an instrument, or return the already registered one with the same name and labels.
+     * A gauge registered again reads the new supplier from then on, so it never keeps reading the state of a
+     * node that has been replaced.
+     */
+    @SuppressWarnings("unchecked")
+    private final synchronized <I extends Instrument> I register(final I candidate) {
+        final Instrument instrument = candidate;
+        final Instrument existing = this.instruments.get(instrument.key);
+        if (existing == null) {
+            this.registerMBean(instrument);
+            instrument.references = 1;
+            this.instruments.put(instrument.key, instrument);
+            return candidate;
+        }
+        if (existing.getClass() != instrument.getClass()) {
+            throw new IllegalArgumentException("Metric [" + instrument.key + "] is already registered as " + existing.prometheusType());
+        }
+        if (existing instanceof Gauge gauge) {
+            gauge.value = ((Gauge) instrument).value;
+        }
+        existing.references++;
+        return (I) existing;
+    }
+
+    /**
+     * Release one reference to an instrument and unregister it once nobody uses it.
+     */
+    private final synchronized void release(final Instrument instrument) {
+        if (this.instruments.get(instrument.key) != instrument || --instrument.references > 0) {
+            return;
+        }
+        this.instruments.remove(instrument.key);
+        this.unregisterMBean(instrument);
+    }
+
+    private final void registerMBean(final Instrument instrument) {
+        if (this.mBeanServer == null) {
+            return;
+        }
+        try {
+            this.mBeanServer.registerMBean(new InstrumentMBean(instrument), instrument.objectName);
+        } catch (final JMException exception) {
+            // Metrics must never break a node; the HTTP endpoint still exposes the instrument.
+        }
+    }
+
+    private final void unregisterMBean(final Instrument instrument) {
+        if (this.mBeanServer == null) {
+            return;
+        }
+        try {
+            if (this.mBeanServer.isRegistered(instrument.objectName)) {
+                this.mBeanServer.unregisterMBean(instrument.objectName);
+            }
+        } catch (final JMException exception) {
+            // Nothing left to clean up if the MBean is already gone.
+        }
+    }
+
+    /**
+     * A set of instruments owned by one node. Closing the scope releases all of them.
+     */
+    static final class Scope implements AutoCloseable {
+        private final MetricsRegistry registry;
+        private final Map<String, String> defaultLabels;
+        private final List<Instrument> owned = new ArrayList<>();
+        private boolean closed;
+
+        private Scope(final MetricsRegistry registry, final Map<String, String> defaultLabels) {
+            this.registry = registry;
+            this.defaultLabels = defaultLabels;
+        }
+
+        /**
+         * @param name   metric name, for example {@code ros_topic_messages_published_total}
+         * @param help   one-line description
+         * @param labels additional label name/value pairs, for example {@code "topic", "/chatter"}
+         * @return the counter
+         */
+        final Counter counter(final String name, final String help, final String... labels) {
+            return this.own(new Counter(name, help, this.labels(labels)));
+        }
+
+        /**
+         * @param name   metric name, for example {@code ros_action_goal_queue_depth}
+         * @param help   one-line description
+         * @param value  reads the current value
+         * @param labels additional label name/value pairs
+         * @return the gauge
+         */
+        final Gauge gauge(final String name, final String help, final LongSupplier value, final String... labels) {
+            return this.own(new Gauge(name, help, this.labels(labels), value));
+        }
+
+        /**
+         * @param name   metric name, for example {@code ros_service_call_latency_seconds}
+         * @param help   one-line description
+         * @param labels additional label name/value pairs
+         * @return the latency histogram
+         */
+        final Histogram histogram(final String name, final String help, final String... labels) {
+            return this.own(new Histogram(name, help, this.labels(labels)));
+        }
+
+        /**
+         * Release every instrument created through this scope.
+         */
+        @Override
+        public final void close() {
+            final List<Instrument> toRelease;
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+                toRelease = new ArrayList<>(this.owned);
+                this.owned.clear();
+            }
+            toRelease.forEach(this.registry::release);
+        }
+
+        private final synchronized <I extends Instrument> I own(final I candidate) {
+            if (this.closed) {
+                throw new IllegalStateException("Metrics scope " + this.defaultLabels + " is closed.");
+            }
+            final I registered = this.registry.register(candidate);
+            this.owned.add(registered);
+            return registered;
+        }
+
+        private final Map<String, String> labels(final String... labels) {
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("Labels must be name/value pairs.");
+            }
+            final Map<String, String> merged = new TreeMap<>(this.defaultLabels);
+            for (int index = 0; index < labels.length; index += 2) {
+                merged.put(labels[index], labels[index + 1]);
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Common identity of all instrument kinds.
+     */
+    abstract static class Instrument {
+        private final String name;
+        private final String help;
+        private final Map<String, String> labels;
+        private final String key;
+        private final ObjectName objectName;
+        private final String prometheusLabels;
+
+        /**
+         * How many scopes use this instrument. Guarded by the registry.
+         */
+        private int references;
+
+        private Instrument(final String name, final String help, final Map<String, String> labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+            this.prometheusLabels = toPrometheusLabels(labels);
+            this.key = name + this.prometheusLabels;
+            this.objectName = toObjectName(this.getClass().getSimpleName(), name, labels);
+        }
+
+        abstract String prometheusType();
+
+        abstract void appendPrometheus(StringBuilder text);
+
+        /**
+         * @return the attributes exposed through JMX, in display order
+         */
+        abstract Map<String, Object> jmxAttributes();
+
+        final void appendSample(final StringBuilder text, final String suffix, final String extraLabel, final String value) {
+            text.append(this.name).append(suffix);
+            if (extraLabel == null) {
+                text.append(this.prometheusLabels);
+            } else if (this.prometheusLabels.isEmpty()) {
+                text.append('{').append(extraLabel).append('}');
+            } else {
+                text.append(this.prometheusLabels, 0, this.prometheusLabels.length() - 1).append(',').append(extraLabel).append('}');
+            }
+            text.append(' ').append(value).append('\n');
+        }
+
+        @Override
+        public final String toString() {
+            return this.key;
+        }
+
+        private static String toPrometheusLabels(final Map<String, String> labels) {
+            if (labels.isEmpty()) {
+                return "";
+            }
+            final StringBuilder text = new StringBuilder("{");
+            labels.forEach((labelName, value) -> {
+                if (text.length() > 1) {
+                    text.append(',');
+                }
+                text.append(labelName).append("=\"")
+                        .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                        .append('"');
+            });
+            return text.append('}').toString();
+        }
+
+        private static ObjectName toObjectName(final String type, final String name, final Map<String, String> labels) {
+            final StringBuilder text = new StringBuilder(JMX_DOMAIN).append(":type=").append(type).append(",name=").append(name);
+            labels.forEach((labelName, value) -> text.append(',').append(labelName).append('=').append(ObjectName.quote(value)));
+            try {
+                return new ObjectName(text.toString());
+            } catch (final JMException exception) {
+                throw new IllegalArgumentException("Invalid metric name [" + name + "] or labels " + labels, exception);
+            }
+        }
+    }
+
+    /**
+     * Monotonic count, for example messages, bytes, or failed calls.
+     */
+    static final class Counter extends Instrument {
+        private final LongAdder count = new LongAdder();
+        private final long createdNanos = System.nanoTime();
+
+        private Counter(final String name, final String help, final Map<String, String> labels) {
+            super(name, help, labels);
+        }
+
+        final void increment() {
+            this.count.increment();
+        }
+
+        final void add(final long amount) {
+            this.count.add(amount);
+        }
+
+        final long get() {
+            return this.count.sum();
+        }
+
+        /**
+         * @return mean rate per second since the counter was created
+         */
+        final double getMeanRatePerSecond() {
+            final long elapsedNanos = System.nanoTime() - this.createdNanos;
+            return elapsedNanos <= 0 ? 0.0 : this.get() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        final String prometheusType() {
+            return "counter";
+        }
+
+        @Override
+        final void appendPrometheus(final StringBuilder text) {
+            this.appendSample(text, "", null, Long.toString(this.get()));
+        }
+
+        @Override
+        final Map<String, Object> jmxAttributes() {
+            final Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("Count", this.get());
+            attributes.put("MeanRatePerSecond", this.getMeanRatePerSecond());
+            return attributes;
+        }
+    }
+
+    /**
+     * Value read on demand, for example a queue depth or a thread count.
+     */
+    static final class Gauge extends Instrument {
+        private volatile LongSupplier value;
+
+        private Gauge(final String name, final String help, final Map<String, String> labels, final LongSupplier value) {
+            super(name, help, labels);
+            this.value = value;
+        }
+
+        final long get() {
+            return this.value.getAsLong();
+        }
+
+        @Override
+        final String prometheusType() {
+            return "gauge";
+        }
+
+        @Override
+        final void appendPrometheus(final StringBuilder text) {
+            this.appendSample(text, "", null, Long.toString(this.get()));
+        }
+
+        @Override
+        final Map<String, Object> jmxAttributes() {
+            return Map.of("Value", this.get());
+        }
+    }
+
+    /**
+     * Latency distribution with fixed buckets from 10 us to 10 s.
+     *
+     * <p>Recording is lock-free: one {@link LongAdder} per bucket plus running sum and maximum.
+     */
+    static final class Histogram extends Instrument {
+        private final LongAdder[] buckets = new LongAdder[LATENCY_BUCKET_BOUNDS_NANOS.length + 1];
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        private Histogram(final String name, final String help, final Map<String, String> labels) {
+            super(name, help, labels);
+            for (int index = 0; index < this.buckets.length; index++) {
+                this.buckets[index] = new LongAdder();
+            }
+        }
+
+        /**
+         * @param nanos one observed latency in nanoseconds
+         */
+        final void record(final long nanos) {
+            final long value = Math.max(0L, nanos);
+            int index = 0;
+            while (index < LATENCY_BUCKET_BOUNDS_NANOS.length && value > LATENCY_BUCKET_BOUNDS_NANOS[index]) {
+                index++;
+            }
+            this.buckets[index].increment();
+            this.sumNanos.add(value);
+            this.maxNanos.accumulate(value);
+        }
+
+        /**
+         * Record the time elapsed since a {@link System#nanoTime()} reading.
+         *
+         * @param startNanos the start reading
+         * @return the recorded elapsed time in nanoseconds
+         */
+        final long recordSince(final long startNanos) {
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            this.record(elapsedNanos);
+            return elapsedNanos;
+        }
+
+        final long getCount() {
+            long count = 0;
+            for (final LongAdder bucket : this.buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        final long getMeanNanos() {
+            final long count = this.getCount();
+            return count == 0 ? 0 : this.sumNanos.sum() / count;
+        }
+
+        final long getMaxNanos() {
+            return this.maxNanos.get();
+        }
+
+        /**
+         * @param quantile a value between 0 and 1, for example 0.99
+         * @return the upper bound of the bucket that holds the quantile, capped by the observed maximum
+         */
+        final long getQuantileNanos(final double quantile) {
+            final long count = this.getCount();
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * count);
+            long cumulative = 0;
+            for (int index = 0; index < LATENCY_BUCKET_BOUNDS_NANOS.length; index++) {
+                cumulative += this.buckets[index].sum();
+                if (cumulative >= rank) {
+                    return Math.min(LATENCY_BUCKET_BOUNDS_NANOS[index], this.getMaxNanos());
+                }
+            }
+            return this.getMaxNanos();
+        }
+
+        /**
+         * @return the observations in each bucket so far; the difference of two calls describes the interval between them
+         */
+        final long[] getBucketCounts() {
+            final long[] counts = new long[this.buckets.length];
+            for (int index = 0; index < counts.length; index++) {
+                counts[index] = this.buckets[index].sum();
+            }
+            return counts;
+        }
+
+        /**
+         * @param bucketCounts observations per bucket, for example the difference of two {@link #getBucketCounts()} calls
+         * @param quantile     a value between 0 and 1, for example 0.99
+         * @return the upper bound of the bucket that holds the quantile, the largest bound if it lies above it,
+         * or 0 without observations
+         */
+        static final long getQuantileNanos(final long[] bucketCounts, final double quantile) {
+            long count = 0;
+            for (final long bucketCount : bucketCounts) {
+                count += bucketCount;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * count);
+            long cumulative = 0;
+            for (int index = 0; index < LATENCY_BUCKET_BOUNDS_NANOS.length; index++) {
+                cumulative += bucketCounts[index];
+                if (cumulative >= rank) {
+                    return LATENCY_BUCKET_BOUNDS_NANOS[index];
+                }
+            }
+            return LATENCY_BUCKET_BOUNDS_NANOS[LATENCY_BUCKET_BOUNDS_NANOS.length - 1];
+        }
+
+        /**
+         * @return a short human-readable summary for log lines
+         */
+        final String summary() {
+            return "n=" + this.getCount()
+                    + " mean=" + TimeUnit.NANOSECONDS.toMicros(this.getMeanNanos()) + " us"
+                    + " p99<=" + TimeUnit.NANOSECONDS.toMicros(this.getQuantileNanos(0.99)) + " us"
+                    + " max=" + TimeUnit.NANOSECONDS.toMicros(this.getMaxNanos()) + " us";
+        }
+
+        @Override
+        final String prometheusType() {
+            return "histogram";
+        }
+
+        @Override
+        final void appendPrometheus(final StringBuilder text) {
+            long cumulative = 0;
+            for (int index = 0; index < LATENCY_BUCKET_BOUNDS_NANOS.length; index++) {
+                cumulative += this.buckets[index].sum();
+                this.appendSample(text, "_bucket", "le=\"" + toSeconds(LATENCY_BUCKET_BOUNDS_NANOS[index]) + "\"", Long.toString(cumulative));
+            }
+            cumulative += this.buckets[LATENCY_BUCKET_BOUNDS_NANOS.length].sum();
+            this.appendSample(text, "_bucket", "le=\"+Inf\"", Long.toString(cumulative));
+            this.appendSample(text, "_sum", null, toSeconds(this.sumNanos.sum()));
+            this.appendSample(text, "_count", null, Long.toString(cumulative));
+        }
+
+        @Override
+        final Map<String, Object> jmxAttributes() {
+            final Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("Count", this.getCount());
+            attributes.put("MeanMicros", TimeUnit.NANOSECONDS.toMicros(this.getMeanNanos()));
+            attributes.put("P50Micros", TimeUnit.NANOSECONDS.toMicros(this.getQuantileNanos(0.50)));
+            attributes.put("P99Micros", TimeUnit.NANOSECONDS.toMicros(this.getQuantileNanos(0.99)));
+            attributes.put("MaxMicros", TimeUnit.NANOSECONDS.toMicros(this.getMaxNanos()));
+            return attributes;
+        }
+
+        private static String toSeconds(final long nanos) {
+            return Double.toString(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Read-only JMX view of one instrument.
+     *
+     * <p>A {@link DynamicMBean} is used instead of a standard MBean interface so the instrument classes
+     * can stay package-private.
+     */
+    private static final class InstrumentMBean implements DynamicMBean {
+        private final Instrument instrument;
+        private final MBeanInfo info;
+
+        private InstrumentMBean(final Instrument instrument) {
+            this.instrument = instrument;
+            final List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            instrument.jmxAttributes().forEach((attributeName, value) -> attributes.add(new MBeanAttributeInfo(
+                    attributeName, value.getClass().getName(), instrument.help, true, false, false)));
+            this.info = new MBeanInfo(Instrument.class.getName(), instrument.help,
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        @Override
+        public final Object getAttribute(final String attribute) throws AttributeNotFoundException {
+            final Object value = this.instrument.jmxAttributes().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public final AttributeList getAttributes(final String[] attributes) {
+            final Map<String, Object> values = this.instrument.jmxAttributes();
+            final AttributeList list = new AttributeList();
+            for (final String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public final void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metric attributes are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public final AttributeList setAttributes(final AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public final Object invoke(final String actionName, final Object[] params, final String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics MBeans have no operations.");
+        }
+
+        @Override
+        public final MBeanInfo getMBeanInfo() {
+            return this.info;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses message payloads for compressed topic variants, such as a {@code std_msgs/ByteMultiArray}
+ * topic published next to a large text topic.
+ *
+ * <p>Every encoded frame starts with one {@link Codec} byte, so a subscriber can decode any frame
+ * without knowing the publisher's settings. Payloads smaller than the threshold, and payloads that do
+ * not get smaller, are sent {@link Codec#RAW}: for small messages the compression header and CPU time
+ * cost more than they save. Larger payloads are {@link Codec#DEFLATE}d at the fastest level, which
+ * mostly pays off on slow links, such as remote hosts on Wi-Fi.
+ *
+ * <p>Deflaters and inflaters own native memory and are expensive to create, so they are pooled
+ * together with a scratch buffer and reused across messages.
+ *
+ * <p>Frame layout: {@code [codec]} followed by the payload for {@link Codec#RAW}, or
+ * {@code [codec][payload length, 4 bytes big endian][zlib stream]} for {@link Codec#DEFLATE}.
+ * The length comes from the network, so a frame that announces more than the configured maximum
+ * payload is rejected before anything is allocated for it.
+ *
+ * <p>rosjava generates {@code int8[]} and {@code uint8[]} fields, such as the data of a
+ * {@code std_msgs/ByteMultiArray}, as {@link ChannelBuffer}s: {@link #toMessageData(byte[])} wraps a frame
+ * for publishing and {@link #toFrame(ChannelBuffer)} copies a received one out for {@link #decode(byte[])}.
+ *
+ * @author Spyros Koukas
+ */
+final class PayloadCodec {
+    /**
+     * Payloads smaller than this are sent raw by the shared codec.
+     */
+    static final int DEFAULT_THRESHOLD_BYTES = 512;
+
+    /**
+     * Largest payload the shared codec decodes, unless overridden with {@value #MAX_PAYLOAD_PROPERTY}.
+     */
+    static final int DEFAULT_MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+    static final String MAX_PAYLOAD_PROPERTY = "ros.codec.max_payload_bytes";
+
+    /**
+     * Workspaces kept for reuse; more may be in use at once, but only this many are kept.
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private static final int DEFLATE_HEADER_BYTES = 1 + Integer.BYTES;
+
+    private static final class DefaultHolder {
+        private static final PayloadCodec DEFAULT = new PayloadCodec(DEFAULT_THRESHOLD_BYTES,
+                Integer.getInteger(MAX_PAYLOAD_PROPERTY, DEFAULT_MAX_PAYLOAD_BYTES), MetricsRegistry.getDefault().newProcessScope());
+    }
+
+    /**
+     * The first byte of every frame.
+     */
+    enum Codec {
+        RAW((byte) 0),
+        DEFLATE((byte) 1);
+
+        private final byte id;
+
+        Codec(final byte id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * One deflater, one inflater, and a scratch buffer for the compressed bytes.
+     */
+    private static final class Workspace {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final Inflater inflater = new Inflater();
+        private byte[] scratch = new byte[DEFAULT_THRESHOLD_BYTES];
+    }
+
+    private final int thresholdBytes;
+    private final int maxPayloadBytes;
+    private final Queue<Workspace> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final MetricsRegistry.Counter payloadBytes;
+    private final MetricsRegistry.Counter wireBytes;
+    private final MetricsRegistry.Counter compressedFrames;
+    private final MetricsRegistry.Counter rawFrames;
+
+    /**
+     * @return the process-wide codec with the default threshold
+     */
+    static final PayloadCodec getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * @param thresholdBytes  payloads smaller than this are sent raw
+     * @param maxPayloadBytes frames that announce a larger payload are rejected by {@link #decode(byte[])}
+     * @param metrics         the metrics scope that counts the encoded bytes
+     */
+    PayloadCodec(final int thresholdBytes, final int maxPayloadBytes, final MetricsRegistry.Scope metrics) {
+        if (maxPayloadBytes < 0) {
+            throw new IllegalArgumentException("maxPayloadBytes must not be negative but was " + maxPayloadBytes);
+        }
+        this.thresholdBytes = thresholdBytes;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.payloadBytes = metrics.counter("ros_payload_codec_payload_bytes_total", "Payload bytes before encoding");
+        this.wireBytes = metrics.counter("ros_payload_codec_wire_bytes_total", "Frame bytes after encoding");
+        this.compressedFrames = metrics.counter("ros_payload_codec_frames_total", "Encoded frames", "codec", "deflate");
+        this.rawFrames = metrics.counter("ros_payload_codec_frames_total", "Encoded frames", "codec", "raw");
+    }
+
+    /**
+     * Encode a payload into a frame, compressing it if it is large enough and compressible.
+     *
+     * @param payload the payload
+     * @return the frame
+     */
+    final byte[] encode(final byte[] payload) {
+        byte[] frame = null;
+        if (payload.length >= this.thresholdBytes) {
+            frame = this.deflate(payload);
+        }
+        if (frame == null) {
+            frame = new byte[1 + payload.length];
+            frame[0] = Codec.RAW.id;
+            System.arraycopy(payload, 0, frame, 1, payload.length);
+            this.rawFrames.increment();
+        } else {
+            this.compressedFrames.increment();
+        }
+        this.payloadBytes.add(payload.length);
+        this.wireBytes.add(frame.length);
+        return frame;
+    }
+
+    /**
+     * Wrap a frame for an {@code int8[]} or {@code uint8[]} message field, without copying it.
+     *
+     * @param frame the frame
+     * @return the buffer to set on the message, in the little-endian order rosjava uses for message buffers
+     */
+    static final ChannelBuffer toMessageData(final byte[] frame) {
+        return ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, frame);
+    }
+
+    /**
+     * Copy the frame out of a received {@code int8[]} or {@code uint8[]} message field, the reverse of
+     * {@link #toMessageData(byte[])}. rosjava may reuse the buffer once the message callback returns.
+     *
+     * @param data the message field
+     * @return the frame, ready for {@link #decode(byte[])}
+     */
+    static final byte[] toFrame(final ChannelBuffer data) {
+        final byte[] frame = new byte[data.readableBytes()];
+        data.getBytes(data.readerIndex(), frame);
+        return frame;
+    }
+
+    /**
+     * Decode a frame produced by {@link #encode(byte[])}, by this or any other codec instance.
+     *
+     * @param frame the frame
+     * @return the payload
+     * @throws IllegalArgumentException if the frame is malformed or announces a payload above the maximum
+     */
+    final byte[] decode(final byte[] frame) {
+        if (frame.length == 0) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        if (frame[0] == Codec.RAW.id) {
+            return Arrays.copyOfRange(frame, 1, frame.length);
+        }
+        if (frame[0] != Codec.DEFLATE.id) {
+            throw new IllegalArgumentException("Unknown codec " + frame[0]);
+        }
+        if (frame.length < DEFLATE_HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated frame of " + frame.length + " bytes");
+        }
+        final int length = (frame[1] & 0xff) << 24 | (frame[2] & 0xff) << 16 | (frame[3] & 0xff) << 8 | frame[4] & 0xff;
+        if (length < 0 || length > this.maxPayloadBytes) {
+            throw new IllegalArgumentException("Payload length " + length + " is outside 0.." + this.maxPayloadBytes);
+        }
+        final byte[] payload = new byte[length];
+        final Workspace workspace = this.acquire();
+        try {
+            final Inflater inflater = workspace.inflater;
+            inflater.setInput(frame, DEFLATE_HEADER_BYTES, frame.length - DEFLATE_HEADER_BYTES);
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                final int count = inflater.inflate(payload, inflated, length - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != length) {
+                throw new IllegalArgumentException("Frame inflated to " + inflated + " bytes instead of " + length);
+            }
+            return payload;
+        } catch (final DataFormatException exception) {
+            throw new IllegalArgumentException("Corrupt deflate frame", exception);
+        } finally {
+            workspace.inflater.reset();
+            this.release(workspace);
+        }
+    }
+
+    /**
+     * @return the deflate frame, or {@code null} if the payload does not get smaller
+     */
+    private final byte[] deflate(final byte[] payload) {
+        final Workspace workspace = this.acquire();
+        try {
+            final Deflater deflater = workspace.deflater;
+            if (workspace.scratch.length < payload.length) {
+                workspace.scratch = new byte[payload.length];
+            }
+            deflater.setInput(payload);
+            deflater.finish();
+            // Give up as soon as the compressed bytes fill as much room as the raw payload would.
+            int deflated = 0;
+            while (!deflater.finished() && deflated < payload.length) {
+                deflated += deflater.deflate(workspace.scratch, deflated, payload.length - deflated);
+            }
+            if (!deflater.finished() || DEFLATE_HEADER_BYTES + deflated >= 1 + payload.length) {
+                return null;
+            }
+            final byte[] frame = new byte[DEFLATE_HEADER_BYTES + deflated];
+            frame[0] = Codec.DEFLATE.id;
+            frame[1] = (byte) (payload.length >>> 24);
+            frame[2] = (byte) (payload.length >>> 16);
+            frame[3] = (byte) (payload.length >>> 8);
+            frame[4] = (byte) payload.length;
+            System.arraycopy(workspace.scratch, 0, frame, DEFLATE_HEADER_BYTES, deflated);
+            return frame;
+        } finally {
+            workspace.deflater.reset();
+            this.release(workspace);
+        }
+    }
+
+    private final Workspace acquire() {
+        final Workspace pooled = this.pool.poll();
+        return pooled == null ? new Workspace() : pooled;
+    }
+
+    private final void release(final Workspace workspace) {
+        if (!this.pool.offer(workspace)) {
+            // The pool is full; free the native memory now instead of waiting for the garbage collector.
+            workspace.deflater.end();
+            workspace.inflater.end();
+        }
+    }
+}
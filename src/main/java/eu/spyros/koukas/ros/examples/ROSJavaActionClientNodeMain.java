@@ -31,8 +31,18 @@ import org.ros.node.ConnectedNode;
 import org.ros.node.Node;
 import org.ros.node.RosLog;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
      * A documented ActionLib client example based on {@code actionlib_tutorials/FibonacciAction}.
@@ -45,6 +55,14 @@ import java.util.concurrent.TimeUnit;
  * <p>The implementation keeps the behavior small, but the comments remain explicit so the reader
  * can understand which lines are plain Java and which lines are the actual ROS ActionLib API.
  *
+ * <p>The client also has a stress mode that replaces the two examples: it keeps several goals in
+ * flight at the same time, each tracked through its own {@link ActionFuture}, and reports per-goal
+ * accept, first-feedback, and result latency through an {@link ActionGoalStressRun}.
+ *
+ * <p>Against a server in {@link ROSJavaActionServerNodeMain.SequenceEncoding#BIG_INTEGER_CHUNKS} mode the
+ * client sends one large goal instead, and rebuilds and checks the arbitrary-precision sequence chunk by
+ * chunk with a {@link BigFibonacciChunks.Assembler} as the feedback arrives.
+ *
  * @author Spyros Koukas
  */
 public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implements ActionClientListener<FibonacciActionFeedback, FibonacciActionResult> {
@@ -59,6 +77,17 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
      */
     private static final long ACTION_RESULT_TIMEOUT_SECONDS = 20L;
 
+    /**
+     * Large goals compute and transfer much more, so they get a longer result timeout.
+     */
+    private static final long BIG_ACTION_RESULT_TIMEOUT_MINUTES = 10L;
+
+    /**
+     * Feedback and result travel on different topics, so the result can overtake the last feedback
+     * chunks. This is how long the client waits for them before comparing.
+     */
+    private static final long BIG_FEEDBACK_SETTLE_MILLIS = 2_000L;
+
     /**
      * The advanced ActionFuture example uses a larger order so the goal is still running
      * when the cancellation request is sent.
@@ -93,6 +122,53 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
      */
     private final int fibonacciOrder;
 
+    /**
+     * Stress mode: how many goals are kept in flight at the same time.
+     */
+    private final int stressGoalsInFlight;
+
+    /**
+     * Stress mode: how many goals are sent in total. Zero runs the ordinary examples instead.
+     */
+    private final int stressGoalCount;
+
+    /**
+     * How the server sends the numbers, which decides how feedback and results are read.
+     */
+    private final ROSJavaActionServerNodeMain.SequenceEncoding sequenceEncoding;
+
+    /**
+     * Big-number mode: one assembler per goal, from its first feedback until its result.
+     * Each only holds the last two numbers of its sequence.
+     */
+    private final Map<String, BigFibonacciChunks.Assembler> assemblers = new ConcurrentHashMap<>();
+
+    /**
+     * Big-number mode: goals whose result has been checked. Chunks that arrive for them later are
+     * dropped instead of starting a new assembler that nothing would release.
+     */
+    private final Set<String> settledGoalIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Big-number mode: the outcome of the large goal, empty until it has finished.
+     */
+    private volatile String bigGoalReport = "";
+
+    /**
+     * Stress mode bookkeeping. Only present while the stress mode is running or after it finished.
+     */
+    private volatile ActionGoalStressRun stressRun;
+
+    /**
+     * Stress mode: sequence number of the goal ids generated by this client.
+     */
+    private final AtomicLong stressGoalSequence = new AtomicLong();
+
+    /**
+     * Released when the examples or the stress run have finished.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
     /**
      * ActionLib client instance created when the node starts.
      */
@@ -104,11 +180,24 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
     private RosLog log;
 
     /**
-     * The status callback receives a heartbeat stream.
-     * These fields keep the logs readable by printing only status changes for the currently tracked goal.
+     * The connected node, kept for the goal stamps of the stress mode.
      */
-    private String lastLoggedGoalId;
-    private String lastLoggedStatusLabel;
+    private volatile ConnectedNode connectedNode;
+
+    /**
+     * The status callback receives a heartbeat stream listing every goal the server tracks.
+     * The tracker indexes it by goal id and only reports the goals whose status changed.
+     */
+    private final GoalStatusTracker statusTracker = new GoalStatusTracker();
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@link #onShutdown(Node)}.
+     */
+    private MetricsRegistry.Scope metrics;
+    private MetricsRegistry.Counter goalsSent;
+    private MetricsRegistry.Counter feedbackReceived;
+    private MetricsRegistry.Counter resultsReceived;
+    private MetricsRegistry.Histogram cancelLatency;
 
     /**
      * @param rosActionName  the shared ROS action graph name
@@ -116,9 +205,58 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
      * @param fibonacciOrder the Fibonacci order that the demo goal will request
      */
     public ROSJavaActionClientNodeMain(final String rosActionName, final String rosNodeName, final int fibonacciOrder) {
+        this(rosActionName, rosNodeName, fibonacciOrder, 0, 0, ROSJavaActionServerNodeMain.SequenceEncoding.INT32);
+    }
+
+    /**
+     * Create a client for a server that uses the given encoding. In big-number mode the client sends one
+     * large goal instead of the two examples.
+     *
+     * @param rosActionName    the shared ROS action graph name
+     * @param rosNodeName      the ROS node name used for the client node itself
+     * @param fibonacciOrder   the Fibonacci order of the goal
+     * @param sequenceEncoding how the server sends the numbers
+     */
+    public ROSJavaActionClientNodeMain(final String rosActionName, final String rosNodeName, final int fibonacciOrder,
+                                       final ROSJavaActionServerNodeMain.SequenceEncoding sequenceEncoding) {
+        this(rosActionName, rosNodeName, fibonacciOrder, 0, 0, sequenceEncoding);
+    }
+
+    /**
+     * Create a client that runs the multi-goal stress mode instead of the two examples when
+     * {@code stressGoalCount > 0}.
+     *
+     * @param rosActionName       the shared ROS action graph name
+     * @param rosNodeName         the ROS node name used for the client node itself
+     * @param fibonacciOrder      the Fibonacci order of every goal
+     * @param stressGoalsInFlight how many goals are kept in flight at the same time
+     * @param stressGoalCount     how many goals are sent in total
+     */
+    public ROSJavaActionClientNodeMain(
+            final String rosActionName,
+            final String rosNodeName,
+            final int fibonacciOrder,
+            final int stressGoalsInFlight,
+            final int stressGoalCount) {
+        this(rosActionName, rosNodeName, fibonacciOrder, stressGoalsInFlight, stressGoalCount, ROSJavaActionServerNodeMain.SequenceEncoding.INT32);
+    }
+
+    private ROSJavaActionClientNodeMain(
+            final String rosActionName,
+            final String rosNodeName,
+            final int fibonacciOrder,
+            final int stressGoalsInFlight,
+            final int stressGoalCount,
+            final ROSJavaActionServerNodeMain.SequenceEncoding sequenceEncoding) {
+        if (stressGoalCount > 0 && stressGoalsInFlight < 1) {
+            throw new IllegalArgumentException("stressGoalsInFlight must be at least 1 but was " + stressGoalsInFlight);
+        }
         this.rosActionName = rosActionName;
         this.rosNodeName = rosNodeName;
         this.fibonacciOrder = fibonacciOrder;
+        this.stressGoalsInFlight = stressGoalsInFlight;
+        this.stressGoalCount = stressGoalCount;
+        this.sequenceEncoding = sequenceEncoding;
     }
 
     /**
@@ -145,6 +283,13 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
     public final void onStart(final ConnectedNode connectedNode) {
         // Once connected, store the log for future usage inside callback methods.
         this.log = connectedNode.getLog();
+        this.connectedNode = connectedNode;
+
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        this.goalsSent = this.metrics.counter("ros_action_goals_sent_total", "Action goals sent", "action", this.rosActionName);
+        this.feedbackReceived = this.metrics.counter("ros_action_feedback_received_total", "Action feedback messages received", "action", this.rosActionName);
+        this.resultsReceived = this.metrics.counter("ros_action_results_received_total", "Action results received", "action", this.rosActionName);
+        this.cancelLatency = this.metrics.histogram("ros_action_client_cancel_latency_seconds", "ActionFuture cancel to terminal result", "action", this.rosActionName);
 
         // Create the ActionLib client for the shared action graph name.
         this.actionClient = new ActionClient<>(
@@ -160,9 +305,9 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
         this.log.info("Created ROS Action Client [" + this.rosActionName + "]. Waiting for the action server topics to connect.");
 
         // The wait can block for several seconds, so keep it off the rosjava callback thread.
-        final Thread worker = new Thread(() -> this.waitForServerAndRunExamples(), "rosjava-action-client");
-        worker.setDaemon(true);
-        worker.start();
+        ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.COMPUTE, "rosjava-action-client")
+                .newThread(this::waitForServerAndRunExamples)
+                .start();
     }
 
     /**
@@ -178,6 +323,10 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
             this.actionClient.disconnect();
             this.actionClient = null;
         }
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
     }
 
     /**
@@ -188,6 +337,17 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
      */
     @Override
     public final void feedbackReceived(final FibonacciActionFeedback feedback) {
+        this.feedbackReceived.increment();
+        final ActionGoalStressRun currentStressRun = this.stressRun;
+        if (currentStressRun != null) {
+            // Stress mode checks routing instead of logging every message.
+            currentStressRun.onFeedback(feedback.getStatus().getGoalId().getId(), feedback.getFeedback().getSequence().length);
+            return;
+        }
+        if (this.sequenceEncoding == ROSJavaActionServerNodeMain.SequenceEncoding.BIG_INTEGER_CHUNKS) {
+            this.assembleFeedback(feedback.getStatus().getGoalId().getId(), feedback.getFeedback().getSequence());
+            return;
+        }
         if (this.log != null) {
             this.log.info("Action client feedback: " + Arrays.toString(feedback.getFeedback().getSequence()));
         }
@@ -200,6 +360,20 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
      */
     @Override
     public final void resultReceived(final FibonacciActionResult result) {
+        this.resultsReceived.increment();
+        final ActionGoalStressRun currentStressRun = this.stressRun;
+        if (currentStressRun != null) {
+            currentStressRun.onResultCallback(result.getStatus().getGoalId().getId());
+            return;
+        }
+        if (this.sequenceEncoding == ROSJavaActionServerNodeMain.SequenceEncoding.BIG_INTEGER_CHUNKS) {
+            final int[] sequence = result.getResult().getSequence();
+            if (this.log != null) {
+                this.log.info("Action client callback result (" + this.toStatusLabel(result.getStatus().getStatus()) + "): "
+                        + (sequence.length == 0 ? "no terms" : BigFibonacciChunks.describe(sequence)));
+            }
+            return;
+        }
         if (this.log != null) {
             this.log.info("Action client callback result (" + this.toStatusLabel(result.getStatus().getStatus()) + "): "
                     + Arrays.toString(result.getResult().getSequence()));
@@ -209,36 +383,36 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
     /**
      * ActionLib publishes periodic status heartbeat messages on the {@code /status} topic.
      *
-     * <p>This example keeps the logs readable by printing only status changes for the goal currently
-     * tracked by the client.
+     * <p>Each message lists every goal the server tracks. Instead of searching it for the goal of
+     * interest on every tick, the message is applied to a {@link GoalStatusTracker}, which compares it
+     * with the previous message and only calls the listeners of the goals that actually changed.
      *
      * @param statusArray the current ActionLib status array
      */
     @Override
     public final void statusReceived(final GoalStatusArray statusArray) {
-        if (this.log == null || this.actionClient == null) {
+        if (this.actionClient == null) {
             return;
         }
+        this.statusTracker.apply(statusArray);
+    }
 
-        // Ask rosjava_actionlib to find the status entry that belongs to the goal currently tracked by this client.
-        final GoalStatus goalStatus = this.actionClient.findStatus(statusArray);
-        if (goalStatus == null || goalStatus.getGoalId() == null) {
+    /**
+     * Log one status change of an example goal.
+     *
+     * @param goalId     the ActionLib goal id
+     * @param goalStatus the new status entry
+     */
+    private final void logStatusChange(final String goalId, final GoalStatus goalStatus) {
+        if (this.log == null) {
             return;
         }
-
-        final String goalId = goalStatus.getGoalId().getId();
-        final String statusLabel = this.toStatusLabel(goalStatus.getStatus());
-        final boolean goalChanged = goalId == null ? this.lastLoggedGoalId != null : !goalId.equals(this.lastLoggedGoalId);
-        if (!statusLabel.equals(this.lastLoggedStatusLabel) || goalChanged) {
-            this.lastLoggedGoalId = goalId;
-            this.lastLoggedStatusLabel = statusLabel;
-
-            final String statusText = goalStatus.getText();
-            if (statusText == null || statusText.isBlank()) {
-                this.log.info("Action client status [" + goalId + "]: " + statusLabel);
-            } else {
-                this.log.info("Action client status [" + goalId + "]: " + statusLabel + " (" + statusText + ")");
-            }
+        final String statusLabel = toStatusLabel(goalStatus.getStatus());
+        final String statusText = goalStatus.getText();
+        if (statusText == null || statusText.isBlank()) {
+            this.log.info("Action client status [" + goalId + "]: " + statusLabel);
+        } else {
+            this.log.info("Action client status [" + goalId + "]: " + statusLabel + " (" + statusText + ")");
         }
     }
 
@@ -260,8 +434,14 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
                 throw new IllegalStateException("Timed out while waiting for action server [" + this.rosActionName + "]");
             }
 
-            this.runSimpleGoalExample();
-            this.runAdvancedActionFutureExample();
+            if (this.stressGoalCount > 0) {
+                this.runStressGoals();
+            } else if (this.sequenceEncoding == ROSJavaActionServerNodeMain.SequenceEncoding.BIG_INTEGER_CHUNKS) {
+                this.runBigGoalExample();
+            } else {
+                this.runSimpleGoalExample();
+                this.runAdvancedActionFutureExample();
+            }
         } catch (final InterruptedException exception) {
             // Preserve the interrupted flag if the demo is shutting down while we wait.
             Thread.currentThread().interrupt();
@@ -269,6 +449,193 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
             if (this.log != null) {
                 this.log.error("Action client example failed: " + exception.getMessage());
             }
+        } finally {
+            this.finished.countDown();
+        }
+    }
+
+    /**
+     * Wait until the examples or the stress run have finished.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit unit of the timeout
+     * @return {@code true} if the client finished before the timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public final boolean awaitFinished(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        return this.finished.await(timeout, timeUnit);
+    }
+
+    /**
+     * @return the stress mode report, or empty text if the stress mode has not run
+     */
+    public final String getStressReport() {
+        final ActionGoalStressRun currentStressRun = this.stressRun;
+        return currentStressRun == null ? "" : currentStressRun.report();
+    }
+
+    /**
+     * @return the outcome of the big-number goal, or empty text if it has not finished
+     */
+    public final String getBigGoalReport() {
+        return this.bigGoalReport;
+    }
+
+    /**
+     * Send one large goal to a big-number server and wait for its result.
+     *
+     * <p>The feedback chunks are assembled and checked in {@link #feedbackReceived(FibonacciActionFeedback)}
+     * while this thread waits.
+     *
+     * @throws Exception if the goal does not finish in time
+     */
+    private final void runBigGoalExample() throws Exception {
+        final long startNanos = System.nanoTime();
+        final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> goalFuture =
+                this.sendGoal(this.fibonacciOrder, "big-number");
+        final FibonacciActionResult result = goalFuture.get(BIG_ACTION_RESULT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        this.bigGoalReport = this.toStatusLabel(result.getStatus().getStatus()) + " order " + this.fibonacciOrder + " in "
+                + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, " + this.checkBigResult(result);
+        if (this.log != null) {
+            this.log.info("Action client big-number goal: " + this.bigGoalReport);
+        }
+    }
+
+    /**
+     * Add one feedback chunk to the assembler of its goal.
+     *
+     * @param goalId the ActionLib goal id
+     * @param chunk  the feedback chunk
+     */
+    private final void assembleFeedback(final String goalId, final int[] chunk) {
+        // A goal is marked settled before its assembler is removed, so a late chunk never recreates it.
+        final BigFibonacciChunks.Assembler assembler = this.assemblers.computeIfAbsent(goalId,
+                id -> this.settledGoalIds.contains(id) ? null : new BigFibonacciChunks.Assembler());
+        if (assembler == null) {
+            return;
+        }
+        synchronized (assembler) {
+            try {
+                assembler.accept(chunk);
+            } catch (final IllegalArgumentException exception) {
+                if (this.log != null) {
+                    this.log.error("Action client big-number feedback of goal [" + goalId + "] is invalid: " + exception.getMessage());
+                }
+            }
+            assembler.notifyAll();
+        }
+    }
+
+    /**
+     * Compare the result of a big-number goal with the sequence assembled from its feedback, and
+     * release the assembler of the goal.
+     *
+     * <p>The assembler stays in {@link #assemblers} while the last chunks settle, so chunks that arrive
+     * after the result still reach it, and is removed only afterwards.
+     *
+     * @param result the ActionLib result message
+     * @return a short description of the outcome
+     * @throws InterruptedException if the thread is interrupted while the last feedback chunks arrive
+     */
+    private final String checkBigResult(final FibonacciActionResult result) throws InterruptedException {
+        final String goalId = result.getStatus().getGoalId().getId();
+        final int[] sequence = result.getResult().getSequence();
+        final BigFibonacciChunks.Assembler assembler = this.assemblers.computeIfAbsent(goalId, id -> new BigFibonacciChunks.Assembler());
+        try {
+            synchronized (assembler) {
+                if (sequence.length > 0) {
+                    final int lastTermIndex = BigFibonacciChunks.firstTermIndex(sequence);
+                    final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BIG_FEEDBACK_SETTLE_MILLIS);
+                    long remainingNanos;
+                    while (assembler.getTermCount() <= lastTermIndex && (remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(assembler, remainingNanos);
+                    }
+                }
+                if (assembler.getTermCount() == 0) {
+                    return "no feedback received" + (sequence.length == 0 ? "" : ", result " + BigFibonacciChunks.describe(sequence));
+                }
+                if (sequence.length == 0) {
+                    return "no result terms";
+                }
+                return (assembler.matchesResult(sequence) ? "result matches, assembled " : "result " + BigFibonacciChunks.describe(sequence)
+                        + " does not match, assembled ") + assembler.summary();
+            }
+        } finally {
+            this.settledGoalIds.add(goalId);
+            this.assemblers.remove(goalId, assembler);
+        }
+    }
+
+    /**
+     * Keep {@link #stressGoalsInFlight} goals in flight until {@link #stressGoalCount} goals have finished.
+     *
+     * <p>Each in-flight slot is one sender thread that sends a goal, blocks on that goal's own
+     * {@link ActionFuture}, records the outcome, and then sends the next goal.
+     *
+     * @throws InterruptedException if the run is interrupted
+     */
+    private final void runStressGoals() throws InterruptedException {
+        final ActionGoalStressRun run = new ActionGoalStressRun();
+        this.stressRun = run;
+        this.log.info("Action client stress: " + this.stressGoalCount + " goals of order " + this.fibonacciOrder
+                + " with " + this.stressGoalsInFlight + " in flight");
+
+        final AtomicInteger remainingGoals = new AtomicInteger(this.stressGoalCount);
+        final ThreadFactory senderFactory = ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.COMPUTE, "rosjava-action-client-stress");
+        final List<Thread> senders = new ArrayList<>();
+        for (int slot = 0; slot < this.stressGoalsInFlight; slot++) {
+            final Thread sender = senderFactory.newThread(() -> {
+                while (remainingGoals.getAndDecrement() > 0 && this.actionClient != null) {
+                    this.runOneStressGoal(run);
+                }
+            });
+            senders.add(sender);
+            sender.start();
+        }
+        for (final Thread sender : senders) {
+            sender.join();
+        }
+
+        this.log.info("Action client stress report: " + run.report());
+    }
+
+    /**
+     * Send one stress goal and wait for its result through its own {@link ActionFuture}.
+     *
+     * @param run the stress run bookkeeping
+     */
+    private final void runOneStressGoal(final ActionGoalStressRun run) {
+        final ActionClient<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> client = this.actionClient;
+        if (client == null) {
+            return;
+        }
+        final FibonacciActionGoal goal = client.newGoalMessage();
+        goal.getGoal().setOrder(this.fibonacciOrder);
+
+        // The id is set here rather than by sendGoal, so the run knows the goal before any status or feedback for it can arrive.
+        final String goalId = this.rosNodeName + "stress-" + this.stressGoalSequence.incrementAndGet() + "-" + System.nanoTime();
+        goal.getGoalId().setId(goalId);
+        goal.getGoalId().setStamp(this.connectedNode.getCurrentTime());
+        final long sentNanos = System.nanoTime();
+        run.onGoalSent(goalId, this.fibonacciOrder, sentNanos);
+        this.statusTracker.addListener(goalId, (id, previousStatus, status) -> run.onStatus(id, status.getStatus()));
+
+        final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionFuture = client.sendGoal(goal);
+        this.goalsSent.increment();
+
+        try {
+            final FibonacciActionResult result = actionFuture.get(ACTION_RESULT_TIMEOUT_SECONDS + this.fibonacciOrder, TimeUnit.SECONDS);
+            run.onFutureResult(goalId, result.getStatus().getGoalId().getId(), result.getStatus().getStatus(), result.getResult().getSequence().length);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            run.onFutureFailure();
+        } catch (final TimeoutException exception) {
+            this.log.error("Action client stress: Goal [" + goalId + "] timed out in state " + actionFuture.getCurrentState());
+            run.onFutureFailure();
+        } catch (final Exception exception) {
+            this.log.error("Action client stress: Goal [" + goalId + "] failed: " + exception.getMessage());
+            run.onFutureFailure();
         }
     }
 
@@ -317,6 +684,7 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
         this.logLatestFeedback(actionFuture);
 
         // Cancel the active goal through ActionFuture. In actionlib terms this preempts the running goal.
+        final long cancelRequestedNanos = System.nanoTime();
         final boolean cancelRequestPublished = actionFuture.cancel(true);
         if (this.log != null) {
             this.log.info("Action client ActionFuture cancel request published = "
@@ -325,7 +693,9 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
 
         // The advanced goal should now complete with a preempted terminal result.
         final FibonacciActionResult result = actionFuture.get(ACTION_RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        final long cancelLatencyNanos = this.cancelLatency.recordSince(cancelRequestedNanos);
         if (this.log != null) {
+            this.log.info("Action client ActionFuture cancel-to-result latency: " + TimeUnit.NANOSECONDS.toMicros(cancelLatencyNanos) + " us");
             this.log.info("Action client ActionFuture terminal state: " + actionFuture.getCurrentState());
             this.log.info("Action client ActionFuture final result (" + this.toStatusLabel(result.getStatus().getStatus()) + "): "
                     + Arrays.toString(result.getResult().getSequence()));
@@ -354,6 +724,10 @@ public final class ROSJavaActionClientNodeMain extends AbstractNodeMain implemen
         // Publish the goal to the action's /goal topic and keep the returned ActionFuture.
         final ActionFuture<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionFuture =
                 this.actionClient.sendGoal(goal);
+        this.goalsSent.increment();
+
+        // Follow the status changes of this goal only. sendGoal fills the goal id in place.
+        this.statusTracker.addListener(goal.getGoalId().getId(), (goalId, previousStatus, status) -> this.logStatusChange(goalId, status));
 
         if (this.log != null) {
             this.log.info("Action client: Sent " + description + " Fibonacci goal with order " + order);
@@ -29,9 +29,13 @@ import org.ros.node.ConnectedNode;
 import org.ros.node.Node;
 import org.ros.node.RosLog;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A documented ActionLib server example based on {@code actionlib_tutorials/FibonacciAction}.
@@ -43,6 +47,13 @@ import java.util.Optional;
  * <p>This version stays intentionally small so it works as a hello-world example, but the comments
  * explain the key ActionLib concepts that the code is exercising.
  *
+ * <p>Accepted goals go through an {@link ActionGoalScheduler}, which bounds how many goals run at the
+ * same time, orders the waiting goals by a {@link GoalPriority}, and applies a policy such as
+ * "newest preempts oldest" when every slot is busy.
+ *
+ * <p>With {@link SequenceEncoding#BIG_INTEGER_CHUNKS} the server computes arbitrary-precision
+ * Fibonacci numbers for large orders and streams them in {@link BigFibonacciChunks}.
+ *
  * @author Spyros Koukas
  */
 public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implements ActionServerListener<FibonacciActionGoal> {
@@ -51,6 +62,54 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
      */
     private static final long FEEDBACK_INTERVAL_MILLIS = 500L;
 
+    private static final int[] EMPTY_SEQUENCE = new int[0];
+
+    /**
+     * How long {@link #onShutdown(Node)} waits for preempted goals to publish their results before the
+     * ActionLib server is finished.
+     */
+    private static final long SHUTDOWN_PREEMPT_WAIT_MILLIS = 1_000L;
+
+    /**
+     * Ordering of goals that wait for a free execution slot.
+     */
+    public enum GoalPriority {
+        /**
+         * First come, first served.
+         */
+        ARRIVAL_ORDER(Comparator.comparingInt(goal -> 0)),
+        /**
+         * Cheaper goals first, which keeps short requests responsive under load.
+         */
+        SMALLEST_ORDER_FIRST(Comparator.comparingInt(goal -> goal.getGoal().getOrder())),
+        /**
+         * Goals with the oldest client-side goal stamp first.
+         */
+        OLDEST_STAMP_FIRST(Comparator.comparingLong(goal -> goal.getGoalId().getStamp().totalNsecs()));
+
+        private final Comparator<FibonacciActionGoal> comparator;
+
+        GoalPriority(final Comparator<FibonacciActionGoal> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * How the Fibonacci numbers are carried in the {@code int[] sequence} of feedback and results.
+     */
+    public enum SequenceEncoding {
+        /**
+         * One {@code int} per number, the whole sequence in every message. Orders above
+         * {@value BigFibonacciChunks#MAX_INT_ORDER} would overflow and are rejected.
+         */
+        INT32,
+        /**
+         * Arbitrary-precision numbers in {@link BigFibonacciChunks}: each feedback carries only the new
+         * terms, the result only the last one. Meant for large orders and large payloads.
+         */
+        BIG_INTEGER_CHUNKS
+    }
+
     /**
      * Shared action graph name. The server and the client must use the same graph name.
      */
@@ -61,11 +120,51 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
      */
     private final String rosNodeName;
 
+    /**
+     * How many goals may run at the same time.
+     */
+    private final int maxConcurrentGoals;
+
+    /**
+     * What to do with new goals when every execution slot is busy.
+     */
+    private final ActionGoalScheduler.Policy schedulerPolicy;
+
+    /**
+     * Ordering of goals waiting for a slot.
+     */
+    private final GoalPriority goalPriority;
+
+    /**
+     * How the numbers are sent.
+     */
+    private final SequenceEncoding sequenceEncoding;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@link #onShutdown(Node)}.
+     */
+    private MetricsRegistry.Scope metrics;
+    private MetricsRegistry.Counter goalsReceived;
+    private MetricsRegistry.Counter goalsRejected;
+    private MetricsRegistry.Counter feedbackSent;
+    private MetricsRegistry.Counter resultsSent;
+    private MetricsRegistry.Histogram queueWait;
+
+    /**
+     * Cancel-request-to-PREEMPTED-result latency of client cancelled goals.
+     */
+    private MetricsRegistry.Histogram cancelLatency;
+
+    /**
+     * Queues accepted goals and runs them on worker threads. Created when the node starts.
+     */
+    private ActionGoalScheduler<FibonacciActionGoal> goalScheduler;
+
     /**
      * The rosjava ActionLib server helper.
      * It owns the internal ActionLib publishers and subscribers once the node starts.
      */
-    private ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer;
+    private volatile ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> actionServer;
 
     /**
      * Cached ROS logger so the cancel and result paths can explain what the server is doing.
@@ -73,12 +172,57 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
     private RosLog log;
 
     /**
+     * Set when a coordinated shutdown starts, so preempted goals report why they stopped.
+     */
+    private volatile boolean shuttingDown;
+
+    /**
+     * Create a server that runs up to one goal per available processor and queues the rest in arrival order.
+     *
      * @param rosActionName the shared ROS action graph name
      * @param rosNodeName   the ROS node name used for the server node itself
      */
     public ROSJavaActionServerNodeMain(final String rosActionName, final String rosNodeName) {
+        this(rosActionName, rosNodeName, Runtime.getRuntime().availableProcessors(), ActionGoalScheduler.Policy.QUEUE, GoalPriority.ARRIVAL_ORDER);
+    }
+
+    /**
+     * @param rosActionName      the shared ROS action graph name
+     * @param rosNodeName        the ROS node name used for the server node itself
+     * @param maxConcurrentGoals how many goals may run at the same time
+     * @param schedulerPolicy    what to do with new goals when every slot is busy
+     * @param goalPriority       ordering of goals waiting for a slot
+     */
+    public ROSJavaActionServerNodeMain(
+            final String rosActionName,
+            final String rosNodeName,
+            final int maxConcurrentGoals,
+            final ActionGoalScheduler.Policy schedulerPolicy,
+            final GoalPriority goalPriority) {
+        this(rosActionName, rosNodeName, maxConcurrentGoals, schedulerPolicy, goalPriority, SequenceEncoding.INT32);
+    }
+
+    /**
+     * @param rosActionName      the shared ROS action graph name
+     * @param rosNodeName        the ROS node name used for the server node itself
+     * @param maxConcurrentGoals how many goals may run at the same time
+     * @param schedulerPolicy    what to do with new goals when every slot is busy
+     * @param goalPriority       ordering of goals waiting for a slot
+     * @param sequenceEncoding   how the numbers are sent
+     */
+    public ROSJavaActionServerNodeMain(
+            final String rosActionName,
+            final String rosNodeName,
+            final int maxConcurrentGoals,
+            final ActionGoalScheduler.Policy schedulerPolicy,
+            final GoalPriority goalPriority,
+            final SequenceEncoding sequenceEncoding) {
         this.rosActionName = rosActionName;
         this.rosNodeName = rosNodeName;
+        this.maxConcurrentGoals = maxConcurrentGoals;
+        this.schedulerPolicy = schedulerPolicy;
+        this.goalPriority = goalPriority;
+        this.sequenceEncoding = sequenceEncoding;
     }
 
     /**
@@ -101,6 +245,28 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
     @Override
     public final void onStart(final ConnectedNode connectedNode) {
         this.log = connectedNode.getLog();
+
+        // Goals run on scheduler worker threads so feedback publication does not block rosjava callbacks.
+        // They are compute threads of the ThreadPolicy, so they can be kept off the rosjava I/O cores.
+        this.goalScheduler = new ActionGoalScheduler<>(
+                this.maxConcurrentGoals,
+                this.schedulerPolicy,
+                this.goalPriority.comparator,
+                this::runGoal,
+                ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.COMPUTE, "rosjava-action-server-goal"));
+
+        // Goal counters, scheduler queue depth and wait time, and cancellation latency.
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        this.goalsReceived = this.metrics.counter("ros_action_goals_received_total", "Action goals received", "action", this.rosActionName);
+        this.goalsRejected = this.metrics.counter("ros_action_goals_rejected_total", "Action goals rejected", "action", this.rosActionName);
+        this.feedbackSent = this.metrics.counter("ros_action_feedback_sent_total", "Action feedback messages sent", "action", this.rosActionName);
+        this.resultsSent = this.metrics.counter("ros_action_results_sent_total", "Action results sent", "action", this.rosActionName);
+        this.queueWait = this.metrics.histogram("ros_action_goal_queue_wait_seconds", "Time goals wait for an execution slot", "action", this.rosActionName);
+        this.cancelLatency = this.metrics.histogram("ros_action_cancel_latency_seconds", "Cancel request to PREEMPTED result", "action", this.rosActionName);
+        final ActionGoalScheduler<FibonacciActionGoal> scheduler = this.goalScheduler;
+        this.metrics.gauge("ros_action_goal_queue_depth", "Action goals waiting for an execution slot", () -> scheduler.getStats().queueDepth(), "action", this.rosActionName);
+        this.metrics.gauge("ros_action_goals_active", "Action goals running", () -> scheduler.getStats().activeGoals(), "action", this.rosActionName);
+
         this.actionServer = new ActionServer<>(
                 connectedNode,
                 this,
@@ -109,19 +275,50 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
                 FibonacciActionFeedback._TYPE,
                 FibonacciActionResult._TYPE
         );
-        connectedNode.getLog().info("Created action server [" + this.rosActionName + "]");
+        connectedNode.getLog().info("Created action server [" + this.rosActionName + "] running up to " + this.maxConcurrentGoals
+                + " goals, policy " + this.schedulerPolicy + ", priority " + this.goalPriority + ", encoding " + this.sequenceEncoding);
     }
 
     /**
-     * Disconnect the ActionLib server when the node shuts down.
+     * Preempt the running goals, reject the waiting ones, and disconnect the ActionLib server when the
+     * node shuts down.
+     *
+     * <p>Runs that stop the node without a {@link ShutdownCoordinator} end here too, so a long goal does
+     * not keep computing after the node is gone. The preempted goals get a short time to publish their
+     * results before the server is finished.
      *
      * @param node the rosjava node being shut down
      */
     @Override
     public final void onShutdown(final Node node) {
-        if (this.actionServer != null) {
-            this.actionServer.finish();
+        this.shuttingDown = true;
+        final ActionGoalScheduler<FibonacciActionGoal> scheduler = this.goalScheduler;
+        if (scheduler != null) {
+            final int preempted = scheduler.preemptActive();
+            final List<ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal>> dropped = scheduler.shutdown();
+            for (final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal : dropped) {
+                this.sendResult(scheduledGoal.getGoal(), EMPTY_SEQUENCE, GoalStatus.REJECTED, "Server shutting down");
+            }
+            try {
+                if (!scheduler.awaitIdle(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_PREEMPT_WAIT_MILLIS))) {
+                    node.getLog().warn("Action server: Running goals did not stop within " + SHUTDOWN_PREEMPT_WAIT_MILLIS + " ms");
+                }
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            if (preempted > 0 || !dropped.isEmpty()) {
+                node.getLog().info("Action server: Preempted " + preempted + " running goals and rejected "
+                        + dropped.size() + " waiting goals on shutdown");
+            }
+        }
+        final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> server = this.actionServer;
+        if (server != null) {
             this.actionServer = null;
+            server.finish();
+        }
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
         }
     }
 
@@ -141,54 +338,185 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
     /**
      * Informational callback required by {@link ActionServerListener}.
      *
-     * <p>The real cancellation handling happens inside {@link #runGoal(FibonacciActionGoal)},
-     * but this callback is still useful for logging when the client requests it.
+     * <p>A running goal is signalled directly, which wakes its worker between two Fibonacci steps so
+     * the PREEMPTED result goes out without waiting for the rest of the feedback interval.
+     * A goal that is still waiting in the scheduler queue has not started yet, so it is removed from
+     * the queue and recalled right here.
      *
-     * @param id the goal id that is being cancelled
+     * <p>The request addresses goals as described in {@link #isAddressedByCancel(GoalID, String, long)},
+     * so a cancel-all request or a stamp-based request reaches every matching goal, not only an exact id.
+     *
+     * @param id the goal id and stamp of the cancel request
      */
     @Override
     public final void cancelReceived(final GoalID id) {
+        final String cancelledGoalId = id.getId() == null ? "" : id.getId();
+        final long cancelStampNanos = id.getStamp() == null ? 0 : id.getStamp().totalNsecs();
         if (this.log != null) {
-            this.log.info("Action server: Received cancel request for goal [" + id.getId() + "]");
+            this.log.info("Action server: Received cancel request for goal [" + cancelledGoalId + "], stamp " + cancelStampNanos + " ns");
+        }
+        if (this.goalScheduler != null) {
+            final List<ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal>> recalled = this.goalScheduler.cancelMatching(
+                    goal -> isAddressedByCancel(goal.getGoalId(), cancelledGoalId, cancelStampNanos));
+            for (final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal : recalled) {
+                this.sendResult(scheduledGoal.getGoal(), EMPTY_SEQUENCE, GoalStatus.RECALLED, "Recalled by client before it started");
+            }
         }
     }
 
     /**
-     * Accept the incoming Fibonacci goal and start processing it asynchronously.
+     * Decide whether a goal is addressed by a cancel request, following the ActionLib cancel policy.
+     *
+     * <p>An empty id with a zero stamp cancels every goal. A non-zero stamp cancels every goal stamped at
+     * or before it. A non-empty id cancels that goal, in addition to the goals selected by the stamp.
+     *
+     * @param goalId           the id and stamp of the goal
+     * @param cancelledGoalId  the id of the cancel request, empty for none
+     * @param cancelStampNanos the stamp of the cancel request in nanoseconds, 0 for none
+     * @return {@code true} if the goal should be cancelled
+     */
+    static final boolean isAddressedByCancel(final GoalID goalId, final String cancelledGoalId, final long cancelStampNanos) {
+        if (cancelledGoalId.isEmpty() && cancelStampNanos == 0) {
+            return true;
+        }
+        if (!cancelledGoalId.isEmpty() && cancelledGoalId.equals(goalId.getId())) {
+            return true;
+        }
+        return cancelStampNanos != 0 && goalId.getStamp() != null && goalId.getStamp().totalNsecs() <= cancelStampNanos;
+    }
+
+    /**
+     * Hand the incoming Fibonacci goal to the scheduler, which starts it when a slot is free.
      *
      * <p>The server returns {@link Optional#empty()} because this example manages the goal lifecycle
-     * explicitly: it calls {@code setAccepted(...)}, publishes feedback, and later publishes the
-     * terminal result itself.
+     * explicitly: the goal stays {@code PENDING} while it waits in the queue, and the worker calls
+     * {@code setAccepted(...)}, publishes feedback, and later publishes the terminal result itself.
      *
      * @param goal the received Fibonacci action goal
      * @return whether the goal is rejected immediately or managed manually
      */
     @Override
     public final Optional<Boolean> acceptGoal(final FibonacciActionGoal goal) {
+        this.goalsReceived.increment();
+
         // Reject invalid requests to keep the example behavior explicit.
-        if (goal.getGoal().getOrder() < 0) {
+        // In INT32 mode larger orders would silently overflow, so they are rejected as well.
+        final int order = goal.getGoal().getOrder();
+        if (order < 0 || this.sequenceEncoding == SequenceEncoding.INT32 && order > BigFibonacciChunks.MAX_INT_ORDER) {
+            this.goalsRejected.increment();
             return Optional.of(Boolean.FALSE);
         }
 
-        final String goalId = goal.getGoalId().getId();
+        // The scheduler policy may also reject the goal, for example when a single-goal server is busy.
+        if (this.goalScheduler.submit(goal.getGoalId().getId(), goal) == ActionGoalScheduler.Admission.REJECTED) {
+            if (this.log != null) {
+                this.log.info("Action server: Rejected goal [" + goal.getGoalId().getId() + "], scheduler " + this.goalScheduler.getStats());
+            }
+            this.goalsRejected.increment();
+            return Optional.of(Boolean.FALSE);
+        }
+        return Optional.empty();
+    }
 
-        // Tell ActionLib that this goal has moved from PENDING to ACTIVE.
-        this.actionServer.setAccepted(goalId);
+    /**
+     * @return the current queue depth, active goal count, and queue wait metrics of the goal scheduler
+     */
+    final ActionGoalScheduler.Stats getGoalSchedulerStats() {
+        return this.goalScheduler.getStats();
+    }
 
-        // Execute the goal on a worker thread so feedback publication does not block callbacks.
-        final Thread worker = new Thread(() -> this.runGoal(goal), "rosjava-action-server-" + goalId);
-        worker.setDaemon(true);
-        worker.start();
-        return Optional.empty();
+    /**
+     * The shutdown participant of the action server.
+     *
+     * <p>New goals are rejected while the running and waiting goals are allowed to finish. Goals still
+     * running at the drain deadline are preempted and goals still waiting are rejected, so every client
+     * gets a terminal result instead of a goal that silently disappears.
+     *
+     * @return the shutdown participant
+     */
+    final ShutdownCoordinator.Participant getShutdownParticipant() {
+        return new ShutdownCoordinator.Participant() {
+            @Override
+            public final void stopAccepting() {
+                ROSJavaActionServerNodeMain.this.shuttingDown = true;
+                final ActionGoalScheduler<FibonacciActionGoal> scheduler = ROSJavaActionServerNodeMain.this.goalScheduler;
+                if (scheduler != null) {
+                    scheduler.stopAccepting();
+                }
+            }
+
+            @Override
+            public final boolean awaitDrained(final long deadlineNanos) throws InterruptedException {
+                final ActionGoalScheduler<FibonacciActionGoal> scheduler = ROSJavaActionServerNodeMain.this.goalScheduler;
+                return scheduler == null || scheduler.awaitIdle(deadlineNanos);
+            }
+
+            @Override
+            public final void abandon() {
+                final ActionGoalScheduler<FibonacciActionGoal> scheduler = ROSJavaActionServerNodeMain.this.goalScheduler;
+                if (scheduler == null) {
+                    return;
+                }
+                final int preempted = scheduler.preemptActive();
+                final List<ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal>> dropped = scheduler.shutdown();
+                for (final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal : dropped) {
+                    ROSJavaActionServerNodeMain.this.sendResult(scheduledGoal.getGoal(), EMPTY_SEQUENCE, GoalStatus.REJECTED, "Server shutting down");
+                }
+                if (ROSJavaActionServerNodeMain.this.log != null) {
+                    ROSJavaActionServerNodeMain.this.log.info("Action server: Shutdown deadline reached, preempted " + preempted
+                            + " running goals and rejected " + dropped.size() + " waiting goals");
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a readable summary of the cancel-request-to-PREEMPTED-result latency measured so far
+     */
+    final String getCancelLatencySummary() {
+        return this.cancelLatency.summary();
     }
 
     /**
      * Compute the Fibonacci sequence requested by the goal and publish feedback along the way.
      *
-     * @param goal the accepted Fibonacci goal
+     * <p>This runs on a scheduler worker thread once the goal has left the queue.
+     *
+     * @param scheduledGoal the goal handed over by the scheduler
      */
-    private final void runGoal(final FibonacciActionGoal goal) {
-        final String goalId = goal.getGoalId().getId();
+    private final void runGoal(final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal) {
+        final FibonacciActionGoal goal = scheduledGoal.getGoal();
+        final String goalId = scheduledGoal.getGoalId();
+
+        // A goal recalled while it was waiting must not become ACTIVE.
+        if (this.isCancelRequested(goalId)) {
+            this.sendResult(goal, EMPTY_SEQUENCE, GoalStatus.RECALLED, "Recalled by client before it started");
+            return;
+        }
+
+        // Tell ActionLib that this goal has moved from PENDING to ACTIVE.
+        final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> server = this.actionServer;
+        if (server == null) {
+            return;
+        }
+        server.setAccepted(goalId);
+        this.queueWait.record(scheduledGoal.getWaitNanos());
+        final RosFlightEvents.ActionGoalAccepted acceptedEvent = new RosFlightEvents.ActionGoalAccepted();
+        if (acceptedEvent.shouldCommit()) {
+            acceptedEvent.action = this.rosActionName;
+            acceptedEvent.goalId = goalId;
+            acceptedEvent.queueWaitNanos = scheduledGoal.getWaitNanos();
+            acceptedEvent.commit();
+        }
+        if (this.log != null) {
+            this.log.info("Action server: Started goal [" + goalId + "] after waiting "
+                    + TimeUnit.NANOSECONDS.toMillis(scheduledGoal.getWaitNanos()) + " ms, scheduler " + this.goalScheduler.getStats());
+        }
+
+        if (this.sequenceEncoding == SequenceEncoding.BIG_INTEGER_CHUNKS) {
+            this.runBigGoal(scheduledGoal);
+            return;
+        }
 
         // Start with the standard Fibonacci seed values.
         final List<Integer> sequence = new ArrayList<>();
@@ -197,38 +525,130 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
 
         try {
             // Publish the initial feedback immediately so the client sees the action start.
-            this.sendFeedback(goal, sequence);
+            this.sendFeedback(goal, toIntArray(sequence));
 
             for (int index = 0; index < goal.getGoal().getOrder(); index++) {
                 // If the client cancelled an active goal, actionlib moves it into a preempting state.
-                if (this.isCancelRequested(goalId)) {
-                    this.sendResult(goal, sequence, GoalStatus.PREEMPTED, "Cancelled by client");
+                // cancelReceived also flags the goal directly, which covers the short window before that transition.
+                if (scheduledGoal.isCancelRequested() || this.isCancelRequested(goalId)) {
+                    this.sendCancelledResult(scheduledGoal, toIntArray(sequence));
                     return;
                 }
 
-                // Compute the next Fibonacci number.
-                sequence.add(sequence.get(sequence.size() - 1) + sequence.get(sequence.size() - 2));
+                // The scheduler may ask the goal to give its slot to newer goals.
+                if (scheduledGoal.isPreemptRequested()) {
+                    this.sendResult(goal, toIntArray(sequence), GoalStatus.PREEMPTED, this.shuttingDown ? "Server shutting down" : "Preempted by a newer goal");
+                    return;
+                }
+
+                // Compute the next Fibonacci number. acceptGoal keeps the order in range, so this never overflows.
+                sequence.add(Math.addExact(sequence.get(sequence.size() - 1), sequence.get(sequence.size() - 2)));
 
                 // Publish the partial sequence as ActionLib feedback.
-                this.sendFeedback(goal, sequence);
+                this.sendFeedback(goal, toIntArray(sequence));
 
                 // Slow the loop down so the feedback stream is visible in the logs.
-                Thread.sleep(FEEDBACK_INTERVAL_MILLIS);
+                // A cancel or preempt request ends the wait immediately instead of after the full interval.
+                scheduledGoal.awaitStopSignal(FEEDBACK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
             }
 
-            if (this.isCancelRequested(goalId)) {
-                this.sendResult(goal, sequence, GoalStatus.PREEMPTED, "Cancelled by client");
+            if (scheduledGoal.isCancelRequested() || this.isCancelRequested(goalId)) {
+                this.sendCancelledResult(scheduledGoal, toIntArray(sequence));
                 return;
             }
 
             // Publish the final successful result.
-            this.sendResult(goal, sequence, GoalStatus.SUCCEEDED, "Done");
+            this.sendResult(goal, toIntArray(sequence), GoalStatus.SUCCEEDED, "Done");
         } catch (final InterruptedException exception) {
             // Preserve the interrupted flag if shutdown happens during the example.
             Thread.currentThread().interrupt();
         } catch (final Exception exception) {
             // Publish an aborted result if anything unexpected happens while computing.
-            this.sendResult(goal, sequence, GoalStatus.ABORTED, exception.getMessage());
+            this.sendResult(goal, toIntArray(sequence), GoalStatus.ABORTED, exception.getMessage());
+        }
+    }
+
+    /**
+     * Compute arbitrary-precision Fibonacci numbers and stream them in {@link BigFibonacciChunks}.
+     *
+     * <p>Only the last two numbers and one chunk of unsent terms are kept, so memory stays bounded
+     * whatever the order. Feedback goes out whenever a chunk fills up, as fast as the numbers are
+     * computed, so large orders make a compute- and payload-heavy workload. The result carries only the
+     * last number, {@code F(order + 1)}.
+     *
+     * @param scheduledGoal the goal handed over by the scheduler, already accepted
+     */
+    private final void runBigGoal(final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal) {
+        final FibonacciActionGoal goal = scheduledGoal.getGoal();
+        final String goalId = scheduledGoal.getGoalId();
+        final BigFibonacciChunks.Writer writer = new BigFibonacciChunks.Writer(0, BigFibonacciChunks.DEFAULT_MAX_CHUNK_INTS);
+        BigInteger previous = BigInteger.ZERO;
+        BigInteger current = BigInteger.ONE;
+        int currentIndex = 1;
+        writer.add(previous);
+        writer.add(current);
+
+        try {
+            // Publish the seed values immediately so the client sees the action start.
+            this.sendFeedback(goal, writer.drain());
+
+            for (int index = 0; index < goal.getGoal().getOrder(); index++) {
+                if (scheduledGoal.isCancelRequested()) {
+                    this.sendCancelledResult(scheduledGoal, BigFibonacciChunks.single(currentIndex, current));
+                    return;
+                }
+                if (scheduledGoal.isPreemptRequested()) {
+                    this.sendResult(goal, BigFibonacciChunks.single(currentIndex, current), GoalStatus.PREEMPTED,
+                            this.shuttingDown ? "Server shutting down" : "Preempted by a newer goal");
+                    return;
+                }
+
+                final BigInteger next = previous.add(current);
+                previous = current;
+                current = next;
+                currentIndex++;
+
+                if (writer.add(current)) {
+                    this.sendFeedback(goal, writer.drain());
+                    // Asking actionlib for the goal state is not free, so only do it once per chunk.
+                    if (this.isCancelRequested(goalId)) {
+                        this.sendCancelledResult(scheduledGoal, BigFibonacciChunks.single(currentIndex, current));
+                        return;
+                    }
+                }
+            }
+            if (!writer.isEmpty()) {
+                this.sendFeedback(goal, writer.drain());
+            }
+
+            if (scheduledGoal.isCancelRequested() || this.isCancelRequested(goalId)) {
+                this.sendCancelledResult(scheduledGoal, BigFibonacciChunks.single(currentIndex, current));
+                return;
+            }
+            this.sendResult(goal, BigFibonacciChunks.single(currentIndex, current), GoalStatus.SUCCEEDED, "Done");
+        } catch (final Exception exception) {
+            this.sendResult(goal, BigFibonacciChunks.single(currentIndex, current), GoalStatus.ABORTED, exception.getMessage());
+        }
+    }
+
+    /**
+     * Publish the PREEMPTED result of a client cancelled goal and record how long the cancellation took.
+     *
+     * @param scheduledGoal the cancelled goal
+     * @param sequence      the sequence computed so far, already encoded
+     */
+    private final void sendCancelledResult(final ActionGoalScheduler.ScheduledGoal<FibonacciActionGoal> scheduledGoal, final int[] sequence) {
+        this.sendResult(scheduledGoal.getGoal(), sequence, GoalStatus.PREEMPTED, "Cancelled by client");
+
+        // The cancel can also be seen through the PREEMPTING state before cancelReceived runs; there is no request time then.
+        if (!scheduledGoal.isCancelRequested()) {
+            return;
+        }
+        final long latencyNanos = System.nanoTime() - scheduledGoal.getCancelRequestedNanos();
+        this.cancelLatency.record(latencyNanos);
+        if (this.log != null) {
+            this.log.info("Action server: Goal [" + scheduledGoal.getGoalId() + "] preempted "
+                    + TimeUnit.NANOSECONDS.toMicros(latencyNanos) + " us after the cancel request, " + this.getCancelLatencySummary());
         }
     }
 
@@ -236,15 +656,16 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
      * Publish one ActionLib feedback message containing the current partial sequence.
      *
      * @param goal     the active goal
-     * @param sequence the sequence computed so far
+     * @param sequence the sequence computed so far, or the next chunk, already encoded
      */
-    private final void sendFeedback(final FibonacciActionGoal goal, final List<Integer> sequence) {
-        if (this.actionServer == null) {
+    private final void sendFeedback(final FibonacciActionGoal goal, final int[] sequence) {
+        final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> server = this.actionServer;
+        if (server == null) {
             return;
         }
 
         // Create the feedback message from the ActionLib server helper.
-        final FibonacciActionFeedback feedback = this.actionServer.newFeedbackMessage();
+        final FibonacciActionFeedback feedback = server.newFeedbackMessage();
 
         // ActionLib feedback messages carry the goal id inside the embedded status field.
         copyGoalId(goal.getGoalId(), feedback.getStatus().getGoalId());
@@ -252,28 +673,39 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
         // Mark the status as ACTIVE while feedback is being published.
         feedback.getStatus().setStatus(GoalStatus.ACTIVE);
 
-        // Copy the Java list into the ROS int[] field expected by the generated message class.
-        feedback.getFeedback().setSequence(toIntArray(sequence));
+        // The ROS int[] field expected by the generated message class.
+        feedback.getFeedback().setSequence(sequence);
 
         // Publish to the action's /feedback topic.
-        this.actionServer.sendFeedback(feedback);
+        final RosFlightEvents.ActionFeedbackSent event = new RosFlightEvents.ActionFeedbackSent();
+        event.begin();
+        server.sendFeedback(feedback);
+        event.end();
+        this.feedbackSent.increment();
+        if (event.shouldCommit()) {
+            event.action = this.rosActionName;
+            event.goalId = goal.getGoalId().getId();
+            event.sequenceLength = sequence.length;
+            event.commit();
+        }
     }
 
     /**
      * Publish the terminal ActionLib result for the goal.
      *
      * @param goal     the goal that is finishing
-     * @param sequence the final computed sequence
+     * @param sequence the final computed sequence, already encoded
      * @param status   the terminal ActionLib status
      * @param text     the human-readable result text
      */
-    private final void sendResult(final FibonacciActionGoal goal, final List<Integer> sequence, final byte status, final String text) {
-        if (this.actionServer == null) {
+    private final void sendResult(final FibonacciActionGoal goal, final int[] sequence, final byte status, final String text) {
+        final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> server = this.actionServer;
+        if (server == null) {
             return;
         }
 
         // Create the result message from the ActionLib server helper.
-        final FibonacciActionResult result = this.actionServer.newResultMessage();
+        final FibonacciActionResult result = server.newResultMessage();
 
         // Copy the goal id into the embedded status field so the client can correlate the result.
         copyGoalId(goal.getGoalId(), result.getStatus().getGoalId());
@@ -283,29 +715,42 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
         result.getStatus().setText(text);
 
         // Fill the action-specific result payload.
-        result.getResult().setSequence(toIntArray(sequence));
+        result.getResult().setSequence(sequence);
 
         // Update the ActionLib goal state before publishing the result.
         final String goalId = goal.getGoalId().getId();
         switch (status) {
-            case GoalStatus.SUCCEEDED -> this.actionServer.setSucceed(goalId);
+            case GoalStatus.SUCCEEDED -> server.setSucceed(goalId);
             case GoalStatus.PREEMPTED -> {
-                final byte currentGoalStatus = this.actionServer.getGoalStatus(goalId);
+                final byte currentGoalStatus = server.getGoalStatus(goalId);
                 if (currentGoalStatus == GoalStatus.PREEMPTING) {
-                    this.actionServer.setCancel(goalId);
+                    server.setCancel(goalId);
                 } else {
-                    this.actionServer.setPreempt(goalId);
+                    server.setPreempt(goalId);
                 }
             }
-            case GoalStatus.REJECTED -> this.actionServer.setRejected(goalId);
-            default -> this.actionServer.setAbort(goalId);
+            case GoalStatus.RECALLED -> server.setCancel(goalId);
+            case GoalStatus.REJECTED -> server.setRejected(goalId);
+            default -> server.setAbort(goalId);
         }
 
         // Publish to the action's /result topic.
-        this.actionServer.sendResult(result);
+        final RosFlightEvents.ActionResultSent event = new RosFlightEvents.ActionResultSent();
+        event.begin();
+        server.sendResult(result);
+        event.end();
+        this.resultsSent.increment();
+        if (event.shouldCommit()) {
+            event.action = this.rosActionName;
+            event.goalId = goal.getGoalId().getId();
+            event.status = status;
+            event.commit();
+        }
 
         if (this.log != null) {
-            this.log.info("Action server result (" + status + "): " + sequence);
+            this.log.info("Action server result (" + status + "): " + (this.sequenceEncoding == SequenceEncoding.BIG_INTEGER_CHUNKS && sequence.length > 0
+                    ? BigFibonacciChunks.describe(sequence)
+                    : Arrays.toString(sequence)));
         }
     }
 
@@ -318,11 +763,12 @@ public final class ROSJavaActionServerNodeMain extends AbstractNodeMain implemen
      * @return {@code true} if the goal should stop and publish a preempted result
      */
     private final boolean isCancelRequested(final String goalId) {
-        if (this.actionServer == null) {
+        final ActionServer<FibonacciActionGoal, FibonacciActionFeedback, FibonacciActionResult> server = this.actionServer;
+        if (server == null) {
             return false;
         }
 
-        final byte goalStatus = this.actionServer.getGoalStatus(goalId);
+        final byte goalStatus = server.getGoalStatus(goalId);
         return goalStatus == GoalStatus.PREEMPTING || goalStatus == GoalStatus.RECALLING;
     }
 
@@ -17,24 +17,27 @@
 package eu.spyros.koukas.ros.examples;
 
 import org.ros.concurrent.CancellableLoop;
-import org.ros.exception.RemoteException;
-import org.ros.exception.RosRuntimeException;
-import org.ros.exception.ServiceNotFoundException;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
-import org.ros.node.service.ServiceClient;
-import org.ros.node.service.ServiceResponseListener;
+import org.ros.node.Node;
 import rosjava_test_msgs.AddTwoInts;
 import rosjava_test_msgs.AddTwoIntsRequest;
 import rosjava_test_msgs.AddTwoIntsResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A documented ROS service client example.
  *
  * <p>This class shows the core rosjava service-client flow:
- * create a {@link ServiceClient}, create request messages with {@code newMessage()},
+ * create a {@link org.ros.node.service.ServiceClient}, create request messages with {@code newMessage()},
  * submit requests with {@code call(...)}, and handle the asynchronous response callback.
+ * The client is wrapped in a {@link ManagedServiceClient}, which reconnects after the server
+ * restarts and spreads the calls over replica servers of the same service.
  *
  * @author Spyros Koukas
  */
@@ -44,6 +47,11 @@ public final class ROSJavaClientNodeMain extends AbstractNodeMain {
      */
     private static final long CALL_INTERVAL_MILLIS = 1_000;
 
+    /**
+     * Deadline of every example service call.
+     */
+    private static final long CALL_TIMEOUT_MILLIS = 500;
+
     /**
      * ROS graph name of the remote service that this client will call.
      */
@@ -54,13 +62,52 @@ public final class ROSJavaClientNodeMain extends AbstractNodeMain {
      */
     private final String rosNodeName;
 
+    /**
+     * Graph names of replica servers of the same service.
+     */
+    private final List<String> replicaServiceNames;
+
+    /**
+     * How calls are spread over the service and its replicas.
+     */
+    private final ManagedServiceClient.Policy policy;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * Self-healing connection to the service, created in {@link #onStart(ConnectedNode)}.
+     */
+    private ManagedServiceClient<AddTwoIntsRequest, AddTwoIntsResponse> serviceClient;
+
+    /**
+     * Calls waiting for a response. Closed when a coordinated shutdown starts, which stops new calls.
+     */
+    private final ShutdownCoordinator.InFlight callsInFlight = new ShutdownCoordinator.InFlight();
+
     /**
      * @param rosServiceName the graph name of the service to call
      * @param rosNodeName    the graph name of the ROS node itself
      */
     public ROSJavaClientNodeMain(final String rosServiceName, final String rosNodeName) {
+        this(rosServiceName, rosNodeName, List.of(), ManagedServiceClient.Policy.PRIMARY_FIRST);
+    }
+
+    /**
+     * @param rosServiceName      the graph name of the service to call
+     * @param rosNodeName         the graph name of the ROS node itself
+     * @param replicaServiceNames graph names of replica servers of the same service type; they are
+     *                            used as soon as they register and dropped while they are unreachable
+     * @param policy              how calls are spread over the service and its replicas
+     */
+    public ROSJavaClientNodeMain(final String rosServiceName, final String rosNodeName, final List<String> replicaServiceNames,
+                                 final ManagedServiceClient.Policy policy) {
         this.rosServiceName = rosServiceName;
         this.rosNodeName = rosNodeName;
+        this.replicaServiceNames = List.copyOf(replicaServiceNames);
+        this.policy = policy;
     }
 
     /**
@@ -74,9 +121,9 @@ public final class ROSJavaClientNodeMain extends AbstractNodeMain {
     /**
      * Create the service client and start making periodic example calls.
      *
-     * <p>The key rosjava call is {@link ConnectedNode#newServiceClient(String, String)}.
-     * After the client is created, every call uses a new request message produced by
-     * {@link ServiceClient#newMessage()}.
+     * <p>The key rosjava call is {@link ConnectedNode#newServiceClient(String, String)}, which the
+     * {@link ManagedServiceClient} makes for the service and every replica. Every call uses a
+     * new request message produced by {@link org.ros.node.service.ServiceClient#newMessage()}.
      *
      * @param connectedNode the connected rosjava node handle
      */
@@ -84,50 +131,119 @@ public final class ROSJavaClientNodeMain extends AbstractNodeMain {
     public final void onStart(final ConnectedNode connectedNode) {
         final var log = connectedNode.getLog();
 
-        try {
-            // Create a client for the AddTwoInts ROS service type.
-            final ServiceClient<AddTwoIntsRequest, AddTwoIntsResponse> serviceClient =
-                    connectedNode.newServiceClient(this.rosServiceName, AddTwoInts._TYPE);
+        // Count calls and failures, and measure the round trip of every call.
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter calls = this.metrics.counter("ros_service_calls_total", "Service calls sent", "service", this.rosServiceName);
+        final MetricsRegistry.Counter failures = this.metrics.counter("ros_service_call_failures_total", "Service calls that failed", "service", this.rosServiceName);
+        final MetricsRegistry.Histogram callLatency = this.metrics.histogram("ros_service_call_latency_seconds", "Service call round trip", "service", this.rosServiceName);
+        final ShutdownCoordinator.InFlight callsInFlight = this.callsInFlight;
+        this.metrics.gauge("ros_service_calls_in_flight", "Service calls waiting for a response", callsInFlight::get, "service", this.rosServiceName);
 
-            // The response arrives asynchronously, so rosjava requires a response listener.
-            final ServiceResponseListener<AddTwoIntsResponse> responseListener = new ServiceResponseListener<>() {
-                @Override
-                public final void onSuccess(final AddTwoIntsResponse response) {
-                    log.info("Service client: Sum = " + response.getSum());
-                }
+        // The managed client reconnects on its own and balances the calls over the connected replicas.
+        final List<String> serviceNames = new ArrayList<>();
+        serviceNames.add(this.rosServiceName);
+        serviceNames.addAll(this.replicaServiceNames);
+        final ManagedServiceClient<AddTwoIntsRequest, AddTwoIntsResponse> managedClient =
+                new ManagedServiceClient<>(connectedNode, AddTwoInts._TYPE, serviceNames, this.policy, this.metrics);
+        this.serviceClient = managedClient;
 
-                @Override
-                public final void onFailure(final RemoteException exception) {
-                    log.error(exception.getMessage());
+        // Run the example call repeatedly so the interaction stays visible in the logs.
+        connectedNode.executeCancellableLoop(new CancellableLoop() {
+            @Override
+            protected final void loop() throws InterruptedException {
+                if (!managedClient.isConnected()) {
+                    log.debug("Service client: Not Connected");
+                    Thread.sleep(CALL_INTERVAL_MILLIS);
+                    return;
+                }
+                // Once shutdown has started, only the calls already sent are waited for.
+                if (!callsInFlight.tryEnter()) {
+                    Thread.sleep(CALL_INTERVAL_MILLIS);
+                    return;
                 }
-            };
 
-            // Run the example call repeatedly so the interaction stays visible in the logs.
+                // The response arrives asynchronously. The future fails if it does not arrive before the deadline.
+                log.info("Service client: Calling 1 + 2");
+                final long startNanos = System.nanoTime();
+                final RosFlightEvents.ServiceCall event = new RosFlightEvents.ServiceCall();
+                event.begin();
+                calls.increment();
+                final CompletableFuture<AddTwoIntsResponse> call;
+                try {
+                    call = managedClient.call(
+                            request -> {
+                                // Fill the request payload of the fresh request message.
+                                request.setA(1);
+                                request.setB(2);
+                            },
+                            CALL_TIMEOUT_MILLIS,
+                            TimeUnit.MILLISECONDS
+                    );
+                } catch (final RuntimeException exception) {
+                    // The call never left, so nothing will complete it; release its in-flight slot here or shutdown would wait for it.
+                    callsInFlight.exit();
+                    failures.increment();
+                    ROSJavaClientNodeMain.commitServiceCall(event, ROSJavaClientNodeMain.this.rosServiceName, false);
+                    log.error("Service client: Call could not be sent. " + exception.getMessage());
+                    Thread.sleep(CALL_INTERVAL_MILLIS);
+                    return;
+                }
+                call.whenComplete((response, failure) -> {
+                    callsInFlight.exit();
+                    if (failure == null) {
+                        callLatency.recordSince(startNanos);
+                        ROSJavaClientNodeMain.commitServiceCall(event, ROSJavaClientNodeMain.this.rosServiceName, true);
+                        log.info("Service client: Sum = " + response.getSum());
+                    } else {
+                        failures.increment();
+                        ROSJavaClientNodeMain.commitServiceCall(event, ROSJavaClientNodeMain.this.rosServiceName, false);
+                        log.error("Service client: Call failed. " + failure.getMessage());
+                    }
+                });
 
-            connectedNode.executeCancellableLoop(new CancellableLoop() {
-                @Override
-                protected final void loop() throws InterruptedException {
-                    // Create a fresh request message for the service call.
-                    final AddTwoIntsRequest request = serviceClient.newMessage();
+                // Slow the loop down so the logs remain readable.
+                Thread.sleep(CALL_INTERVAL_MILLIS);
+            }
+        });
+    }
 
-                    // Fill the request payload.
-                    request.setA(1);
-                    request.setB(2);
+    /**
+     * Close the service connections and release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.serviceClient != null) {
+            this.serviceClient.close();
+            this.serviceClient = null;
+        }
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
 
-                    // Invoke the ROS service asynchronously if connected, otherwise skip the call
-                    log.info("Service client: Calling 1 + 2");
-                    if (serviceClient.isConnected()) {
-                        serviceClient.call(request, responseListener);
-                    } else {
-                        log.debug("Service client: Not Connected");
-                    }
+    /**
+     * @return the shutdown participant that stops new calls and waits for the responses of the sent ones
+     */
+    final ShutdownCoordinator.Participant getShutdownParticipant() {
+        return this.callsInFlight;
+    }
 
-                    // Slow the loop down so the logs remain readable.
-                    Thread.sleep(CALL_INTERVAL_MILLIS);
-                }
-            });
-        } catch (final ServiceNotFoundException exception) {
-            throw new RosRuntimeException(exception);
+    /**
+     * End the flight recorder event of one service call when its response or failure arrives.
+     *
+     * @param event          the event that began when the request was sent
+     * @param rosServiceName the called service
+     * @param succeeded      whether the call returned a response
+     */
+    private static final void commitServiceCall(final RosFlightEvents.ServiceCall event, final String rosServiceName, final boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.service = rosServiceName;
+            event.succeeded = succeeded;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A documented example of consuming and producing ROS topics through {@link java.util.concurrent.Flow}.
+ *
+ * <p>The node wraps a rosjava {@link Subscriber} in a {@link RosFlowPublisher} and attaches two
+ * consumers that run at different rates:
+ * <ul>
+ *     <li>a slow consumer that requests one message at a time and takes a few seconds for each; its
+ *     small buffer drops the oldest messages, so it always works on recent data,</li>
+ *     <li>a {@link RosFlowSubscriber} that republishes every message to another topic as fast as it
+ *     arrives.</li>
+ * </ul>
+ * The slow consumer does not slow down the republishing, and neither one blocks rosjava.
+ *
+ * @author Spyros Koukas
+ */
+final class ROSJavaFlowNodeMain extends AbstractNodeMain {
+    /**
+     * Messages buffered for each consumer.
+     */
+    private static final int BUFFER_CAPACITY = 4;
+
+    /**
+     * How long the slow consumer takes per message.
+     */
+    private static final long SLOW_CONSUMER_INTERVAL_MILLIS = 3_000;
+
+    /**
+     * Longest part of a consumed payload that is written to the log.
+     */
+    private static final int LOGGED_PAYLOAD_CHARS = 64;
+
+    /**
+     * Items the republishing consumer may request ahead.
+     */
+    private static final int REPUBLISH_PREFETCH = 16;
+
+    private final String rosTopicName;
+    private final String rosRepublishTopicName;
+    private final String rosNodeName;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * The Flow view of the subscribed topic, created in {@link #onStart(ConnectedNode)}.
+     */
+    private RosFlowPublisher<std_msgs.String> flowPublisher;
+
+    /**
+     * @param rosTopicName          the graph name of the topic to subscribe to
+     * @param rosRepublishTopicName the graph name of the topic to republish to
+     * @param rosNodeName           the graph name of the ROS node itself
+     */
+    ROSJavaFlowNodeMain(final String rosTopicName, final String rosRepublishTopicName, final String rosNodeName) {
+        this.rosTopicName = rosTopicName;
+        this.rosRepublishTopicName = rosRepublishTopicName;
+        this.rosNodeName = rosNodeName;
+    }
+
+    /**
+     * rosjava asks every {@link org.ros.node.NodeMain} for its default ROS graph name.
+     */
+    @Override
+    public final GraphName getDefaultNodeName() {
+        return GraphName.of(this.rosNodeName);
+    }
+
+    /**
+     * Create the Flow adapters and subscribe the two consumers.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    @Override
+    public final void onStart(final ConnectedNode connectedNode) {
+        final var log = connectedNode.getLog();
+        final ScheduledExecutorService executor = connectedNode.getScheduledExecutorService();
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+
+        // Deliveries to the consumers run on the node executor, never on the rosjava I/O thread.
+        final Subscriber<std_msgs.String> subscriber = connectedNode.newSubscriber(this.rosTopicName, std_msgs.String._TYPE);
+        final RosFlowPublisher<std_msgs.String> topic = new RosFlowPublisher<>(
+                subscriber, this.rosTopicName, BUFFER_CAPACITY, RosFlowPublisher.OverflowPolicy.DROP_OLDEST, executor, this.metrics);
+        this.flowPublisher = topic;
+
+        // The slow consumer asks for the next message only when it is done with the current one.
+        topic.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public final void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public final void onNext(final std_msgs.String message) {
+                final String data = message.getData();
+                log.info("Flow slow consumer: " + (data.length() <= LOGGED_PAYLOAD_CHARS ? data : data.substring(0, LOGGED_PAYLOAD_CHARS) + "..."));
+                executor.schedule(() -> this.subscription.request(1), SLOW_CONSUMER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public final void onError(final Throwable throwable) {
+                log.error("Flow slow consumer: Failed", throwable);
+            }
+
+            @Override
+            public final void onComplete() {
+                log.info("Flow slow consumer: Done");
+            }
+        });
+
+        // The republishing consumer keeps up with the topic.
+        final Publisher<std_msgs.String> publisher = connectedNode.newPublisher(this.rosRepublishTopicName, std_msgs.String._TYPE);
+        topic.subscribe(new RosFlowSubscriber<std_msgs.String, std_msgs.String>(
+                publisher, this.rosRepublishTopicName, (out, in) -> out.setData(in.getData()), REPUBLISH_PREFETCH, this.metrics));
+        log.info("Created Flow adapters for [" + this.rosTopicName + "] with " + topic.getSubscriberCount() + " consumers");
+    }
+
+    /**
+     * Complete the Flow consumers and release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.flowPublisher != null) {
+            this.flowPublisher.complete();
+            this.flowPublisher = null;
+        }
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
+}
@@ -20,8 +20,13 @@ import org.ros.concurrent.CancellableLoop;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.RosLog;
 import org.ros.node.topic.Publisher;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A documented ROS publisher example.
  *
@@ -29,13 +34,19 @@ import org.ros.node.topic.Publisher;
  * create a {@link Publisher}, create a message with {@code newMessage()},
  * fill the message payload, and publish it periodically.
  *
+ * <p>The loop publishes on a fixed schedule and records how late it wakes up for each message in
+ * {@code ros_topic_publish_wakeup_lateness_seconds}. By default it runs as a rosjava
+ * {@link CancellableLoop} that sleeps between messages. If the topic is listed in {@link HotTopics}, it
+ * runs on a dedicated thread that busy-spins until the next message is due instead, and the same
+ * metric, labelled by mode, shows what that buys.
+ *
  * @author Spyros Koukas
  */
 public final class ROSJavaPublisherNodeMain extends AbstractNodeMain {
     /**
-     * Delay between successive example publishes.
+     * Default delay between successive example publishes.
      */
-    private static final long PUBLISH_INTERVAL_MILLIS = 1_000;
+    static final long DEFAULT_PUBLISH_INTERVAL_MILLIS = 1_000;
 
     /**
      * ROS topic graph name where messages will be published.
@@ -47,13 +58,89 @@ public final class ROSJavaPublisherNodeMain extends AbstractNodeMain {
      */
     private final String rosNodeName;
 
+    /**
+     * Reduced-rate lanes published next to the full-rate topic.
+     */
+    private final List<DecimatedPublisher.Lane> lanes;
+
+    /**
+     * Delay between successive publishes.
+     */
+    private final long publishIntervalNanos;
+
+    /**
+     * Size every message is padded to, or 0 for the bare counter text.
+     */
+    private final int payloadBytes;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * Publish in progress. Closed when a coordinated shutdown starts, which stops the publishing loop.
+     */
+    private final ShutdownCoordinator.InFlight publishing = new ShutdownCoordinator.InFlight();
+
+    /**
+     * How the loop waits for the next message, decided in {@link #onStart(ConnectedNode)}.
+     */
+    private HotTopics.Mode mode = HotTopics.Mode.DEFAULT;
+
+    /**
+     * The spinning loop thread of a hot topic; {@code null} in the default mode.
+     */
+    private Thread spinningThread;
+
+    /**
+     * Cleared when the node shuts down, which ends the spinning loop.
+     */
+    private volatile boolean spinning;
+
+    /**
+     * Wakeup lateness of the loop, kept for the summary logged on shutdown.
+     */
+    private MetricsRegistry.Histogram wakeupLateness;
+
     /**
      * @param rosTopicName the graph name of the topic to publish to
      * @param rosNodeName  the graph name of the ROS node itself
      */
     public ROSJavaPublisherNodeMain(final String rosTopicName, final String rosNodeName) {
+        this(rosTopicName, rosNodeName, List.of());
+    }
+
+    /**
+     * @param rosTopicName the graph name of the topic to publish to
+     * @param rosNodeName  the graph name of the ROS node itself
+     * @param lanes        reduced-rate lanes, each published on its own sub-topic for subscribers that need fewer messages
+     */
+    public ROSJavaPublisherNodeMain(final String rosTopicName, final String rosNodeName, final List<DecimatedPublisher.Lane> lanes) {
+        this(rosTopicName, rosNodeName, lanes, DEFAULT_PUBLISH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, 0);
+    }
+
+    /**
+     * @param rosTopicName    the graph name of the topic to publish to
+     * @param rosNodeName     the graph name of the ROS node itself
+     * @param lanes           reduced-rate lanes, each published on its own sub-topic for subscribers that need fewer messages
+     * @param publishInterval delay between successive publishes
+     * @param timeUnit        unit of the interval
+     * @param payloadBytes    size every message is padded to, or 0 to send just the counter text
+     */
+    public ROSJavaPublisherNodeMain(final String rosTopicName, final String rosNodeName, final List<DecimatedPublisher.Lane> lanes,
+                                    final long publishInterval, final TimeUnit timeUnit, final int payloadBytes) {
+        if (publishInterval <= 0) {
+            throw new IllegalArgumentException("publishInterval must be positive but was " + publishInterval);
+        }
+        if (payloadBytes < 0) {
+            throw new IllegalArgumentException("payloadBytes must not be negative but was " + payloadBytes);
+        }
         this.rosTopicName = rosTopicName;
         this.rosNodeName = rosNodeName;
+        this.lanes = List.copyOf(lanes);
+        this.publishIntervalNanos = timeUnit.toNanos(publishInterval);
+        this.payloadBytes = payloadBytes;
     }
 
     /**
@@ -69,34 +156,180 @@ public final class ROSJavaPublisherNodeMain extends AbstractNodeMain {
      *
      * <p>The key rosjava call is {@link ConnectedNode#newPublisher(String, String)}.
      * The publisher then creates messages with {@link Publisher#newMessage()}.
+     * Here the publishers are owned by a {@link DecimatedPublisher}, which also feeds the reduced-rate lanes
+     * and skips building the message when no topic has a subscriber that is due one.
      *
      * @param connectedNode the connected rosjava node handle
      */
     @Override
     public final void onStart(final ConnectedNode connectedNode) {
-        // Create the publisher for the standard std_msgs/String topic type.
-        final Publisher<std_msgs.String> publisher = connectedNode.newPublisher(this.rosTopicName, std_msgs.String._TYPE);
         final var log = connectedNode.getLog();
 
+        // Count every published message and its payload size; the decimated publisher counts per topic.
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter publishedBytes = this.metrics.counter("ros_topic_bytes_published_total", "Payload bytes published", "topic", this.rosTopicName);
+
+        // Create the publishers for the standard std_msgs/String topic type: the full-rate topic and one per lane.
+        final DecimatedPublisher<std_msgs.String> publisher =
+                new DecimatedPublisher<>(connectedNode, this.rosTopicName, std_msgs.String._TYPE, this.lanes, this.metrics);
+        log.info("Publishing on " + publisher.getTopicNames());
+
+        // A hot topic gets its own spinning thread, if one is left; every other topic sleeps between messages.
+        this.mode = HotTopics.getDefault().acquire(this.rosTopicName);
+        if (this.mode == HotTopics.Mode.DEFAULT && HotTopics.getDefault().isHot(this.rosTopicName)) {
+            log.warn("Publisher: No spinning thread left for hot topic [" + this.rosTopicName + "], " + HotTopics.getDefault());
+        }
+        final HotTopics.Mode loopMode = this.mode;
+        final MetricsRegistry.Histogram lateness = this.metrics.histogram("ros_topic_publish_wakeup_lateness_seconds",
+                "How late the publishing loop woke up for its next message", "topic", this.rosTopicName, "mode", loopMode.label());
+        this.wakeupLateness = lateness;
+
         // Publish one message repeatedly so the subscriber has a steady stream to receive.
-        connectedNode.executeCancellableLoop(new CancellableLoop() {
-            private int counter;
+        final PublishingLoop loop = new PublishingLoop(publisher, log, publishedBytes, loopMode, lateness);
+        if (loopMode == HotTopics.Mode.BUSY_SPIN) {
+            this.spinning = true;
+            this.spinningThread = ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.SPIN, "rosjava-spin-publisher").newThread(() -> {
+                try {
+                    while (this.spinning) {
+                        loop.tick();
+                    }
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            this.spinningThread.start();
+        } else {
+            connectedNode.executeCancellableLoop(new CancellableLoop() {
+                @Override
+                protected final void loop() throws InterruptedException {
+                    loop.tick();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the shutdown participant that stops the publishing loop after the message being published
+     */
+    final ShutdownCoordinator.Participant getShutdownParticipant() {
+        return this.publishing;
+    }
+
+    /**
+     * Stop the spinning loop, if any, log the wakeup lateness, and release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        this.spinning = false;
+        if (this.spinningThread != null) {
+            this.spinningThread.interrupt();
+            this.spinningThread = null;
+        }
+        HotTopics.getDefault().release(this.mode);
+        if (this.wakeupLateness != null) {
+            node.getLog().info("Publisher: [" + this.rosTopicName + "] " + this.mode.label() + " wakeup lateness " + this.wakeupLateness.summary());
+            this.wakeupLateness = null;
+        }
+        this.mode = HotTopics.Mode.DEFAULT;
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
+
+    /**
+     * The publishing loop, run either by rosjava as a {@link CancellableLoop} or by a spinning thread.
+     */
+    private final class PublishingLoop {
+        private final DecimatedPublisher<std_msgs.String> publisher;
+        private final RosLog log;
+        private final MetricsRegistry.Counter publishedBytes;
+        private final HotTopics.Mode mode;
+        private final MetricsRegistry.Histogram lateness;
+        private int counter;
+        private long deadlineNanos = System.nanoTime();
+        private long nextInfoLogNanos = System.nanoTime();
 
-            @Override
-            protected final void loop() throws InterruptedException {
-                // Create a blank ROS message from the publisher.
-                final std_msgs.String message = publisher.newMessage();
+        private PublishingLoop(final DecimatedPublisher<std_msgs.String> publisher, final RosLog log, final MetricsRegistry.Counter publishedBytes,
+                               final HotTopics.Mode mode, final MetricsRegistry.Histogram lateness) {
+            this.publisher = publisher;
+            this.log = log;
+            this.publishedBytes = publishedBytes;
+            this.mode = mode;
+            this.lateness = lateness;
+        }
 
-                // Fill the message payload.
-                message.setData("Hello " + counter++);
+        /**
+         * Publish the next message, if the node still accepts work, and wait until the one after it is due.
+         *
+         * @throws InterruptedException if the thread is interrupted while waiting
+         */
+        private final void tick() throws InterruptedException {
+            if (ROSJavaPublisherNodeMain.this.publishing.tryEnter()) {
+                try {
+                    this.publishOne();
+                } finally {
+                    ROSJavaPublisherNodeMain.this.publishing.exit();
+                }
+            }
+
+            // Slow the loop down so the example logs stay readable. The schedule is fixed, so the
+            // lateness of each wakeup is measured against when it was due, not when the wait started.
+            this.deadlineNanos += ROSJavaPublisherNodeMain.this.publishIntervalNanos;
+            HotTopics.awaitDeadline(this.mode, this.deadlineNanos);
+            final long lateNanos = System.nanoTime() - this.deadlineNanos;
+            this.lateness.record(lateNanos);
+            if (lateNanos > ROSJavaPublisherNodeMain.this.publishIntervalNanos) {
+                // After a long stall, such as a GC pause, start a new schedule instead of publishing a burst.
+                this.deadlineNanos = System.nanoTime();
+            }
+        }
+
+        private final void publishOne() {
+            final String text = HotTopics.stampSent("Hello " + this.counter++);
+            final String data = this.pad(text);
 
-                // Publish the message to the ROS topic.
-                publisher.publish(message);
-                log.info("Publisher: " + message.getData());
+            // Publish the message to the ROS topics that are due one. The blank message is only
+            // created with newMessage() and filled if at least one of them has a subscriber.
+            final RosFlightEvents.TopicPublish event = new RosFlightEvents.TopicPublish();
+            event.begin();
+            final std_msgs.String message = this.publisher.publish(blank -> blank.setData(data));
+            event.end();
+            if (message == null) {
+                this.log.debug("Publisher: No subscriber for " + text);
+                return;
+            }
+            final int payloadBytes = MetricsRegistry.utf8Length(data);
+            if (event.shouldCommit()) {
+                event.topic = ROSJavaPublisherNodeMain.this.rosTopicName;
+                event.payloadBytes = payloadBytes;
+                event.commit();
+            }
+            this.publishedBytes.add(payloadBytes);
+            final long nowNanos = System.nanoTime();
+            if (nowNanos - this.nextInfoLogNanos >= 0) {
+                this.nextInfoLogNanos = nowNanos + HotTopics.MESSAGE_LOG_INTERVAL_NANOS;
+                this.log.info("Publisher: " + (data.length() == text.length() ? text : text + " (" + payloadBytes + " bytes)"));
+            } else if (this.log.isDebugEnabled()) {
+                this.log.debug("Publisher: " + (data.length() == text.length() ? text : text + " (" + payloadBytes + " bytes)"));
+            }
+        }
 
-                // Slow the loop down so the example logs stay readable.
-                Thread.sleep(PUBLISH_INTERVAL_MILLIS);
+        /**
+         * @return the text padded to the configured payload size, or the text itself if no size is configured
+         */
+        private final String pad(final String text) {
+            final int size = ROSJavaPublisherNodeMain.this.payloadBytes;
+            if (size <= text.length()) {
+                return text;
+            }
+            final StringBuilder padded = new StringBuilder(size).append(text).append(' ');
+            while (padded.length() < size) {
+                padded.append('.');
             }
-        });
+            return padded.toString();
+        }
     }
 }
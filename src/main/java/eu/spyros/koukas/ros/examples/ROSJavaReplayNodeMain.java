@@ -0,0 +1,264 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.concurrent.CancellableLoop;
+import org.ros.exception.RosRuntimeException;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.RosLog;
+import org.ros.node.topic.Publisher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A ROS node that replays a {@link TopicMessageLog} file on the topics the messages were recorded from.
+ *
+ * <p>The replay keeps the recorded spacing between messages and scales it by a rate factor:
+ * {@code 1.0} replays in real time, {@code 10.0} replays ten times faster, and any value
+ * {@code <= 0} ({@link #AS_FAST_AS_POSSIBLE}) ignores the recorded timing entirely.
+ *
+ * <p>The log is memory-mapped, so message payloads are decoded straight from the page cache into
+ * the outgoing ROS message without an intermediate copy.
+ * Only {@code std_msgs/String} records can be republished; records of other types are skipped and counted.
+ *
+ * @author Spyros Koukas
+ */
+public final class ROSJavaReplayNodeMain extends AbstractNodeMain {
+    /**
+     * Rate value that disables pacing and publishes the log as fast as possible.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0.0;
+
+    /**
+     * How long to wait for every replayed topic to have at least one subscriber before the replay starts.
+     * Messages published before a subscriber connects would otherwise be lost.
+     */
+    private static final long SUBSCRIBER_CONNECTION_TIMEOUT_MILLIS = 5_000L;
+
+    /**
+     * Poll interval used while waiting for subscribers.
+     */
+    private static final long SUBSCRIBER_POLL_INTERVAL_MILLIS = 50L;
+
+    /**
+     * The recorded log to replay.
+     */
+    private final Path logFile;
+
+    /**
+     * ROS node name for this replay node.
+     */
+    private final String rosNodeName;
+
+    /**
+     * Factor applied to the recorded message spacing. Values {@code <= 0} disable pacing.
+     */
+    private final double rate;
+
+    /**
+     * Released when the replay has published the last record, failed, or was cancelled.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@link #onShutdown(Node)}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * @param logFile     the recorded log to replay
+     * @param rosNodeName the graph name of the ROS node itself
+     * @param rate        replay speed factor; {@code 1.0} is real time, values {@code <= 0} replay as fast as possible
+     */
+    public ROSJavaReplayNodeMain(final Path logFile, final String rosNodeName, final double rate) {
+        this.logFile = logFile;
+        this.rosNodeName = rosNodeName;
+        this.rate = rate;
+    }
+
+    /**
+     * rosjava asks every {@link org.ros.node.NodeMain} for its default ROS graph name.
+     */
+    @Override
+    public final GraphName getDefaultNodeName() {
+        return GraphName.of(this.rosNodeName);
+    }
+
+    /**
+     * Map the log, advertise one publisher per recorded topic, and start the replay loop.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    @Override
+    public final void onStart(final ConnectedNode connectedNode) {
+        final RosLog log = connectedNode.getLog();
+        final TopicMessageLog.Reader reader;
+        final Map<String, Publisher<std_msgs.String>> publishers = new HashMap<>();
+        try {
+            reader = new TopicMessageLog.Reader(this.logFile);
+
+            // Pre-scan the record headers so every publisher exists before the first message is replayed.
+            while (reader.hasNext()) {
+                final TopicMessageLog.Entry entry = reader.next();
+                if (std_msgs.String._TYPE.equals(entry.messageType())) {
+                    publishers.computeIfAbsent(entry.topicName(), topicName -> connectedNode.newPublisher(topicName, std_msgs.String._TYPE));
+                }
+            }
+            reader.rewind();
+        } catch (final IOException exception) {
+            this.finished.countDown();
+            throw new RosRuntimeException(exception);
+        }
+        log.info("Replay: Replaying [" + this.logFile + "] on " + publishers.keySet() + " at rate " + this.describeRate());
+
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter publishedCounter = this.metrics.counter("ros_replay_messages_published_total", "Recorded messages replayed");
+        final MetricsRegistry.Histogram scheduleLag = this.metrics.histogram("ros_replay_schedule_lag_seconds", "How far behind the scaled recorded schedule messages are replayed");
+
+        connectedNode.executeCancellableLoop(new CancellableLoop() {
+            private long firstTimestampNanos;
+            private long replayStartNanos;
+            private long published;
+            private long skipped;
+            private long maxLagNanos;
+
+            @Override
+            protected final void setup() {
+                ROSJavaReplayNodeMain.awaitSubscribers(publishers);
+                this.replayStartNanos = System.nanoTime();
+            }
+
+            @Override
+            protected final void loop() throws InterruptedException {
+                if (!reader.hasNext()) {
+                    log.info("Replay: Finished. Published " + this.published + " messages, skipped " + this.skipped
+                            + ", max lag behind schedule " + TimeUnit.NANOSECONDS.toMicros(this.maxLagNanos) + " us");
+                    ROSJavaReplayNodeMain.this.finished.countDown();
+                    this.cancel();
+                    return;
+                }
+
+                final TopicMessageLog.Entry entry;
+                try {
+                    entry = reader.next();
+                } catch (final IOException exception) {
+                    log.error("Replay: Stopping early. " + exception.getMessage());
+                    ROSJavaReplayNodeMain.this.finished.countDown();
+                    this.cancel();
+                    return;
+                }
+
+                final Publisher<std_msgs.String> publisher = publishers.get(entry.topicName());
+                if (publisher == null) {
+                    this.skipped++;
+                    return;
+                }
+
+                if (this.published == 0) {
+                    this.firstTimestampNanos = entry.timestampNanos();
+                }
+                final long lagNanos = this.awaitSchedule(entry.timestampNanos() - this.firstTimestampNanos);
+                this.maxLagNanos = Math.max(this.maxLagNanos, lagNanos);
+                scheduleLag.record(lagNanos);
+
+                // Decode straight from the mapped file into the outgoing message.
+                final std_msgs.String message = publisher.newMessage();
+                message.setData(StandardCharsets.UTF_8.decode(entry.payload()).toString());
+                publisher.publish(message);
+                this.published++;
+                publishedCounter.increment();
+            }
+
+            /**
+             * Park until the scaled recorded offset has elapsed since the replay started.
+             *
+             * @param recordedOffsetNanos offset of the current record from the first record
+             * @return how far behind schedule the record is published, in nanoseconds
+             */
+            private final long awaitSchedule(final long recordedOffsetNanos) throws InterruptedException {
+                if (ROSJavaReplayNodeMain.this.rate <= 0) {
+                    return 0L;
+                }
+                final long dueNanos = this.replayStartNanos + (long) (Math.max(0L, recordedOffsetNanos) / ROSJavaReplayNodeMain.this.rate);
+                long remainingNanos = dueNanos - System.nanoTime();
+                while (remainingNanos > 0) {
+                    // parkNanos gives finer resolution than Thread.sleep for high replay rates.
+                    LockSupport.parkNanos(remainingNanos);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    remainingNanos = dueNanos - System.nanoTime();
+                }
+                return -remainingNanos;
+            }
+        });
+    }
+
+    /**
+     * Release the metrics of this node.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
+
+    /**
+     * Wait until the replay has published every record.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit unit of the timeout
+     * @return {@code true} if the replay finished before the timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public final boolean awaitFinished(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        return this.finished.await(timeout, timeUnit);
+    }
+
+    /**
+     * Give subscribers a bounded amount of time to connect so the first records are not dropped.
+     *
+     * @param publishers the replay publishers keyed by topic
+     */
+    private static final void awaitSubscribers(final Map<String, Publisher<std_msgs.String>> publishers) {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SUBSCRIBER_CONNECTION_TIMEOUT_MILLIS);
+        while (System.nanoTime() < deadlineNanos && !publishers.values().stream().allMatch(Publisher::hasSubscribers)) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SUBSCRIBER_POLL_INTERVAL_MILLIS));
+        }
+    }
+
+    /**
+     * @return a readable description of the configured replay rate
+     */
+    private final String describeRate() {
+        return this.rate <= 0 ? "as fast as possible" : this.rate + "x";
+    }
+}
@@ -16,9 +16,11 @@
  */
 package eu.spyros.koukas.ros.examples;
 
+import org.ros.exception.ServiceException;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
 import org.ros.node.service.CountDownServiceServerListener;
 import org.ros.node.service.ServiceServer;
 import rosjava_test_msgs.AddTwoInts;
@@ -48,6 +50,11 @@ public final class ROSJavaServerNodeMain extends AbstractNodeMain {
      */
     private final String rosNodeName;
 
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
     /**
      * Listener used by the demo launcher to block until the service is fully registered.
      * This avoids a race where the client starts before the ROS master knows about the service.
@@ -55,6 +62,11 @@ public final class ROSJavaServerNodeMain extends AbstractNodeMain {
     private final CountDownServiceServerListener<AddTwoIntsRequest, AddTwoIntsResponse> registrationListener =
             CountDownServiceServerListener.newDefault();
 
+    /**
+     * Requests being handled. Closed when a coordinated shutdown starts.
+     */
+    private final ShutdownCoordinator.InFlight inFlightRequests = new ShutdownCoordinator.InFlight();
+
     /**
      * @param rosServiceName the graph name of the service to advertise
      * @param rosNodeName    the graph name of the ROS node itself
@@ -82,16 +94,39 @@ public final class ROSJavaServerNodeMain extends AbstractNodeMain {
      */
     @Override
     public final void onStart(final ConnectedNode connectedNode) {
+        // Count requests and measure how long the response callback takes.
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter requests = this.metrics.counter("ros_service_requests_total", "Service requests handled", "service", this.rosServiceName);
+        final MetricsRegistry.Histogram handlerLatency = this.metrics.histogram("ros_service_handler_latency_seconds", "Service response callback duration", "service", this.rosServiceName);
+        this.metrics.gauge("ros_service_requests_in_flight", "Service requests being handled", this.inFlightRequests::get, "service", this.rosServiceName);
+
         // Create the service server for the AddTwoInts ROS service type.
         final ServiceServer<AddTwoIntsRequest, AddTwoIntsResponse> serviceServer = connectedNode.newServiceServer(
                 this.rosServiceName,
                 AddTwoInts._TYPE,
                 (request, response) -> {
-                    // The generated ROS request object already contains the incoming values.
-                    response.setSum(request.getA() + request.getB());
+                    // A server that is shutting down refuses new requests, so the client fails over to a replica.
+                    if (!this.inFlightRequests.tryEnter()) {
+                        throw new ServiceException("Service [" + this.rosServiceName + "] is shutting down");
+                    }
+                    try {
+                        final long startNanos = System.nanoTime();
+                        final RosFlightEvents.ServiceHandle event = new RosFlightEvents.ServiceHandle();
+                        event.begin();
 
-                    // Log the request and the produced response for demonstration purposes.
-                    connectedNode.getLog().info("Service server: " + request.getA() + " + " + request.getB() + " = " + response.getSum());
+                        // rosjava sends the response when this callback returns, so the handler runs on the
+                        // connection thread that received the request.
+                        this.handle(connectedNode, request, response);
+                        requests.increment();
+                        handlerLatency.recordSince(startNanos);
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.service = this.rosServiceName;
+                            event.commit();
+                        }
+                    } finally {
+                        this.inFlightRequests.exit();
+                    }
                 }
         );
 
@@ -100,6 +135,41 @@ public final class ROSJavaServerNodeMain extends AbstractNodeMain {
         connectedNode.getLog().info("Created service server [" + serviceServer.getName() + "]");
     }
 
+    /**
+     * The service handler itself.
+     *
+     * @param connectedNode the connected rosjava node handle
+     * @param request       the incoming request
+     * @param response      the response to fill
+     */
+    private final void handle(final ConnectedNode connectedNode, final AddTwoIntsRequest request, final AddTwoIntsResponse response) {
+        // The generated ROS request object already contains the incoming values.
+        response.setSum(request.getA() + request.getB());
+
+        // Log the request and the produced response for demonstration purposes.
+        connectedNode.getLog().info("Service server: " + request.getA() + " + " + request.getB() + " = " + response.getSum());
+    }
+
+    /**
+     * Release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
+
+    /**
+     * @return the shutdown participant that refuses new requests and drains the ones being handled
+     */
+    final ShutdownCoordinator.Participant getShutdownParticipant() {
+        return this.inFlightRequests;
+    }
+
     /**
      * Wait until the ROS master confirms that the service has been registered.
      *
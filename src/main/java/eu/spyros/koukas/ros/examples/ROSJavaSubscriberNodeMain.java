@@ -16,11 +16,16 @@
  */
 package eu.spyros.koukas.ros.examples;
 
+import org.ros.message.MessageListener;
 import org.ros.namespace.GraphName;
 import org.ros.node.AbstractNodeMain;
 import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.RosLog;
 import org.ros.node.topic.Subscriber;
 
+import java.util.function.Consumer;
+
 /**
  * A documented ROS subscriber example.
  *
@@ -28,6 +33,9 @@ import org.ros.node.topic.Subscriber;
  * create a {@link Subscriber} for a topic and register a message listener that is called
  * every time a new message arrives.
  *
+ * <p>If the topic is listed in {@link HotTopics}, the messages are processed on a
+ * {@link SpinningConsumer} thread instead of the rosjava callback thread, for the lowest wakeup latency.
+ *
  * @author Spyros Koukas
  */
 public final class ROSJavaSubscriberNodeMain extends AbstractNodeMain {
@@ -41,13 +49,67 @@ public final class ROSJavaSubscriberNodeMain extends AbstractNodeMain {
      */
     private final String rosNodeName;
 
+    /**
+     * Messages rosjava buffers for the listener before it drops the oldest, or 0 for the rosjava default.
+     */
+    private final int queueSize;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * How messages are processed, decided in {@link #onStart(ConnectedNode)}.
+     */
+    private HotTopics.Mode mode = HotTopics.Mode.DEFAULT;
+
+    /**
+     * Processes the messages of a hot topic; {@code null} in the default mode.
+     */
+    private SpinningConsumer<std_msgs.String> spinningConsumer;
+
+    /**
+     * Messages buffered for the spinning consumer of a hot topic.
+     */
+    private static final int SPINNING_CONSUMER_CAPACITY = 1_024;
+
+    /**
+     * Longest part of a received payload that is written to the log.
+     */
+    private static final int LOGGED_PAYLOAD_CHARS = 64;
+
+    /**
+     * When the next received message may be logged at info level. Only the thread that processes the
+     * messages reads and writes it.
+     */
+    private long nextInfoLogNanos = System.nanoTime();
+
+    /**
+     * Send stamp to start of processing, in the mode of this node; {@code null} until the node starts.
+     */
+    private MetricsRegistry.Histogram deliveryLatency;
+
     /**
      * @param rosTopicName the graph name of the topic to subscribe to
      * @param rosNodeName  the graph name of the ROS node itself
      */
     public ROSJavaSubscriberNodeMain(final String rosTopicName, final String rosNodeName) {
+        this(rosTopicName, rosNodeName, 0);
+    }
+
+    /**
+     * @param rosTopicName the graph name of the topic to subscribe to
+     * @param rosNodeName  the graph name of the ROS node itself
+     * @param queueSize    messages buffered before the oldest is dropped, or 0 for the rosjava default
+     */
+    public ROSJavaSubscriberNodeMain(final String rosTopicName, final String rosNodeName, final int queueSize) {
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("queueSize must not be negative but was " + queueSize);
+        }
         this.rosTopicName = rosTopicName;
         this.rosNodeName = rosNodeName;
+        this.queueSize = queueSize;
     }
 
     /**
@@ -71,7 +133,96 @@ public final class ROSJavaSubscriberNodeMain extends AbstractNodeMain {
         // Create a subscriber for the standard std_msgs/String topic type.
         final Subscriber<std_msgs.String> subscriber = connectedNode.newSubscriber(this.rosTopicName, std_msgs.String._TYPE);
 
+        // Count every received message and its payload size.
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter receivedMessages = this.metrics.counter("ros_topic_messages_received_total", "Messages received", "topic", this.rosTopicName);
+        final MetricsRegistry.Counter receivedBytes = this.metrics.counter("ros_topic_bytes_received_total", "Payload bytes received", "topic", this.rosTopicName);
+
         // Register the callback that runs every time a new ROS message arrives.
-        subscriber.addMessageListener(message -> connectedNode.getLog().info("Subscriber: " + message.getData()));
+        this.mode = HotTopics.getDefault().acquire(this.rosTopicName);
+        final HotTopics.Mode processingMode = this.mode;
+        // The same interval in both modes: from the publisher's send stamp to the start of processing.
+        final MetricsRegistry.Histogram deliveryLatency = this.metrics.histogram("ros_topic_delivery_latency_seconds",
+                "Publisher send stamp to start of processing", "topic", this.rosTopicName, "mode", processingMode.label());
+        this.deliveryLatency = deliveryLatency;
+
+        // The processing of every message; it runs on the rosjava callback thread or, for a hot topic, on a spinning thread.
+        final String topicName = this.rosTopicName;
+        final RosLog log = connectedNode.getLog();
+        final Consumer<std_msgs.String> processing = message -> {
+            final String data = message.getData();
+            final long latencyNanos = HotTopics.deliveryLatencyNanos(data);
+            if (latencyNanos >= 0) {
+                deliveryLatency.record(latencyNanos);
+            }
+            final RosFlightEvents.TopicReceive event = new RosFlightEvents.TopicReceive();
+            event.begin();
+            final int payloadBytes = MetricsRegistry.utf8Length(data);
+            receivedMessages.increment();
+            receivedBytes.add(payloadBytes);
+            final long nowNanos = System.nanoTime();
+            if (nowNanos - this.nextInfoLogNanos >= 0) {
+                this.nextInfoLogNanos = nowNanos + HotTopics.MESSAGE_LOG_INTERVAL_NANOS;
+                log.info("Subscriber: " + describe(data, payloadBytes));
+            } else if (log.isDebugEnabled()) {
+                log.debug("Subscriber: " + describe(data, payloadBytes));
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.topic = topicName;
+                event.payloadBytes = payloadBytes;
+                event.commit();
+            }
+        };
+
+        if (processingMode == HotTopics.Mode.BUSY_SPIN) {
+            this.spinningConsumer = new SpinningConsumer<>(this.rosTopicName, SPINNING_CONSUMER_CAPACITY,
+                    ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.SPIN, "rosjava-spin-subscriber"), processing, this.metrics);
+            this.addListener(subscriber, this.spinningConsumer::offer);
+        } else {
+            if (HotTopics.getDefault().isHot(this.rosTopicName)) {
+                connectedNode.getLog().warn("Subscriber: No spinning thread left for hot topic [" + this.rosTopicName + "], " + HotTopics.getDefault());
+            }
+            this.addListener(subscriber, processing::accept);
+        }
+    }
+
+    /**
+     * @return the start of the payload, short enough for one log line
+     */
+    private static final String describe(final String data, final int payloadBytes) {
+        return data.length() <= LOGGED_PAYLOAD_CHARS ? data : data.substring(0, LOGGED_PAYLOAD_CHARS) + "... (" + payloadBytes + " bytes)";
+    }
+
+    private final void addListener(final Subscriber<std_msgs.String> subscriber, final MessageListener<std_msgs.String> listener) {
+        if (this.queueSize > 0) {
+            subscriber.addMessageListener(listener, this.queueSize);
+        } else {
+            subscriber.addMessageListener(listener);
+        }
+    }
+
+    /**
+     * Stop the spinning consumer, if any, and release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.deliveryLatency != null) {
+            node.getLog().info("Subscriber: [" + this.rosTopicName + "] " + this.mode.label() + " delivery latency " + this.deliveryLatency.summary());
+            this.deliveryLatency = null;
+        }
+        if (this.spinningConsumer != null) {
+            this.spinningConsumer.close();
+            node.getLog().info("Subscriber: [" + this.rosTopicName + "] spinning handoff latency " + this.spinningConsumer.getHandoffLatencySummary());
+            this.spinningConsumer = null;
+        }
+        HotTopics.getDefault().release(this.mode);
+        this.mode = HotTopics.Mode.DEFAULT;
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
     }
 }
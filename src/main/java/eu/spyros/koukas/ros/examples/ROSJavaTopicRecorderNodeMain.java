@@ -0,0 +1,169 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.exception.RosRuntimeException;
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.RosLog;
+import org.ros.node.topic.Subscriber;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A ROS node that captures {@code std_msgs/String} topics into a {@link TopicMessageLog} file.
+ *
+ * <p>The recorded file can later be played back by {@link ROSJavaReplayNodeMain} to reproduce the
+ * captured traffic, including the original spacing between messages.
+ *
+ * @author Spyros Koukas
+ */
+public final class ROSJavaTopicRecorderNodeMain extends AbstractNodeMain {
+    /**
+     * ROS topic graph names to capture.
+     */
+    private final List<String> rosTopicNames;
+
+    /**
+     * ROS node name for this recorder node.
+     */
+    private final String rosNodeName;
+
+    /**
+     * File that receives the captured messages.
+     */
+    private final Path logFile;
+
+    /**
+     * Open log writer. Subscriber callbacks may arrive on several rosjava threads, so writes are synchronized on it.
+     */
+    private TopicMessageLog.Writer writer;
+
+    /**
+     * Cached ROS logger so the message callbacks can report write failures.
+     */
+    private RosLog log;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@link #onShutdown(Node)}.
+     */
+    private MetricsRegistry.Scope metrics;
+    private MetricsRegistry.Counter messagesRecorded;
+    private MetricsRegistry.Counter bytesRecorded;
+
+    /**
+     * @param rosTopicNames the graph names of the topics to capture
+     * @param logFile       the file that receives the captured messages
+     * @param rosNodeName   the graph name of the ROS node itself
+     */
+    public ROSJavaTopicRecorderNodeMain(final List<String> rosTopicNames, final Path logFile, final String rosNodeName) {
+        this.rosTopicNames = List.copyOf(rosTopicNames);
+        this.logFile = logFile;
+        this.rosNodeName = rosNodeName;
+    }
+
+    /**
+     * rosjava asks every {@link org.ros.node.NodeMain} for its default ROS graph name.
+     */
+    @Override
+    public final GraphName getDefaultNodeName() {
+        return GraphName.of(this.rosNodeName);
+    }
+
+    /**
+     * Open the log file and subscribe to every captured topic.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    @Override
+    public final void onStart(final ConnectedNode connectedNode) {
+        this.log = connectedNode.getLog();
+        try {
+            this.writer = new TopicMessageLog.Writer(this.logFile);
+        } catch (final IOException exception) {
+            throw new RosRuntimeException(exception);
+        }
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        this.messagesRecorded = this.metrics.counter("ros_recorder_messages_total", "Messages appended to the topic log");
+        this.bytesRecorded = this.metrics.counter("ros_recorder_payload_bytes_total", "Payload bytes appended to the topic log");
+
+        for (final String rosTopicName : this.rosTopicNames) {
+            final Subscriber<std_msgs.String> subscriber = connectedNode.newSubscriber(rosTopicName, std_msgs.String._TYPE);
+            final String resolvedTopicName = subscriber.getTopicName().toString();
+            subscriber.addMessageListener(message -> this.record(resolvedTopicName, message));
+        }
+        this.log.info("Recording " + this.rosTopicNames + " into [" + this.logFile + "]");
+    }
+
+    /**
+     * Close the log file when the node shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+        final TopicMessageLog.Writer currentWriter = this.writer;
+        if (currentWriter == null) {
+            return;
+        }
+        synchronized (currentWriter) {
+            this.writer = null;
+            try {
+                currentWriter.close();
+            } catch (final IOException exception) {
+                node.getLog().error("Recorder: Could not close [" + this.logFile + "]", exception);
+            }
+        }
+    }
+
+    /**
+     * Append one received message to the log.
+     *
+     * @param topicName the resolved topic name the message arrived on
+     * @param message   the received message
+     */
+    private final void record(final String topicName, final std_msgs.String message) {
+        // Take the timestamp before waiting for the lock so contention does not skew the recorded timing.
+        final long timestampNanos = System.nanoTime();
+        final TopicMessageLog.Writer currentWriter = this.writer;
+        if (currentWriter == null) {
+            return;
+        }
+        synchronized (currentWriter) {
+            if (this.writer == null) {
+                return;
+            }
+            try {
+                final byte[] payload = message.getData().getBytes(StandardCharsets.UTF_8);
+                currentWriter.append(timestampNanos, topicName, std_msgs.String._TYPE, payload);
+                this.messagesRecorded.increment();
+                this.bytesRecorded.add(payload.length);
+            } catch (final IOException exception) {
+                this.log.error("Recorder: Could not write to [" + this.logFile + "]", exception);
+            }
+        }
+    }
+}
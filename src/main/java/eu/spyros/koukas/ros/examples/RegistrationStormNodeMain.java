@@ -0,0 +1,174 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.service.DefaultServiceServerListener;
+import org.ros.node.service.ServiceServer;
+import org.ros.node.topic.DefaultPublisherListener;
+import org.ros.node.topic.DefaultSubscriberListener;
+import org.ros.node.topic.Publisher;
+import org.ros.node.topic.Subscriber;
+import rosjava_test_msgs.AddTwoInts;
+import rosjava_test_msgs.AddTwoIntsRequest;
+import rosjava_test_msgs.AddTwoIntsResponse;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal ROS node used by the registration storm benchmark.
+ *
+ * <p>When it starts, the node registers one publisher, one subscriber, and one service with the
+ * master and times each registration until the master acknowledges it. Once all three are
+ * registered, it times one {@code lookupService} call for its own service and reports to the
+ * shared {@link RegistrationStormRun}.
+ *
+ * @author Spyros Koukas
+ */
+final class RegistrationStormNodeMain extends AbstractNodeMain {
+    /**
+     * Publisher, subscriber, and service.
+     */
+    private static final int REGISTRATIONS_PER_NODE = 3;
+
+    private final String rosNodeName;
+    private final String rosTopicName;
+    private final String rosServiceName;
+    private final RegistrationStormRun run;
+
+    /**
+     * Called once the node is done with all of its master calls, successful or not.
+     */
+    private final Runnable onFinished;
+
+    /**
+     * @param rosNodeName    the graph name of the node
+     * @param rosTopicName   the topic to publish and subscribe to; storm nodes share a small set of topics
+     * @param rosServiceName the service to advertise; unique per node
+     * @param run            the shared benchmark bookkeeping
+     * @param onFinished     called once the node is done with all of its master calls
+     */
+    RegistrationStormNodeMain(final String rosNodeName, final String rosTopicName, final String rosServiceName,
+                              final RegistrationStormRun run, final Runnable onFinished) {
+        this.rosNodeName = rosNodeName;
+        this.rosTopicName = rosTopicName;
+        this.rosServiceName = rosServiceName;
+        this.run = run;
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * rosjava asks every {@link org.ros.node.NodeMain} for its default ROS graph name.
+     */
+    @Override
+    public final GraphName getDefaultNodeName() {
+        return GraphName.of(this.rosNodeName);
+    }
+
+    /**
+     * Register the publisher, subscriber, and service and time every registration.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    @Override
+    public final void onStart(final ConnectedNode connectedNode) {
+        final AtomicInteger pendingRegistrations = new AtomicInteger(REGISTRATIONS_PER_NODE);
+        final Runnable registrationDone = () -> {
+            if (pendingRegistrations.decrementAndGet() == 0) {
+                // lookupService is a blocking XML-RPC call, so keep it off the registration callback thread.
+                connectedNode.getScheduledExecutorService().execute(() -> this.lookupOwnService(connectedNode));
+            }
+        };
+
+        final long publisherStartNanos = System.nanoTime();
+        final Publisher<std_msgs.String> publisher = connectedNode.newPublisher(this.rosTopicName, std_msgs.String._TYPE);
+        publisher.addListener(new DefaultPublisherListener<>() {
+            @Override
+            public final void onMasterRegistrationSuccess(final Publisher<std_msgs.String> registeredPublisher) {
+                RegistrationStormNodeMain.this.run.record(RegistrationStormRun.Call.REGISTER_PUBLISHER, System.nanoTime() - publisherStartNanos);
+                registrationDone.run();
+            }
+
+            @Override
+            public final void onMasterRegistrationFailure(final Publisher<std_msgs.String> failedPublisher) {
+                RegistrationStormNodeMain.this.run.failure();
+                registrationDone.run();
+            }
+        });
+
+        final long subscriberStartNanos = System.nanoTime();
+        final Subscriber<std_msgs.String> subscriber = connectedNode.newSubscriber(this.rosTopicName, std_msgs.String._TYPE);
+        subscriber.addSubscriberListener(new DefaultSubscriberListener<>() {
+            @Override
+            public final void onMasterRegistrationSuccess(final Subscriber<std_msgs.String> registeredSubscriber) {
+                RegistrationStormNodeMain.this.run.record(RegistrationStormRun.Call.REGISTER_SUBSCRIBER, System.nanoTime() - subscriberStartNanos);
+                registrationDone.run();
+            }
+
+            @Override
+            public final void onMasterRegistrationFailure(final Subscriber<std_msgs.String> failedSubscriber) {
+                RegistrationStormNodeMain.this.run.failure();
+                registrationDone.run();
+            }
+        });
+
+        final long serviceStartNanos = System.nanoTime();
+        final ServiceServer<AddTwoIntsRequest, AddTwoIntsResponse> serviceServer = connectedNode.newServiceServer(
+                this.rosServiceName,
+                AddTwoInts._TYPE,
+                (request, response) -> response.setSum(request.getA() + request.getB()));
+        serviceServer.addListener(new DefaultServiceServerListener<>() {
+            @Override
+            public final void onMasterRegistrationSuccess(final ServiceServer<AddTwoIntsRequest, AddTwoIntsResponse> registeredServer) {
+                RegistrationStormNodeMain.this.run.record(RegistrationStormRun.Call.REGISTER_SERVICE, System.nanoTime() - serviceStartNanos);
+                registrationDone.run();
+            }
+
+            @Override
+            public final void onMasterRegistrationFailure(final ServiceServer<AddTwoIntsRequest, AddTwoIntsResponse> failedServer) {
+                RegistrationStormNodeMain.this.run.failure();
+                registrationDone.run();
+            }
+        });
+    }
+
+    /**
+     * Time one {@code lookupService} call against the master and finish the node's part of the run.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    private final void lookupOwnService(final ConnectedNode connectedNode) {
+        try {
+            final long lookupStartNanos = System.nanoTime();
+            final URI serviceUri = connectedNode.lookupServiceUri(this.rosServiceName);
+            if (serviceUri == null) {
+                this.run.failure();
+            } else {
+                this.run.record(RegistrationStormRun.Call.LOOKUP_SERVICE, System.nanoTime() - lookupStartNanos);
+            }
+        } catch (final RuntimeException exception) {
+            connectedNode.getLog().error("Registration storm: Lookup of [" + this.rosServiceName + "] failed", exception);
+            this.run.failure();
+        } finally {
+            this.run.nodeFinished();
+            this.onFinished.run();
+        }
+    }
+}
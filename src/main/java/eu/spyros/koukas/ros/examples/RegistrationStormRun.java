@@ -0,0 +1,137 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bookkeeping for the registration storm benchmark run by {@link MainRegistrationStorm}.
+ *
+ * <p>Every storm node reports how long each master call took, measured from the moment the node
+ * asked rosjava for the publisher, subscriber, or service until the master acknowledged the
+ * registration, and how long a {@code lookupService} call took once the node was registered.
+ * Every registration is one XML-RPC round trip to the master, so under a storm these latencies are
+ * dominated by how fast the master works through its request backlog.
+ *
+ * @author Spyros Koukas
+ */
+final class RegistrationStormRun {
+    /**
+     * The master calls measured by the benchmark.
+     */
+    enum Call {
+        REGISTER_PUBLISHER,
+        REGISTER_SUBSCRIBER,
+        REGISTER_SERVICE,
+        LOOKUP_SERVICE
+    }
+
+    private final Map<Call, Queue<Long>> latencies = new EnumMap<>(Call.class);
+    private final AtomicLong failures = new AtomicLong();
+    private final CountDownLatch nodesFinished;
+    private final int nodeCount;
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    /**
+     * @param nodeCount how many storm nodes take part in the run
+     */
+    RegistrationStormRun(final int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.nodesFinished = new CountDownLatch(nodeCount);
+        for (final Call call : Call.values()) {
+            this.latencies.put(call, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Record one successful master call.
+     *
+     * @param call         the master call
+     * @param latencyNanos how long the call took
+     */
+    final void record(final Call call, final long latencyNanos) {
+        this.latencies.get(call).add(latencyNanos);
+    }
+
+    /**
+     * Record one master call that failed.
+     */
+    final void failure() {
+        this.failures.incrementAndGet();
+    }
+
+    /**
+     * Mark one storm node as done with all of its master calls.
+     */
+    final void nodeFinished() {
+        this.nodesFinished.countDown();
+        if (this.nodesFinished.getCount() == 0) {
+            this.endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Wait until every storm node is done.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit unit of the timeout
+     * @return {@code true} if every node finished before the timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    final boolean awaitFinished(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        return this.nodesFinished.await(timeout, timeUnit);
+    }
+
+    /**
+     * @return a multi-line report with the latency percentiles of every master call and the overall throughput
+     */
+    final String report() {
+        final long elapsedNanos = (this.endNanos == 0 ? System.nanoTime() : this.endNanos) - this.startNanos;
+        final long registrations = this.latencies.get(Call.REGISTER_PUBLISHER).size()
+                + this.latencies.get(Call.REGISTER_SUBSCRIBER).size()
+                + this.latencies.get(Call.REGISTER_SERVICE).size();
+        final StringBuilder report = new StringBuilder()
+                .append("nodes=").append(this.nodeCount - this.nodesFinished.getCount()).append('/').append(this.nodeCount)
+                .append(", registrations=").append(registrations)
+                .append(", failures=").append(this.failures.get())
+                .append(", elapsed=").append(LatencySummary.toMillis(elapsedNanos)).append(" ms")
+                .append(", throughput=").append(String.format("%.1f", registrations / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1))))
+                .append(" registrations/s");
+        for (final Call call : Call.values()) {
+            report.append(System.lineSeparator()).append("  ").append(String.format("%-20s", call)).append(this.percentiles(call));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Summarize the latency of one master call.
+     *
+     * @param call the master call
+     * @return p50, p90, p99, and max in milliseconds
+     */
+    private final String percentiles(final Call call) {
+        final long[] values = this.latencies.get(call).stream().mapToLong(Long::longValue).sorted().toArray();
+        return LatencySummary.of(values);
+    }
+}
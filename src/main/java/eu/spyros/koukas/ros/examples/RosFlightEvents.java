@@ -0,0 +1,168 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the ROS message lifecycle of the example nodes.
+ *
+ * <p>A flight recording puts these events on the same timeline as garbage collections, safepoints,
+ * lock contention, and thread states, so a slow publish or a late action result can be matched to
+ * what the JVM was doing at that moment. Start a continuous recording with, for example,
+ * {@code -XX:StartFlightRecording=filename=ros.jfr,settings=default} and open it in JDK Mission Control.
+ *
+ * <p>Every event is a plain JFR event: when no recording is running, {@link Event#shouldCommit()}
+ * returns {@code false} and the JIT removes the event allocation, so the nodes pay close to nothing.
+ * Stack traces are disabled because the call sites are fixed and the events are on the hot path.
+ *
+ * @author Spyros Koukas
+ */
+final class RosFlightEvents {
+    private static final String PREFIX = "eu.spyros.koukas.ros.examples.";
+    private static final String CATEGORY = "ROS";
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private RosFlightEvents() {
+    }
+
+    /**
+     * One {@code publish(...)} call on a topic. The duration is the time spent inside rosjava.
+     */
+    @Name(PREFIX + "TopicPublish")
+    @Label("Topic Publish")
+    @Category({CATEGORY, "Topic"})
+    @StackTrace(false)
+    static final class TopicPublish extends Event {
+        @Label("Topic")
+        String topic;
+
+        @Label("Payload Size")
+        @DataAmount
+        long payloadBytes;
+    }
+
+    /**
+     * One subscriber callback. The duration is the time spent in the callback.
+     */
+    @Name(PREFIX + "TopicReceive")
+    @Label("Topic Receive")
+    @Category({CATEGORY, "Topic"})
+    @StackTrace(false)
+    static final class TopicReceive extends Event {
+        @Label("Topic")
+        String topic;
+
+        @Label("Payload Size")
+        @DataAmount
+        long payloadBytes;
+    }
+
+    /**
+     * One service call seen from the client. The event begins when the request is sent and ends
+     * when the response or the failure arrives.
+     */
+    @Name(PREFIX + "ServiceCall")
+    @Label("Service Call")
+    @Category({CATEGORY, "Service"})
+    @StackTrace(false)
+    static final class ServiceCall extends Event {
+        @Label("Service")
+        String service;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * One service request handled by the server. The duration is the time spent in the handler.
+     */
+    @Name(PREFIX + "ServiceHandle")
+    @Label("Service Handle")
+    @Category({CATEGORY, "Service"})
+    @StackTrace(false)
+    static final class ServiceHandle extends Event {
+        @Label("Service")
+        String service;
+    }
+
+    /**
+     * An action goal moved from {@code PENDING} to {@code ACTIVE}.
+     */
+    @Name(PREFIX + "ActionGoalAccepted")
+    @Label("Action Goal Accepted")
+    @Category({CATEGORY, "Action"})
+    @StackTrace(false)
+    static final class ActionGoalAccepted extends Event {
+        @Label("Action")
+        String action;
+
+        @Label("Goal Id")
+        String goalId;
+
+        @Label("Queue Wait")
+        @Description("Time the goal waited for an execution slot, in nanoseconds")
+        @Timespan
+        long queueWaitNanos;
+    }
+
+    /**
+     * One feedback message published by the action server.
+     */
+    @Name(PREFIX + "ActionFeedbackSent")
+    @Label("Action Feedback Sent")
+    @Category({CATEGORY, "Action"})
+    @StackTrace(false)
+    static final class ActionFeedbackSent extends Event {
+        @Label("Action")
+        String action;
+
+        @Label("Goal Id")
+        String goalId;
+
+        @Label("Sequence Length")
+        int sequenceLength;
+    }
+
+    /**
+     * The terminal result published by the action server.
+     */
+    @Name(PREFIX + "ActionResultSent")
+    @Label("Action Result Sent")
+    @Category({CATEGORY, "Action"})
+    @StackTrace(false)
+    static final class ActionResultSent extends Event {
+        @Label("Action")
+        String action;
+
+        @Label("Goal Id")
+        String goalId;
+
+        @Label("Status")
+        @Description("ActionLib GoalStatus value")
+        byte status;
+    }
+}
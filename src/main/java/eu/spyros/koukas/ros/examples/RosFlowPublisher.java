@@ -0,0 +1,280 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.node.topic.Subscriber;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exposes the messages of a rosjava topic {@link Subscriber} as a {@link Flow.Publisher}.
+ *
+ * <p>rosjava pushes every message to its listeners as soon as it arrives, whether the consumer is ready
+ * or not. This adapter puts a bounded buffer between the two: the rosjava callback only appends the
+ * message to the buffer of every {@link Flow.Subscription}, and a drain task on the given executor hands
+ * buffered messages to the consumer as far as its {@code request(n)} demand allows. The rosjava I/O
+ * thread never blocks and never runs consumer code, and every consumer runs at its own rate.
+ *
+ * <p>When a consumer falls behind and its buffer is full, the {@link OverflowPolicy} decides which
+ * message is lost. Every lost message is counted in {@code ros_flow_messages_dropped_total}.
+ *
+ * <p>The adapter follows the Reactive Streams rules, so libraries such as Reactor or RxJava can
+ * consume it through their {@code java.util.concurrent.Flow} adapters.
+ *
+ * @param <T> the generated message class of the topic
+ * @author Spyros Koukas
+ */
+final class RosFlowPublisher<T> implements Flow.Publisher<T> {
+    /**
+     * What to do with a new message when a consumer's buffer is full.
+     */
+    enum OverflowPolicy {
+        /**
+         * Drop the oldest buffered message. The consumer always sees the most recent messages.
+         */
+        DROP_OLDEST,
+        /**
+         * Drop the new message. The consumer sees a contiguous prefix of the stream.
+         */
+        DROP_NEWEST,
+        /**
+         * Cancel the subscription and signal an error to the consumer.
+         */
+        ERROR
+    }
+
+    private final String rosTopicName;
+    private final int bufferCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final MetricsRegistry.Counter dropped;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param rosSubscriber  the rosjava subscriber whose messages are published
+     * @param rosTopicName   the topic of the subscriber, used in metrics and errors
+     * @param bufferCapacity messages buffered per consumer
+     * @param overflowPolicy what to do when a consumer's buffer is full
+     * @param executor       runs the delivery to the consumers, for example the node's scheduled executor
+     * @param metrics        the metrics scope of the owning node
+     */
+    RosFlowPublisher(final Subscriber<T> rosSubscriber, final String rosTopicName, final int bufferCapacity,
+                     final OverflowPolicy overflowPolicy, final Executor executor, final MetricsRegistry.Scope metrics) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("bufferCapacity must be at least 1 but was " + bufferCapacity);
+        }
+        this.rosTopicName = rosTopicName;
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.dropped = metrics.counter("ros_flow_messages_dropped_total", "Messages dropped because a Flow consumer fell behind", "topic", rosTopicName);
+        rosSubscriber.addMessageListener(message -> {
+            for (final BufferedSubscription subscription : this.subscriptions) {
+                subscription.offer(message);
+            }
+        });
+    }
+
+    /**
+     * Add a consumer. It receives the messages that arrive from now on, as far as it requests them.
+     *
+     * @param subscriber the consumer
+     */
+    @Override
+    public final void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        final BufferedSubscription subscription = new BufferedSubscription(subscriber);
+        // Flow rule 1.3: onSubscribe happens before any other signal. The subscription only receives messages
+        // once onSubscribe has returned, and its drain loop is held until then, so a request(n) made inside
+        // onSubscribe cannot trigger a signal while onSubscribe is still running.
+        try {
+            subscriber.onSubscribe(subscription);
+        } catch (final RuntimeException exception) {
+            // Flow rule 2.13: a consumer that throws is treated as cancelled.
+            subscription.cancel();
+            return;
+        }
+        if (!subscription.cancelled) {
+            this.subscriptions.add(subscription);
+        }
+        subscription.releaseDrain();
+    }
+
+    /**
+     * Signal completion to every consumer after its buffered messages, for example when the node shuts down.
+     */
+    final void complete() {
+        for (final BufferedSubscription subscription : this.subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * @return the number of subscribed consumers
+     */
+    final int getSubscriberCount() {
+        return this.subscriptions.size();
+    }
+
+    /**
+     * Bounded buffer and demand of one consumer.
+     *
+     * <p>All signals to the consumer are sent from the drain loop, which runs on one executor thread at
+     * a time, so the consumer is never called concurrently.
+     */
+    private final class BufferedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+
+        /**
+         * Guarded by {@code this}.
+         */
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * Starts at one, held by {@link #subscribe(Flow.Subscriber)} until {@code onSubscribe} has returned.
+         */
+        private final AtomicInteger pendingDrains = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        private BufferedSubscription(final Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public final void request(final long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("Flow rule 3.9: request(" + n + ") must be positive");
+            } else {
+                this.demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            this.scheduleDrain();
+        }
+
+        @Override
+        public final void cancel() {
+            this.cancelled = true;
+            RosFlowPublisher.this.subscriptions.remove(this);
+            synchronized (this) {
+                this.buffer.clear();
+            }
+        }
+
+        /**
+         * Called on the rosjava I/O thread. Never blocks.
+         */
+        private final void offer(final T message) {
+            if (this.cancelled) {
+                return;
+            }
+            synchronized (this) {
+                if (this.buffer.size() >= RosFlowPublisher.this.bufferCapacity) {
+                    RosFlowPublisher.this.dropped.increment();
+                    switch (RosFlowPublisher.this.overflowPolicy) {
+                        case DROP_OLDEST -> {
+                            this.buffer.poll();
+                            this.buffer.add(message);
+                        }
+                        case DROP_NEWEST -> {
+                            return;
+                        }
+                        case ERROR -> {
+                            this.error = new IllegalStateException("Flow consumer of [" + RosFlowPublisher.this.rosTopicName
+                                    + "] fell more than " + RosFlowPublisher.this.bufferCapacity + " messages behind");
+                            RosFlowPublisher.this.subscriptions.remove(this);
+                        }
+                    }
+                } else {
+                    this.buffer.add(message);
+                }
+            }
+            this.scheduleDrain();
+        }
+
+        private final void complete() {
+            this.completed = true;
+            RosFlowPublisher.this.subscriptions.remove(this);
+            this.scheduleDrain();
+        }
+
+        /**
+         * Hand the hold taken at creation over to a drain task, which picks up any work requested during {@code onSubscribe}.
+         */
+        private final void releaseDrain() {
+            RosFlowPublisher.this.executor.execute(this::drain);
+        }
+
+        /**
+         * Start a drain task unless one is already running; a running one picks the new work up.
+         */
+        private final void scheduleDrain() {
+            if (this.pendingDrains.getAndIncrement() == 0) {
+                RosFlowPublisher.this.executor.execute(this::drain);
+            }
+        }
+
+        private final void drain() {
+            int missed = 1;
+            do {
+                while (!this.cancelled) {
+                    final Throwable failure = this.error;
+                    if (failure != null) {
+                        this.cancel();
+                        this.subscriber.onError(failure);
+                        return;
+                    }
+                    final T next;
+                    synchronized (this) {
+                        next = this.demand.get() > 0 ? this.buffer.poll() : null;
+                    }
+                    if (next == null) {
+                        final boolean empty;
+                        synchronized (this) {
+                            empty = this.buffer.isEmpty();
+                        }
+                        if (this.completed && empty) {
+                            this.cancelled = true;
+                            this.subscriber.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                    if (this.demand.get() != Long.MAX_VALUE) {
+                        this.demand.decrementAndGet();
+                    }
+                    try {
+                        this.subscriber.onNext(next);
+                    } catch (final RuntimeException exception) {
+                        // Flow rule 2.13: a consumer that throws is treated as cancelled.
+                        this.cancel();
+                        return;
+                    }
+                }
+                missed = this.pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
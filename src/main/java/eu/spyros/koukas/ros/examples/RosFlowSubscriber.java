@@ -0,0 +1,113 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.node.topic.Publisher;
+
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
+
+/**
+ * Publishes every item of a {@link Flow.Publisher} to a rosjava topic {@link Publisher}.
+ *
+ * <p>The subscriber requests a fixed number of items up front and requests more each time half of
+ * them have been published, so the upstream never runs further ahead than that prefetch. rosjava's
+ * {@link Publisher#publish(Object)} only queues the message for the network threads, so
+ * {@link #onNext(Object)} returns quickly and does not hold up the upstream thread.
+ *
+ * @param <T> the type of the items
+ * @param <M> the generated message class of the topic
+ * @author Spyros Koukas
+ */
+final class RosFlowSubscriber<T, M> implements Flow.Subscriber<T> {
+    private final Publisher<M> rosPublisher;
+    private final BiConsumer<? super M, ? super T> filler;
+    private final int prefetch;
+    private final int replenishThreshold;
+    private final MetricsRegistry.Counter published;
+    private final MetricsRegistry.Counter failures;
+
+    /**
+     * Set by the {@code on*} signals, which Flow publishers never send concurrently, and read by {@link #cancel()}.
+     */
+    private volatile Flow.Subscription subscription;
+    private int publishedSinceRequest;
+
+    /**
+     * @param rosPublisher the rosjava publisher to publish to
+     * @param rosTopicName the topic of the publisher, used in metrics
+     * @param filler       copies an item into a fresh message of the topic
+     * @param prefetch     how many items may be requested but not yet published
+     * @param metrics      the metrics scope of the owning node
+     */
+    RosFlowSubscriber(final Publisher<M> rosPublisher, final String rosTopicName, final BiConsumer<? super M, ? super T> filler,
+                      final int prefetch, final MetricsRegistry.Scope metrics) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be at least 1 but was " + prefetch);
+        }
+        this.rosPublisher = rosPublisher;
+        this.filler = filler;
+        this.prefetch = prefetch;
+        this.replenishThreshold = Math.max(1, prefetch / 2);
+        this.published = metrics.counter("ros_flow_messages_published_total", "Flow items published to a topic", "topic", rosTopicName);
+        this.failures = metrics.counter("ros_flow_failures_total", "Flow streams that ended with an error", "topic", rosTopicName);
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            // Flow rule 2.5: a subscriber is active on one subscription only.
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(this.prefetch);
+    }
+
+    @Override
+    public final void onNext(final T item) {
+        final M message = this.rosPublisher.newMessage();
+        this.filler.accept(message, item);
+        this.rosPublisher.publish(message);
+        this.published.increment();
+        if (++this.publishedSinceRequest >= this.replenishThreshold) {
+            this.subscription.request(this.publishedSinceRequest);
+            this.publishedSinceRequest = 0;
+        }
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+        this.failures.increment();
+        this.subscription = null;
+    }
+
+    @Override
+    public final void onComplete() {
+        this.subscription = null;
+    }
+
+    /**
+     * Stop receiving items, for example when the node shuts down.
+     */
+    final void cancel() {
+        final Flow.Subscription current = this.subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
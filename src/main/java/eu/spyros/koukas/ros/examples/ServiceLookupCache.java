@@ -0,0 +1,129 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.exception.ServiceNotFoundException;
+import org.ros.node.ConnectedNode;
+import org.ros.node.service.ServiceClient;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide cache of "service not registered" answers from the ROS masters.
+ *
+ * <p>{@link ConnectedNode#newServiceClient(String, String)} always asks the master where the service
+ * lives, so a found service cannot be answered from a cache: rosjava would repeat the lookup anyway.
+ * What does repeat is the negative answer. While a service is missing, every client in this JVM that
+ * waits for it keeps asking the master, for example the {@code count} copies of one client in a system
+ * description. This cache remembers a {@link ServiceNotFoundException} per master and service for a
+ * short time, so those clients share one XML-RPC round trip per interval instead of sending one each.
+ *
+ * <p>A caller never gets an answer older than its own retry interval, which it passes as the
+ * {@code maxAge} of {@link #newServiceClient(ConnectedNode, String, String, long, TimeUnit)}. A client
+ * whose backoff is back at a few milliseconds after a server restart therefore still asks the master
+ * every few milliseconds, while clients that have waited longer share the answers. A successful
+ * connection drops the entry right away.
+ *
+ * @author Spyros Koukas
+ */
+final class ServiceLookupCache {
+    /**
+     * Default upper bound on the age of a "service not registered" answer, whatever the caller's retry interval.
+     */
+    static final long DEFAULT_NEGATIVE_TTL_MILLIS = 1_000;
+
+    /**
+     * Shared cache used by every client in the JVM.
+     */
+    private static final ServiceLookupCache DEFAULT = new ServiceLookupCache(
+            MetricsRegistry.getDefault().newProcessScope(), DEFAULT_NEGATIVE_TTL_MILLIS, TimeUnit.MILLISECONDS);
+
+    private final long negativeTtlNanos;
+
+    /**
+     * A service on one master.
+     */
+    private record LookupKey(URI masterUri, String serviceName) {
+    }
+
+    /**
+     * When the master last reported each service missing.
+     */
+    private final Map<LookupKey, Long> missingSinceNanos = new ConcurrentHashMap<>();
+
+    private final MetricsRegistry.Counter hits;
+    private final MetricsRegistry.Counter misses;
+    private final MetricsRegistry.Histogram connectLatency;
+
+    /**
+     * @param metrics     the metrics scope of the cache
+     * @param negativeTtl the longest a "not registered" answer is trusted
+     * @param timeUnit    unit of the time-to-live
+     */
+    ServiceLookupCache(final MetricsRegistry.Scope metrics, final long negativeTtl, final TimeUnit timeUnit) {
+        this.negativeTtlNanos = timeUnit.toNanos(negativeTtl);
+        this.hits = metrics.counter("ros_master_lookup_cache_hits_total", "Service connections skipped because the master recently reported the service missing");
+        this.misses = metrics.counter("ros_master_lookup_cache_misses_total", "Service connections that asked the master");
+        this.connectLatency = metrics.histogram("ros_service_connect_latency_seconds", "Master lookup and connection of a new service client");
+    }
+
+    /**
+     * @return the cache shared by all clients in this JVM
+     */
+    static final ServiceLookupCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a service client, unless the master reported the service missing a moment ago.
+     *
+     * @param connectedNode the node that owns the client
+     * @param serviceName   the service graph name, resolved against the node namespace
+     * @param serviceType   the ROS service type
+     * @param maxAge        the oldest "not registered" answer the caller accepts, usually its current retry interval
+     * @param timeUnit      unit of the maximum age
+     * @param <T>           the request type
+     * @param <S>           the response type
+     * @return the new client
+     * @throws ServiceNotFoundException if the service is not registered, possibly according to the cache
+     */
+    final <T, S> ServiceClient<T, S> newServiceClient(final ConnectedNode connectedNode, final String serviceName, final String serviceType,
+                                                      final long maxAge, final TimeUnit timeUnit) throws ServiceNotFoundException {
+        final LookupKey key = new LookupKey(connectedNode.getMasterUri(), connectedNode.resolveName(serviceName).toString());
+        final Long missingSince = this.missingSinceNanos.get(key);
+        if (missingSince != null && System.nanoTime() - missingSince < Math.min(this.negativeTtlNanos, timeUnit.toNanos(maxAge))) {
+            this.hits.increment();
+            throw new ServiceNotFoundException("Service [" + serviceName + "] was not registered a moment ago");
+        }
+
+        this.misses.increment();
+        final long startNanos = System.nanoTime();
+        try {
+            final ServiceClient<T, S> client = connectedNode.newServiceClient(serviceName, serviceType);
+            this.missingSinceNanos.remove(key);
+            return client;
+        } catch (final ServiceNotFoundException exception) {
+            this.missingSinceNanos.put(key, System.nanoTime());
+            throw exception;
+        } finally {
+            this.connectLatency.recordSince(startNanos);
+        }
+    }
+}
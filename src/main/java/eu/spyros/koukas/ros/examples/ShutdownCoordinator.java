@@ -0,0 +1,307 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuts the example nodes down in phases, each bounded in time, and reports how long every phase took.
+ *
+ * <p>Stopping a {@link org.ros.node.NodeMainExecutor} closes every node right away: service calls
+ * that are being handled are lost and running action goals are abandoned without a result. The
+ * coordinator instead goes through these phases:
+ * <ol>
+ *     <li>{@link Phase#STOP_ACCEPTING}: every registered {@link Participant} stops taking new work.
+ *     Service servers answer new requests with an error, so clients fail over to another replica.</li>
+ *     <li>{@link Phase#DRAIN}: wait until the work already started is done, up to the drain timeout.
+ *     Participants that are still busy at the deadline are told to {@link Participant#abandon()} it.</li>
+ *     <li>{@link Phase#FLUSH}: give the last published messages, such as action results, time to leave
+ *     the process. rosjava writes published messages asynchronously and has no flush call, so this is a
+ *     fixed linger.</li>
+ *     <li>{@link Phase#STOP_NODES} and {@link Phase#STOP_MASTER}: shut down the nodes and then the
+ *     embedded master, each on its own thread so a hung shutdown cannot hold the process.</li>
+ * </ol>
+ *
+ * <p>Only the first {@link #shutdown(Runnable, Runnable)} call runs the phases; later calls, for
+ * example from a JVM shutdown hook, return the same report.
+ *
+ * @author Spyros Koukas
+ */
+final class ShutdownCoordinator {
+    /**
+     * Shutdown phases, in the order they run.
+     */
+    enum Phase {
+        STOP_ACCEPTING,
+        DRAIN,
+        FLUSH,
+        STOP_NODES,
+        STOP_MASTER
+    }
+
+    /**
+     * Something that has in-flight work to finish before its node stops.
+     */
+    interface Participant {
+        /**
+         * Stop taking new work. Must return quickly.
+         */
+        void stopAccepting();
+
+        /**
+         * Wait until the work already started is done.
+         *
+         * @param deadlineNanos {@link System#nanoTime()} value after which to give up
+         * @return {@code true} if the participant is idle
+         * @throws InterruptedException if the waiting thread is interrupted
+         */
+        boolean awaitDrained(long deadlineNanos) throws InterruptedException;
+
+        /**
+         * Give up on the work that did not finish before the drain deadline.
+         */
+        default void abandon() {
+        }
+    }
+
+    /**
+     * Counts the operations in flight and refuses new ones once closed.
+     *
+     * <p>Wrap every operation in {@link #tryEnter()} and {@link #exit()}; the counter is itself a
+     * {@link Participant} that drains once the count drops to zero.
+     */
+    static final class InFlight implements Participant {
+        private int count;
+        private boolean closed;
+
+        /**
+         * @return {@code true} if the operation may start; it must then call {@link #exit()}
+         */
+        final synchronized boolean tryEnter() {
+            if (this.closed) {
+                return false;
+            }
+            this.count++;
+            return true;
+        }
+
+        /**
+         * Mark one operation started with {@link #tryEnter()} as done.
+         */
+        final synchronized void exit() {
+            if (--this.count == 0) {
+                this.notifyAll();
+            }
+        }
+
+        /**
+         * @return operations currently in flight
+         */
+        final synchronized int get() {
+            return this.count;
+        }
+
+        @Override
+        public final synchronized void stopAccepting() {
+            this.closed = true;
+        }
+
+        @Override
+        public final synchronized boolean awaitDrained(final long deadlineNanos) throws InterruptedException {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            while (this.count > 0 && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                remainingNanos = deadlineNanos - System.nanoTime();
+            }
+            return this.count == 0;
+        }
+    }
+
+    /**
+     * Outcome of a shutdown.
+     *
+     * @param phaseNanos how long each phase took
+     * @param undrained  participants that were still busy at the drain deadline
+     * @param timedOut   stop phases that did not finish in time
+     */
+    record Report(Map<Phase, Long> phaseNanos, List<String> undrained, List<Phase> timedOut) {
+        @Override
+        public final String toString() {
+            final StringBuilder builder = new StringBuilder();
+            long totalNanos = 0;
+            for (final Map.Entry<Phase, Long> phase : this.phaseNanos.entrySet()) {
+                builder.append(phase.getKey()).append('=').append(TimeUnit.NANOSECONDS.toMillis(phase.getValue())).append(" ms, ");
+                totalNanos += phase.getValue();
+            }
+            builder.append("total=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append(" ms");
+            if (!this.undrained.isEmpty()) {
+                builder.append(", undrained=").append(this.undrained);
+            }
+            if (!this.timedOut.isEmpty()) {
+                builder.append(", timed out=").append(this.timedOut);
+            }
+            return builder.toString();
+        }
+    }
+
+    private final long drainTimeoutNanos;
+    private final long flushLingerNanos;
+    private final long stopTimeoutNanos;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Map<String, Participant> participants = new LinkedHashMap<>();
+    private Report report;
+
+    /**
+     * @param drainTimeout longest wait for in-flight work
+     * @param flushLinger  time given to the last published messages
+     * @param stopTimeout  longest wait for each of the node and master shutdowns
+     * @param timeUnit     unit of all three durations
+     */
+    ShutdownCoordinator(final long drainTimeout, final long flushLinger, final long stopTimeout, final TimeUnit timeUnit) {
+        this.drainTimeoutNanos = timeUnit.toNanos(drainTimeout);
+        this.flushLingerNanos = timeUnit.toNanos(flushLinger);
+        this.stopTimeoutNanos = timeUnit.toNanos(stopTimeout);
+    }
+
+    /**
+     * Register a participant. Participants stop accepting in registration order.
+     *
+     * @param name        name used in the report
+     * @param participant the participant
+     */
+    final synchronized void register(final String name, final Participant participant) {
+        if (this.report != null) {
+            throw new IllegalStateException("Already shut down.");
+        }
+        this.participants.put(name, participant);
+    }
+
+    /**
+     * Run the shutdown phases once.
+     *
+     * @param stopNodes  shuts down the rosjava nodes
+     * @param stopMaster shuts down the embedded master, or {@code null} if the master is external
+     * @return how long each phase took
+     */
+    final synchronized Report shutdown(final Runnable stopNodes, final Runnable stopMaster) {
+        if (this.report != null) {
+            return this.report;
+        }
+        final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+        final List<String> undrained = new ArrayList<>();
+        final List<Phase> timedOut = new ArrayList<>();
+
+        long phaseStartNanos = System.nanoTime();
+        for (final Participant participant : this.participants.values()) {
+            participant.stopAccepting();
+        }
+        phaseStartNanos = this.endPhase(Phase.STOP_ACCEPTING, phaseStartNanos, phaseNanos);
+
+        final long drainDeadlineNanos = phaseStartNanos + this.drainTimeoutNanos;
+        boolean interrupted = false;
+        for (final Map.Entry<String, Participant> participant : this.participants.entrySet()) {
+            boolean drained = false;
+            if (!interrupted) {
+                try {
+                    drained = participant.getValue().awaitDrained(drainDeadlineNanos);
+                } catch (final InterruptedException exception) {
+                    // Keep going so the remaining phases still run, and restore the flag at the end.
+                    interrupted = true;
+                }
+            }
+            if (!drained) {
+                undrained.add(participant.getKey());
+                participant.getValue().abandon();
+            }
+        }
+        phaseStartNanos = this.endPhase(Phase.DRAIN, phaseStartNanos, phaseNanos);
+
+        if (!interrupted) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(this.flushLingerNanos);
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        phaseStartNanos = this.endPhase(Phase.FLUSH, phaseStartNanos, phaseNanos);
+
+        // runBounded restores the flag when it is interrupted; clear it before each stop phase so the phase still gets its full wait.
+        interrupted |= Thread.interrupted();
+        if (!this.runBounded(Phase.STOP_NODES, stopNodes)) {
+            timedOut.add(Phase.STOP_NODES);
+        }
+        phaseStartNanos = this.endPhase(Phase.STOP_NODES, phaseStartNanos, phaseNanos);
+
+        if (stopMaster != null) {
+            interrupted |= Thread.interrupted();
+            if (!this.runBounded(Phase.STOP_MASTER, stopMaster)) {
+                timedOut.add(Phase.STOP_MASTER);
+            }
+            this.endPhase(Phase.STOP_MASTER, phaseStartNanos, phaseNanos);
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        this.report = new Report(phaseNanos, undrained, timedOut);
+        return this.report;
+    }
+
+    /**
+     * @return the time the next phase starts
+     */
+    private final long endPhase(final Phase phase, final long phaseStartNanos, final Map<Phase, Long> phaseNanos) {
+        final long now = System.nanoTime();
+        phaseNanos.put(phase, now - phaseStartNanos);
+        return now;
+    }
+
+    /**
+     * Run a shutdown step on its own daemon thread and wait for it up to the stop timeout.
+     * An interrupt does not cut the wait short; it is recorded and the flag is restored before returning.
+     *
+     * @return {@code true} if the step finished in time
+     */
+    private final boolean runBounded(final Phase phase, final Runnable step) {
+        final Thread thread = new Thread(step, "ros-shutdown-" + phase.name().toLowerCase());
+        thread.setDaemon(true);
+        thread.start();
+        final long deadlineNanos = System.nanoTime() + this.stopTimeoutNanos;
+        boolean interrupted = false;
+        long remainingNanos = this.stopTimeoutNanos;
+        while (thread.isAlive() && remainingNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedJoin(thread, remainingNanos);
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+            remainingNanos = deadlineNanos - System.nanoTime();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the resources of a long-running process and flags the ones that keep growing.
+ *
+ * <p>Every sample records the heap after the last garbage collection, the live threads, the open file
+ * descriptors, and the median and 99th percentile of each watched latency histogram over the interval
+ * since the previous sample. The samples are logged and appended to a CSV file, so a run of several
+ * hours can be plotted afterwards.
+ *
+ * <p>A leak grows a little on every cycle of the workload: a thread per goal that never ends, a
+ * connection per restart that is never closed. {@link #findGrowth()} skips the warm-up, in which pools
+ * and caches fill up, and then flags a series if even its lowest value in the last quarter of the run is
+ * above its highest value in the first quarter. That test ignores noise, such as the sawtooth of the
+ * heap, and only fires for growth that lasts. The least-squares slope of every series is reported as
+ * well, to show slow drift before it crosses that line.
+ *
+ * @author Spyros Koukas
+ */
+final class SoakMonitor implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(SoakMonitor.class);
+
+    /**
+     * Share of the first samples that is treated as warm-up and not judged.
+     */
+    private static final double WARM_UP_FRACTION = 0.1;
+
+    /**
+     * Fewest samples after the warm-up that a series needs before it is judged.
+     */
+    private static final int MIN_TREND_SAMPLES = 8;
+
+    /**
+     * How often, in samples, the growth check runs during the run.
+     */
+    private static final int GROWTH_CHECK_EVERY_SAMPLES = 10;
+
+    /**
+     * The judgement of one series.
+     *
+     * @param series       the name of the series
+     * @param unit         the unit of its values
+     * @param samples      samples judged, after the warm-up
+     * @param earlyMax     the highest value in the first quarter
+     * @param lateMin      the lowest value in the last quarter
+     * @param slopePerHour least-squares change per hour
+     * @param growing      {@code true} if the series kept growing
+     */
+    record Trend(String series, String unit, int samples, long earlyMax, long lateMin, double slopePerHour, boolean growing) {
+        /**
+         * @return a short description for logs
+         */
+        final String describe() {
+            return this.series + (this.growing ? " GREW" : " stable") + ": first quarter max " + this.earlyMax + " " + this.unit
+                    + ", last quarter min " + this.lateMin + " " + this.unit
+                    + String.format(Locale.ROOT, ", slope %+.1f %s/h over %d samples", this.slopePerHour, this.unit, this.samples);
+        }
+    }
+
+    /**
+     * The values of one measurement over time.
+     */
+    private static final class Series {
+        private final String name;
+        private final String unit;
+        private long[] elapsedMillis = new long[64];
+        private long[] values = new long[64];
+        private int size;
+
+        private Series(final String name, final String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        private final void add(final long elapsedMillis, final long value) {
+            if (this.size == this.values.length) {
+                this.elapsedMillis = Arrays.copyOf(this.elapsedMillis, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.elapsedMillis[this.size] = elapsedMillis;
+            this.values[this.size] = value;
+            this.size++;
+        }
+
+        /**
+         * @return the judgement, or {@code null} while there are too few samples
+         */
+        private final Trend trend() {
+            final int start = (int) (this.size * WARM_UP_FRACTION);
+            final int count = this.size - start;
+            if (count < MIN_TREND_SAMPLES) {
+                return null;
+            }
+            final int quarter = count / 4;
+            long earlyMax = Long.MIN_VALUE;
+            for (int index = start; index < start + quarter; index++) {
+                earlyMax = Math.max(earlyMax, this.values[index]);
+            }
+            long lateMin = Long.MAX_VALUE;
+            for (int index = this.size - quarter; index < this.size; index++) {
+                lateMin = Math.min(lateMin, this.values[index]);
+            }
+
+            double meanTime = 0;
+            double meanValue = 0;
+            for (int index = start; index < this.size; index++) {
+                meanTime += this.elapsedMillis[index];
+                meanValue += this.values[index];
+            }
+            meanTime /= count;
+            meanValue /= count;
+            double covariance = 0;
+            double variance = 0;
+            for (int index = start; index < this.size; index++) {
+                final double time = this.elapsedMillis[index] - meanTime;
+                covariance += time * (this.values[index] - meanValue);
+                variance += time * time;
+            }
+            final double slopePerHour = variance == 0 ? 0 : covariance / variance * TimeUnit.HOURS.toMillis(1);
+            return new Trend(this.name, this.unit, count, earlyMax, lateMin, slopePerHour, lateMin > earlyMax && slopePerHour > 0);
+        }
+    }
+
+    /**
+     * A latency histogram whose percentiles are sampled per interval.
+     */
+    private static final class WatchedLatency {
+        private final String label;
+        private final MetricsRegistry.Histogram histogram;
+        private final Series p99;
+        private long[] previousCounts;
+
+        private WatchedLatency(final String label, final MetricsRegistry.Histogram histogram) {
+            this.label = label;
+            this.histogram = histogram;
+            this.p99 = new Series(label + " p99", "us");
+            this.previousCounts = histogram.getBucketCounts();
+        }
+    }
+
+    private final Path samplesFile;
+    private final long startNanos = System.nanoTime();
+    private final Series heapAfterGc = new Series("heap after GC", "KiB");
+    private final Series threads = new Series("live threads", "threads");
+    private final Series openFileDescriptors = new Series("open file descriptors", "fds");
+    private final List<WatchedLatency> latencies = new ArrayList<>();
+    private BufferedWriter samplesWriter;
+    private ScheduledExecutorService executor;
+    private int sampleCount;
+
+    /**
+     * @param samplesFile the CSV file the samples are written to; it is replaced
+     */
+    SoakMonitor(final Path samplesFile) {
+        this.samplesFile = samplesFile;
+    }
+
+    /**
+     * Sample the percentiles of a histogram as well. Call before {@link #start(long, TimeUnit)}.
+     *
+     * <p>Holding the histogram keeps it registered, so it keeps counting across nodes that are stopped and
+     * started again under the same name.
+     *
+     * @param label     the name of the latency in logs and in the CSV header
+     * @param histogram the histogram
+     */
+    final synchronized void watchLatency(final String label, final MetricsRegistry.Histogram histogram) {
+        if (this.samplesWriter != null) {
+            throw new IllegalStateException("Latencies must be watched before the monitor starts");
+        }
+        this.latencies.add(new WatchedLatency(label, histogram));
+    }
+
+    /**
+     * Write the CSV header and take a sample at a fixed rate from now on.
+     *
+     * @param interval time between samples
+     * @param timeUnit unit of the interval
+     * @throws IOException if the CSV file cannot be created
+     */
+    final synchronized void start(final long interval, final TimeUnit timeUnit) throws IOException {
+        final Path directory = this.samplesFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.samplesWriter = Files.newBufferedWriter(this.samplesFile, StandardCharsets.UTF_8);
+        final StringBuilder header = new StringBuilder("elapsed_seconds,heap_after_gc_kib,heap_used_kib,live_threads,open_fds");
+        for (final WatchedLatency latency : this.latencies) {
+            header.append(',').append(latency.label).append("_count,").append(latency.label).append("_p50_us,").append(latency.label).append("_p99_us");
+        }
+        this.samplesWriter.write(header.append('\n').toString());
+        this.samplesWriter.flush();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(ThreadPolicy.getDefault().newThreadFactory(ThreadPolicy.Role.IO, "soak-monitor"));
+        this.executor.scheduleAtFixedRate(() -> {
+            try {
+                this.sample();
+            } catch (final RuntimeException exception) {
+                LOGGER.error("Soak: Sampling failed", exception);
+            }
+        }, interval, interval, timeUnit);
+        LOGGER.info("Soak: Sampling every " + timeUnit.toSeconds(interval) + " s into " + this.samplesFile);
+    }
+
+    /**
+     * Take one sample now, log it, and append it to the CSV file.
+     */
+    final synchronized void sample() {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startNanos);
+        final long heapUsedKib = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024;
+        final long heapAfterGcKib = heapAfterGcKib(heapUsedKib);
+        final int liveThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        final long openFds = openFileDescriptors();
+        this.heapAfterGc.add(elapsedMillis, heapAfterGcKib);
+        this.threads.add(elapsedMillis, liveThreads);
+        if (openFds >= 0) {
+            this.openFileDescriptors.add(elapsedMillis, openFds);
+        }
+
+        final StringBuilder row = new StringBuilder()
+                .append(elapsedMillis / 1000).append(',').append(heapAfterGcKib).append(',').append(heapUsedKib)
+                .append(',').append(liveThreads).append(',').append(openFds);
+        final StringBuilder log = new StringBuilder("Soak: ").append(elapsedMillis / 1000).append(" s, heap after GC ").append(heapAfterGcKib)
+                .append(" KiB, ").append(liveThreads).append(" threads, ").append(openFds).append(" fds");
+        for (final WatchedLatency latency : this.latencies) {
+            final long[] counts = latency.histogram.getBucketCounts();
+            final long[] interval = new long[counts.length];
+            long observations = 0;
+            for (int index = 0; index < counts.length; index++) {
+                interval[index] = counts[index] - latency.previousCounts[index];
+                observations += interval[index];
+            }
+            latency.previousCounts = counts;
+            final long p50Micros = TimeUnit.NANOSECONDS.toMicros(MetricsRegistry.Histogram.getQuantileNanos(interval, 0.50));
+            final long p99Micros = TimeUnit.NANOSECONDS.toMicros(MetricsRegistry.Histogram.getQuantileNanos(interval, 0.99));
+            if (observations > 0) {
+                latency.p99.add(elapsedMillis, p99Micros);
+            }
+            row.append(',').append(observations).append(',').append(p50Micros).append(',').append(p99Micros);
+            log.append(", ").append(latency.label).append(" n=").append(observations).append(" p50<=").append(p50Micros)
+                    .append(" us p99<=").append(p99Micros).append(" us");
+        }
+        LOGGER.info(log.toString());
+        try {
+            this.samplesWriter.write(row.append('\n').toString());
+            this.samplesWriter.flush();
+        } catch (final IOException exception) {
+            LOGGER.warn("Soak: Failed to write " + this.samplesFile, exception);
+        }
+
+        if (++this.sampleCount % GROWTH_CHECK_EVERY_SAMPLES == 0) {
+            for (final Trend trend : this.findGrowth()) {
+                LOGGER.warn("Soak: Possible leak or drift, " + trend.describe());
+            }
+        }
+    }
+
+    /**
+     * @return the judgement of every series with enough samples
+     */
+    final synchronized List<Trend> getTrends() {
+        final List<Series> series = new ArrayList<>(List.of(this.heapAfterGc, this.threads, this.openFileDescriptors));
+        for (final WatchedLatency latency : this.latencies) {
+            series.add(latency.p99);
+        }
+        final List<Trend> trends = new ArrayList<>();
+        for (final Series each : series) {
+            final Trend trend = each.trend();
+            if (trend != null) {
+                trends.add(trend);
+            }
+        }
+        return trends;
+    }
+
+    /**
+     * @return the series that kept growing after the warm-up
+     */
+    final List<Trend> findGrowth() {
+        return this.getTrends().stream().filter(Trend::growing).toList();
+    }
+
+    /**
+     * Stop sampling and close the CSV file.
+     */
+    @Override
+    public final synchronized void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+        if (this.samplesWriter != null) {
+            try {
+                this.samplesWriter.close();
+            } catch (final IOException exception) {
+                LOGGER.warn("Soak: Failed to close " + this.samplesFile, exception);
+            }
+            this.samplesWriter = null;
+        }
+    }
+
+    /**
+     * The heap in use right after the last collection of each pool, which leaves out the garbage that a
+     * plain heap reading includes; the plain reading until every pool has been collected once.
+     */
+    private static final long heapAfterGcKib(final long heapUsedKib) {
+        long usedBytes = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                final MemoryUsage usage = pool.getCollectionUsage();
+                if (usage == null) {
+                    return heapUsedKib;
+                }
+                usedBytes += usage.getUsed();
+            }
+        }
+        return usedBytes == 0 ? heapUsedKib : usedBytes / 1024;
+    }
+
+    /**
+     * @return the open file descriptors of the process, or -1 where the JVM does not report them
+     */
+    private static final long openFileDescriptors() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.UnixOperatingSystemMXBean unix ? unix.getOpenFileDescriptorCount() : -1;
+    }
+}
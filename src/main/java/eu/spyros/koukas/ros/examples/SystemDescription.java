@@ -0,0 +1,459 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.exception.RosRuntimeException;
+import org.ros.node.DefaultNodeMainExecutor;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.NodeMain;
+import org.ros.node.NodeMainExecutor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A declarative description of the example nodes to run, read from a properties file instead of the
+ * graph names and launch order hard-coded in {@link ExampleSystemNodes}.
+ *
+ * <p>The file lists the nodes by id and describes each one with {@code node.<id>.*} keys:
+ * <pre>
+ * executor = thread_policy
+ * duration_seconds = 30
+ * nodes = publisher, subscriber
+ *
+ * node.publisher.kind = publisher
+ * node.publisher.name = /spyros/test/publisher/
+ * node.publisher.topic = /spyros/test/topic/
+ * node.publisher.rate_hz = 100
+ * node.publisher.payload_bytes = 4096
+ *
+ * node.subscriber.kind = subscriber
+ * node.subscriber.count = 8
+ * node.subscriber.name = /spyros/test/subscriber_{i}/
+ * node.subscriber.topic = /spyros/test/topic/
+ * node.subscriber.queue_size = 16
+ * </pre>
+ * Every {@link Kind} creates one of the existing example node classes and accepts the keys of its
+ * settings. {@code count} starts several instances of a node; {@code {i}} in any value is replaced by
+ * the instance number, starting at 1, so each instance can get its own name. Unknown kinds, unknown keys,
+ * and duplicate node names are rejected when the file is loaded, so a typo fails fast instead of
+ * silently running a different system.
+ *
+ * <p>All nodes are handed to rosjava at once and start in parallel. The service clients tolerate servers
+ * that register later, so the description needs no launch order.
+ *
+ * <p>A node with {@code process = <name>} runs in a child JVM instead, started by
+ * {@link ChildProcessLauncher} with the JVM options of {@code process.<name>.jvm_args}, for example
+ * its own heap size and garbage collector. Every process reads the same file and starts only its own nodes.
+ *
+ * @author Spyros Koukas
+ */
+final class SystemDescription {
+    private static final Logger LOGGER = LogManager.getLogger(SystemDescription.class);
+
+    /**
+     * System property with the path of the description file that {@link Main} and {@link MainExternal} run
+     * instead of the built-in examples.
+     */
+    static final String SYSTEM_PROPERTY = "ros.system";
+
+    /**
+     * System property naming the process whose nodes a child JVM starts; not set in the launching JVM.
+     */
+    static final String PROCESS_PROPERTY = "ros.system.process";
+
+    private static final String INSTANCE_PLACEHOLDER = "{i}";
+    private static final Set<String> COMMON_SETTINGS = Set.of("kind", "name", "count", "process");
+    private static final long DEFAULT_DURATION_SECONDS = 30;
+
+    /**
+     * How the rosjava executor of the system is created.
+     */
+    enum Executor {
+        /**
+         * Named, prioritized, and pinned threads of the default {@link ThreadPolicy}.
+         */
+        THREAD_POLICY,
+        /**
+         * rosjava's own default thread pool, for comparison.
+         */
+        ROSJAVA_DEFAULT
+    }
+
+    /**
+     * The node classes a description can start, and the settings each one accepts besides
+     * {@code kind}, {@code name}, {@code count}, and {@code process}.
+     */
+    enum Kind {
+        PUBLISHER("topic", "rate_hz", "payload_bytes"),
+        SUBSCRIBER("topic", "queue_size"),
+        SERVICE_SERVER("service"),
+        SERVICE_CLIENT("service", "replicas", "policy"),
+        ACTION_SERVER("action", "max_concurrent_goals", "scheduler_policy", "goal_priority", "encoding"),
+        ACTION_CLIENT("action", "order", "encoding");
+
+        private final Set<String> settings;
+
+        Kind(final String... settings) {
+            this.settings = Set.of(settings);
+        }
+    }
+
+    /**
+     * One entry of the {@code nodes} list.
+     */
+    private record NodeSpec(String id, Kind kind, int count, String process, Map<String, String> settings) {
+        private String get(final String key, final int instance) {
+            final String value = this.settings.get(key);
+            if (value == null) {
+                throw new IllegalArgumentException("Node [" + this.id + "] needs node." + this.id + "." + key);
+            }
+            return value.replace(INSTANCE_PLACEHOLDER, Integer.toString(instance));
+        }
+
+        private String get(final String key, final int instance, final String defaultValue) {
+            return this.settings.containsKey(key) ? this.get(key, instance) : defaultValue;
+        }
+
+        private int getInt(final String key, final int instance, final int defaultValue) {
+            final String value = this.get(key, instance, null);
+            try {
+                return value == null ? defaultValue : Integer.parseInt(value);
+            } catch (final NumberFormatException exception) {
+                throw new IllegalArgumentException("node." + this.id + "." + key + " is not an integer: " + value, exception);
+            }
+        }
+
+        private <E extends Enum<E>> E getEnum(final String key, final int instance, final Class<E> type, final E defaultValue) {
+            final String value = this.get(key, instance, null);
+            return value == null ? defaultValue : parseEnum("node." + this.id + "." + key, value, type);
+        }
+    }
+
+    /**
+     * A created node, ready to be executed.
+     */
+    private record Launch(String nodeName, String process, NodeMain nodeMain) {
+    }
+
+    private final Path file;
+    private final String localProcess;
+    private final Executor executor;
+    private final long durationMillis;
+    private final List<NodeSpec> nodes;
+    private final Map<String, List<String>> processJvmArgs;
+    private final List<Launch> launches;
+
+    private SystemDescription(final Path file, final String localProcess, final Executor executor, final long durationMillis,
+                              final List<NodeSpec> nodes, final Map<String, List<String>> processJvmArgs, final List<Launch> launches) {
+        this.file = file;
+        this.localProcess = localProcess;
+        this.executor = executor;
+        this.durationMillis = durationMillis;
+        this.nodes = nodes;
+        this.processJvmArgs = processJvmArgs;
+        this.launches = launches;
+    }
+
+    /**
+     * @return the description named by the {@value #SYSTEM_PROPERTY} system property, or {@code null} if it is not set
+     * @throws IOException if the file cannot be read
+     */
+    static final SystemDescription fromSystemProperty() throws IOException {
+        final String path = System.getProperty(SYSTEM_PROPERTY);
+        return path == null || path.isBlank() ? null : load(Path.of(path), System.getProperty(PROCESS_PROPERTY));
+    }
+
+    /**
+     * Read and validate a description file.
+     *
+     * @param file    the properties file
+     * @param process the process whose nodes this JVM starts, or {@code null} for the launching JVM
+     * @return the description
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the description is invalid
+     */
+    static final SystemDescription load(final Path file, final String process) throws IOException {
+        final Properties properties = new Properties();
+        try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return parse(properties, file, process);
+        } catch (final IllegalArgumentException exception) {
+            throw new IllegalArgumentException(file + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * @param properties the description
+     * @param file       the file the description was read from, passed on to child processes
+     * @param process    the process whose nodes this JVM starts, or {@code null} for the launching JVM
+     * @return the validated description
+     * @throws IllegalArgumentException if the description is invalid
+     */
+    static final SystemDescription parse(final Properties properties, final Path file, final String process) {
+        final Set<String> knownKeys = new HashSet<>(Set.of("executor", "duration_seconds", "nodes"));
+        final Map<String, List<String>> processJvmArgs = new LinkedHashMap<>();
+        for (final String key : properties.stringPropertyNames()) {
+            if (key.startsWith("process.") && key.endsWith(".jvm_args") && key.length() > "process..jvm_args".length()) {
+                final String jvmArgs = properties.getProperty(key).trim();
+                processJvmArgs.put(key.substring("process.".length(), key.length() - ".jvm_args".length()),
+                        jvmArgs.isEmpty() ? List.of() : List.of(jvmArgs.split("\\s+")));
+                knownKeys.add(key);
+            }
+        }
+        final List<NodeSpec> nodes = new ArrayList<>();
+        for (final String id : splitList(properties.getProperty("nodes", ""))) {
+            final String prefix = "node." + id + ".";
+            final String kindValue = properties.getProperty(prefix + "kind");
+            if (kindValue == null) {
+                throw new IllegalArgumentException("Node [" + id + "] needs " + prefix + "kind");
+            }
+            final Kind kind = parseEnum(prefix + "kind", kindValue, Kind.class);
+            final Map<String, String> settings = new LinkedHashMap<>();
+            for (final String key : properties.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    final String setting = key.substring(prefix.length());
+                    if (!COMMON_SETTINGS.contains(setting) && !kind.settings.contains(setting)) {
+                        throw new IllegalArgumentException("Unknown setting " + key + " for kind " + kind + ", expected one of " + kind.settings);
+                    }
+                    settings.put(setting, properties.getProperty(key).trim());
+                    knownKeys.add(key);
+                }
+            }
+            final String nodeProcess = settings.get("process");
+            if (nodeProcess != null && !processJvmArgs.containsKey(nodeProcess)) {
+                throw new IllegalArgumentException(prefix + "process is " + nodeProcess + " but process." + nodeProcess + ".jvm_args is missing");
+            }
+            final NodeSpec spec = new NodeSpec(id, kind, 1, nodeProcess, settings);
+            final int count = spec.getInt("count", 1, 1);
+            if (count < 1) {
+                throw new IllegalArgumentException(prefix + "count must be at least 1 but was " + count);
+            }
+            nodes.add(new NodeSpec(id, kind, count, nodeProcess, Map.copyOf(settings)));
+        }
+        for (final String key : properties.stringPropertyNames()) {
+            if (!knownKeys.contains(key)) {
+                throw new IllegalArgumentException("Unknown key " + key + ", or its node is missing from the nodes list");
+            }
+        }
+
+        final Executor executor = parseEnum("executor", properties.getProperty("executor", Executor.THREAD_POLICY.name()), Executor.class);
+        final long durationSeconds;
+        try {
+            durationSeconds = Long.parseLong(properties.getProperty("duration_seconds", Long.toString(DEFAULT_DURATION_SECONDS)).trim());
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException("duration_seconds is not an integer", exception);
+        }
+        if (process != null && nodes.stream().noneMatch(node -> process.equals(node.process()))) {
+            throw new IllegalArgumentException("No node runs in process " + process);
+        }
+        // Creating the nodes checks all settings and the node names without starting anything; start() runs the same instances.
+        return new SystemDescription(file, process, executor, TimeUnit.SECONDS.toMillis(durationSeconds),
+                List.copyOf(nodes), Map.copyOf(processJvmArgs), createNodes(nodes));
+    }
+
+    /**
+     * @return a new rosjava executor as selected by the {@code executor} key
+     */
+    final NodeMainExecutor newNodeMainExecutor() {
+        return switch (this.executor) {
+            case THREAD_POLICY -> ExampleSystemNodes.newNodeMainExecutor();
+            case ROSJAVA_DEFAULT -> DefaultNodeMainExecutor.newDefault();
+        };
+    }
+
+    /**
+     * @return how long the system should run, from the {@code duration_seconds} key
+     */
+    final long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    /**
+     * @return the file the description was read from
+     */
+    final Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * @return the child processes this JVM has to launch; none in a child process itself
+     */
+    final List<String> getChildProcessNames() {
+        if (this.localProcess != null) {
+            return List.of();
+        }
+        return this.nodes.stream().map(NodeSpec::process).filter(process -> process != null).distinct().toList();
+    }
+
+    /**
+     * @param process a process of the description
+     * @return the JVM options of the process
+     */
+    final List<String> getJvmArgs(final String process) {
+        return this.processJvmArgs.getOrDefault(process, List.of());
+    }
+
+    /**
+     * Start every node of the description that runs in this JVM and wait until the service servers are registered.
+     *
+     * @param nodeMainExecutor           the rosjava executor used to run all nodes
+     * @param rosHostIp                  the local IP address advertised by the nodes
+     * @param rosMasterUri               the URI of the ROS master
+     * @param serviceRegistrationTimeout how long to wait for the service servers to register
+     * @param timeUnit                   unit of the registration timeout
+     * @param shutdownCoordinator        drains the nodes before they stop
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    final void start(final NodeMainExecutor nodeMainExecutor, final String rosHostIp, final URI rosMasterUri,
+                     final long serviceRegistrationTimeout, final TimeUnit timeUnit, final ShutdownCoordinator shutdownCoordinator) throws InterruptedException {
+        final long startNanos = System.nanoTime();
+        final List<Launch> launches = this.launches.stream()
+                .filter(launch -> Objects.equals(launch.process(), this.localProcess))
+                .toList();
+        for (final Launch launch : launches) {
+            final NodeConfiguration nodeConfiguration = NodeConfiguration.newPublic(rosHostIp);
+            nodeConfiguration.setNodeName(launch.nodeName());
+            nodeConfiguration.setMasterUri(rosMasterUri);
+            nodeMainExecutor.execute(launch.nodeMain(), nodeConfiguration);
+        }
+
+        // Senders first, so no new requests arrive while the servers drain.
+        for (final Launch launch : launches) {
+            if (launch.nodeMain() instanceof ROSJavaClientNodeMain client) {
+                shutdownCoordinator.register(launch.nodeName(), client.getShutdownParticipant());
+            } else if (launch.nodeMain() instanceof ROSJavaPublisherNodeMain publisher) {
+                shutdownCoordinator.register(launch.nodeName(), publisher.getShutdownParticipant());
+            }
+        }
+        for (final Launch launch : launches) {
+            if (launch.nodeMain() instanceof ROSJavaServerNodeMain server) {
+                shutdownCoordinator.register(launch.nodeName(), server.getShutdownParticipant());
+            } else if (launch.nodeMain() instanceof ROSJavaActionServerNodeMain actionServer) {
+                shutdownCoordinator.register(launch.nodeName(), actionServer.getShutdownParticipant());
+            }
+        }
+
+        // The servers register in parallel, so they share one deadline.
+        final long deadlineNanos = System.nanoTime() + timeUnit.toNanos(serviceRegistrationTimeout);
+        for (final Launch launch : launches) {
+            if (launch.nodeMain() instanceof ROSJavaServerNodeMain server
+                    && !server.awaitRegistration(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new RosRuntimeException("Timed out while waiting for service server " + launch.nodeName() + " to register.");
+            }
+        }
+        LOGGER.info("System: Started " + launches.size() + " nodes in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms, " + this);
+    }
+
+    /**
+     * @return the number of nodes of each kind, for logs
+     */
+    @Override
+    public final String toString() {
+        final Map<Kind, Integer> counts = new LinkedHashMap<>();
+        for (final NodeSpec spec : this.nodes) {
+            counts.merge(spec.kind(), spec.count(), Integer::sum);
+        }
+        return "process=" + (this.localProcess == null ? "main" : this.localProcess)
+                + ", executor=" + this.executor.name().toLowerCase(Locale.ROOT) + ", nodes=" + counts
+                + (this.getChildProcessNames().isEmpty() ? "" : ", child processes=" + this.getChildProcessNames());
+    }
+
+    private static final List<Launch> createNodes(final List<NodeSpec> nodes) {
+        final List<Launch> launches = new ArrayList<>();
+        final Set<String> nodeNames = new HashSet<>();
+        for (final NodeSpec spec : nodes) {
+            for (int instance = 1; instance <= spec.count(); instance++) {
+                final String nodeName = spec.get("name", instance);
+                if (!nodeNames.add(nodeName)) {
+                    // Two nodes with one name would keep replacing each other at the master.
+                    throw new IllegalArgumentException("Duplicate node name " + nodeName + " from node [" + spec.id() + "]"
+                            + (spec.count() > 1 ? ", add " + INSTANCE_PLACEHOLDER + " to node." + spec.id() + ".name" : ""));
+                }
+                launches.add(new Launch(nodeName, spec.process(), createNode(spec, instance, nodeName)));
+            }
+        }
+        return List.copyOf(launches);
+    }
+
+    private static final NodeMain createNode(final NodeSpec spec, final int instance, final String nodeName) {
+        return switch (spec.kind()) {
+            case PUBLISHER -> {
+                final double rateHz = parseDouble(spec, "rate_hz", instance, 1_000.0 / ROSJavaPublisherNodeMain.DEFAULT_PUBLISH_INTERVAL_MILLIS);
+                if (!(rateHz > 0)) {
+                    throw new IllegalArgumentException("node." + spec.id() + ".rate_hz must be positive but was " + rateHz);
+                }
+                yield new ROSJavaPublisherNodeMain(spec.get("topic", instance), nodeName, List.of(),
+                        Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rateHz)), TimeUnit.NANOSECONDS, spec.getInt("payload_bytes", instance, 0));
+            }
+            case SUBSCRIBER -> new ROSJavaSubscriberNodeMain(spec.get("topic", instance), nodeName, spec.getInt("queue_size", instance, 0));
+            case SERVICE_SERVER -> new ROSJavaServerNodeMain(spec.get("service", instance), nodeName);
+            case SERVICE_CLIENT -> new ROSJavaClientNodeMain(spec.get("service", instance), nodeName,
+                    splitList(spec.get("replicas", instance, "")),
+                    spec.getEnum("policy", instance, ManagedServiceClient.Policy.class, ManagedServiceClient.Policy.PRIMARY_FIRST));
+            case ACTION_SERVER -> new ROSJavaActionServerNodeMain(spec.get("action", instance), nodeName,
+                    spec.getInt("max_concurrent_goals", instance, Runtime.getRuntime().availableProcessors()),
+                    spec.getEnum("scheduler_policy", instance, ActionGoalScheduler.Policy.class, ActionGoalScheduler.Policy.QUEUE),
+                    spec.getEnum("goal_priority", instance, ROSJavaActionServerNodeMain.GoalPriority.class, ROSJavaActionServerNodeMain.GoalPriority.ARRIVAL_ORDER),
+                    spec.getEnum("encoding", instance, ROSJavaActionServerNodeMain.SequenceEncoding.class, ROSJavaActionServerNodeMain.SequenceEncoding.INT32));
+            case ACTION_CLIENT -> new ROSJavaActionClientNodeMain(spec.get("action", instance), nodeName,
+                    spec.getInt("order", instance, 8),
+                    spec.getEnum("encoding", instance, ROSJavaActionServerNodeMain.SequenceEncoding.class, ROSJavaActionServerNodeMain.SequenceEncoding.INT32));
+        };
+    }
+
+    private static final double parseDouble(final NodeSpec spec, final String key, final int instance, final double defaultValue) {
+        final String value = spec.get(key, instance, null);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException("node." + spec.id() + "." + key + " is not a number: " + value, exception);
+        }
+    }
+
+    private static final <E extends Enum<E>> E parseEnum(final String key, final String value, final Class<E> type) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException exception) {
+            throw new IllegalArgumentException(key + " must be one of " + Arrays.toString(type.getEnumConstants()).toLowerCase(Locale.ROOT)
+                    + " but was " + value, exception);
+        }
+    }
+
+    private static final List<String> splitList(final String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright 2020 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ros.concurrent.DefaultScheduledExecutorService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Names, prioritizes, and optionally pins to CPUs the threads of the example system.
+ *
+ * <p>Threads are split into three {@link Role}s. {@link Role#IO} threads belong to rosjava: its Netty
+ * network threads, its scheduler, and every {@code CancellableLoop}, which all run on the node executor
+ * created by {@link #newRosExecutorService()}. {@link Role#COMPUTE} threads run the example work itself,
+ * such as action goals and action client senders. {@link Role#SPIN} threads busy-spin for hot topics and keep
+ * their core fully busy. Putting the roles on separate CPU sets keeps a busy goal or a spinning thread from
+ * delaying message delivery, and keeps noisy neighbours on shared cores away from all of them.
+ *
+ * <p>The default policy is read from system properties, for example
+ * {@code -Dros.threads.io.cpus=0-1 -Dros.threads.compute.cpus=2-5 -Dros.threads.spin.cpus=6-7 -Dros.threads.io.priority=7}. CPU sets
+ * use the {@code taskset} list format. Without a CPU set a role is not pinned.
+ *
+ * <p>Java has no affinity API, so on Linux each thread pins itself when it starts by running
+ * {@code taskset} on its own thread id. That costs one short process per thread, which is why all the
+ * roles are used through pools. On other systems, or if {@code taskset} is missing, the threads run
+ * unpinned and a warning is logged once. Java thread priorities only take effect on Linux with
+ * {@code -XX:ThreadPriorityPolicy=1} and the right privileges; elsewhere they are a hint.
+ *
+ * @author Spyros Koukas
+ */
+final class ThreadPolicy {
+    private static final Logger LOGGER = LogManager.getLogger(ThreadPolicy.class);
+
+    /**
+     * Scheduler threads of the rosjava executor, the same number rosjava uses by default.
+     */
+    private static final int ROS_SCHEDULER_THREADS = 11;
+
+    private static final long TASKSET_TIMEOUT_SECONDS = 5;
+    private static final Pattern CPU_LIST = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+    private static final boolean LINUX = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux");
+
+    private static final class DefaultHolder {
+        private static final ThreadPolicy DEFAULT = new ThreadPolicy(
+                System.getProperty("ros.threads.io.cpus"),
+                Integer.getInteger("ros.threads.io.priority", Role.IO.defaultPriority),
+                System.getProperty("ros.threads.compute.cpus"),
+                Integer.getInteger("ros.threads.compute.priority", Role.COMPUTE.defaultPriority),
+                System.getProperty("ros.threads.spin.cpus"),
+                Integer.getInteger("ros.threads.spin.priority", Role.SPIN.defaultPriority));
+    }
+
+    /**
+     * What a thread is used for.
+     */
+    enum Role {
+        /**
+         * rosjava network, scheduler, and loop threads. Latency sensitive, so slightly above normal priority by default.
+         */
+        IO(Thread.NORM_PRIORITY + 2),
+        /**
+         * Threads that run example work, such as action goals and action client senders.
+         */
+        COMPUTE(Thread.NORM_PRIORITY),
+        /**
+         * Busy-spinning threads of hot topics. Each keeps one core at 100%, so they should not share the
+         * {@link #IO} CPU set that moves their messages.
+         */
+        SPIN(Thread.NORM_PRIORITY);
+
+        private final int defaultPriority;
+
+        Role(final int defaultPriority) {
+            this.defaultPriority = defaultPriority;
+        }
+    }
+
+    private final String ioCpus;
+    private final int ioPriority;
+    private final String computeCpus;
+    private final int computePriority;
+    private final String spinCpus;
+    private final int spinPriority;
+
+    /**
+     * Set after the first failed pinning, so a missing {@code taskset} is reported once and not retried.
+     */
+    private final AtomicBoolean pinningFailed = new AtomicBoolean();
+
+    /**
+     * @return the process-wide policy, read from the {@code ros.threads.*} system properties
+     */
+    static final ThreadPolicy getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * @param ioCpus          CPU list for {@link Role#IO} threads, or {@code null} not to pin them
+     * @param ioPriority      priority of {@link Role#IO} threads
+     * @param computeCpus     CPU list for {@link Role#COMPUTE} threads, or {@code null} not to pin them
+     * @param computePriority priority of {@link Role#COMPUTE} threads
+     * @param spinCpus        CPU list for {@link Role#SPIN} threads, or {@code null} not to pin them
+     * @param spinPriority    priority of {@link Role#SPIN} threads
+     */
+    ThreadPolicy(final String ioCpus, final int ioPriority, final String computeCpus, final int computePriority,
+                 final String spinCpus, final int spinPriority) {
+        this.ioCpus = checkCpus(ioCpus);
+        this.ioPriority = checkPriority(ioPriority);
+        this.computeCpus = checkCpus(computeCpus);
+        this.computePriority = checkPriority(computePriority);
+        this.spinCpus = checkCpus(spinCpus);
+        this.spinPriority = checkPriority(spinPriority);
+    }
+
+    /**
+     * @param role       what the threads are used for
+     * @param namePrefix thread names are the prefix followed by a sequence number, for example {@code rosjava-io-3}
+     * @return a factory of daemon threads that follow this policy
+     */
+    final ThreadFactory newThreadFactory(final Role role, final String namePrefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(() -> {
+                this.pinCurrentThread(role);
+                runnable.run();
+            }, namePrefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(this.getPriority(role));
+            return thread;
+        };
+    }
+
+    /**
+     * Create the executor that rosjava runs every node on: Netty I/O, publishers, subscribers, service
+     * connections, and {@code CancellableLoop}s. All of its threads are {@link Role#IO} threads.
+     *
+     * @return the executor, to be passed to {@code DefaultNodeMainExecutor.newDefault(...)}
+     */
+    final ScheduledExecutorService newRosExecutorService() {
+        return new DefaultScheduledExecutorService(
+                Executors.newCachedThreadPool(this.newThreadFactory(Role.IO, "rosjava-io")),
+                Executors.newScheduledThreadPool(ROS_SCHEDULER_THREADS, this.newThreadFactory(Role.IO, "rosjava-scheduler")));
+    }
+
+    /**
+     * @return the policy in a readable form, for startup logs
+     */
+    @Override
+    public final String toString() {
+        return "io cpus " + (this.ioCpus == null ? "any" : this.ioCpus) + " priority " + this.ioPriority
+                + ", compute cpus " + (this.computeCpus == null ? "any" : this.computeCpus) + " priority " + this.computePriority
+                + ", spin cpus " + (this.spinCpus == null ? "any" : this.spinCpus) + " priority " + this.spinPriority;
+    }
+
+    private final int getPriority(final Role role) {
+        return switch (role) {
+            case IO -> this.ioPriority;
+            case COMPUTE -> this.computePriority;
+            case SPIN -> this.spinPriority;
+        };
+    }
+
+    private final String getCpus(final Role role) {
+        return switch (role) {
+            case IO -> this.ioCpus;
+            case COMPUTE -> this.computeCpus;
+            case SPIN -> this.spinCpus;
+        };
+    }
+
+    /**
+     * Pin the calling thread to the CPU set of its role, if there is one.
+     */
+    private final void pinCurrentThread(final Role role) {
+        final String cpus = this.getCpus(role);
+        if (cpus == null || this.pinningFailed.get()) {
+            return;
+        }
+        if (!LINUX) {
+            this.pinningFailed(role, "CPU pinning is only supported on Linux", null);
+            return;
+        }
+        try {
+            // /proc/thread-self links to /proc/<pid>/task/<tid> of the calling thread.
+            final String threadId = Files.readSymbolicLink(Path.of("/proc/thread-self")).getFileName().toString();
+            final Process taskset = new ProcessBuilder("taskset", "-p", "-c", cpus, threadId)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!taskset.waitFor(TASKSET_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                taskset.destroyForcibly();
+                this.pinningFailed(role, "taskset timed out", null);
+            } else if (taskset.exitValue() != 0) {
+                this.pinningFailed(role, "taskset exited with " + taskset.exitValue(), null);
+            }
+        } catch (final IOException exception) {
+            this.pinningFailed(role, "taskset could not run", exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final void pinningFailed(final Role role, final String reason, final Exception exception) {
+        if (this.pinningFailed.compareAndSet(false, true)) {
+            LOGGER.warn("Threads run unpinned: " + reason + " while pinning " + role + " thread " + Thread.currentThread().getName(), exception);
+        }
+    }
+
+    private static final String checkCpus(final String cpus) {
+        if (cpus == null || cpus.isBlank()) {
+            return null;
+        }
+        final String trimmed = cpus.strip();
+        if (!CPU_LIST.matcher(trimmed).matches()) {
+            throw new IllegalArgumentException("CPU list must look like 0-3,6 but was " + cpus);
+        }
+        return trimmed;
+    }
+
+    private static final int checkPriority(final int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Thread priority must be between " + Thread.MIN_PRIORITY + " and " + Thread.MAX_PRIORITY + " but was " + priority);
+        }
+        return priority;
+    }
+}
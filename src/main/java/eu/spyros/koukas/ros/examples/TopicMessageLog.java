@@ -0,0 +1,194 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A small binary log format for recorded ROS topic traffic.
+ *
+ * <p>The file starts with a fixed magic header followed by one record per captured message:
+ * <pre>
+ * long   receive time in nanoseconds (monotonic, only differences are meaningful)
+ * int    topic name length, followed by the UTF-8 topic name
+ * int    message type length, followed by the UTF-8 message type
+ * int    payload length, followed by the payload bytes
+ * </pre>
+ *
+ * <p>All numbers are little endian. The {@link Reader} memory-maps the file and hands out payloads as
+ * read-only {@link ByteBuffer} views of the mapping, so replaying a log does not copy the payload
+ * bytes before they are decoded into the outgoing ROS message.
+ *
+ * @author Spyros Koukas
+ */
+final class TopicMessageLog {
+    /**
+     * Magic header written at the start of every log file.
+     */
+    private static final byte[] MAGIC = "RJTLOG01".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Utility class. No instances are needed.
+     */
+    private TopicMessageLog() {
+    }
+
+    /**
+     * One decoded record header together with a zero-copy view of its payload.
+     *
+     * @param timestampNanos the capture time of the message
+     * @param topicName      the topic the message was received on
+     * @param messageType    the ROS message type, for example {@code std_msgs/String}
+     * @param payload        read-only view of the payload bytes inside the mapped file
+     */
+    record Entry(long timestampNanos, String topicName, String messageType, ByteBuffer payload) {
+    }
+
+    /**
+     * Appends records to a log file. Instances are not thread-safe; callers serialize access.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(4_096).order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * @param file the log file to create or truncate
+         * @throws IOException if the file cannot be opened
+         */
+        Writer(final Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.channel.write(ByteBuffer.wrap(MAGIC));
+        }
+
+        /**
+         * Append one record.
+         *
+         * @param timestampNanos the capture time of the message
+         * @param topicName      the topic the message was received on
+         * @param messageType    the ROS message type
+         * @param payload        the payload bytes
+         * @throws IOException if writing fails
+         */
+        final void append(final long timestampNanos, final String topicName, final String messageType, final byte[] payload) throws IOException {
+            final byte[] topicBytes = topicName.getBytes(StandardCharsets.UTF_8);
+            final byte[] typeBytes = messageType.getBytes(StandardCharsets.UTF_8);
+            final int recordSize = Long.BYTES + 3 * Integer.BYTES + topicBytes.length + typeBytes.length + payload.length;
+            if (this.buffer.capacity() < recordSize) {
+                this.buffer = ByteBuffer.allocate(Math.max(recordSize, this.buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            this.buffer.clear();
+            this.buffer.putLong(timestampNanos);
+            this.buffer.putInt(topicBytes.length).put(topicBytes);
+            this.buffer.putInt(typeBytes.length).put(typeBytes);
+            this.buffer.putInt(payload.length).put(payload);
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+        }
+
+        @Override
+        public final void close() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Reads records sequentially from a memory-mapped log file.
+     *
+     * <p>The mapping stays valid after the channel is closed, so the reader only keeps the mapped buffer.
+     */
+    static final class Reader {
+        private final MappedByteBuffer mapping;
+        private final ByteBuffer cursor;
+
+        /**
+         * @param file the log file to map
+         * @throws IOException if the file cannot be mapped or is not a topic log
+         */
+        Reader(final Path file) throws IOException {
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Topic log [" + file + "] is larger than a single 2 GiB mapping.");
+                }
+                this.mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            this.cursor = this.mapping.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+            final byte[] header = new byte[MAGIC.length];
+            if (this.cursor.remaining() < header.length) {
+                throw new IOException("Topic log [" + file + "] is too short.");
+            }
+            this.cursor.get(header);
+            if (!Arrays.equals(header, MAGIC)) {
+                throw new IOException("File [" + file + "] is not a topic log.");
+            }
+        }
+
+        /**
+         * @return {@code true} if at least one more record can be read
+         */
+        final boolean hasNext() {
+            return this.cursor.hasRemaining();
+        }
+
+        /**
+         * Read the next record. The returned payload shares memory with the mapped file.
+         *
+         * @return the next record
+         * @throws IOException if the record is truncated
+         */
+        final Entry next() throws IOException {
+            try {
+                final long timestampNanos = this.cursor.getLong();
+                final String topicName = this.readString();
+                final String messageType = this.readString();
+                final int payloadLength = this.cursor.getInt();
+                final ByteBuffer payload = this.cursor.slice(this.cursor.position(), payloadLength).asReadOnlyBuffer();
+                this.cursor.position(this.cursor.position() + payloadLength);
+                return new Entry(timestampNanos, topicName, messageType, payload);
+            } catch (final RuntimeException exception) {
+                throw new IOException("Truncated topic log record at offset " + this.cursor.position(), exception);
+            }
+        }
+
+        /**
+         * Move back to the first record, for example after a pre-scan of the topics in the file.
+         */
+        final void rewind() {
+            this.cursor.position(MAGIC.length);
+        }
+
+        private final String readString() {
+            final int length = this.cursor.getInt();
+            final String value = StandardCharsets.UTF_8.decode(this.cursor.slice(this.cursor.position(), length)).toString();
+            this.cursor.position(this.cursor.position() + length);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Description of a chain of typed stages from one subscribed topic to one or more republished topics.
+ *
+ * <p>A pipeline starts with {@link #from(String, String)} and adds stages one by one. Each call returns
+ * a new pipeline, so a shared prefix can be reused. For example:
+ * <pre>{@code
+ * TopicPipeline.<std_msgs.String>from("/chatter", std_msgs.String._TYPE)
+ *         .map("payload", std_msgs.String::getData)
+ *         .filter("non_blank", data -> !data.isBlank())
+ *         .throttle("throttle", 2, TimeUnit.SECONDS)
+ *         .window("batch", 3, batch -> String.join(", ", batch))
+ *         .republish("republish", "/chatter/batched", std_msgs.String._TYPE, std_msgs.String::setData);
+ * }</pre>
+ *
+ * <p>A {@link TopicPipelineNodeMain} runs the pipeline. It links the stages into one chain of plain
+ * method calls, driven by the subscriber callback. rosjava delivers the messages of one subscriber on
+ * a single thread, so every stage runs on that thread, the message objects are handed from stage to
+ * stage without any queue or copy, and only the republish stages serialize a message.
+ *
+ * @param <T> the type of the values leaving the last stage
+ * @author Spyros Koukas
+ */
+final class TopicPipeline<T> {
+    /**
+     * What a running stage needs from the node that runs the pipeline.
+     */
+    interface StageContext {
+        /**
+         * @return the connected node, for example to create publishers
+         */
+        ConnectedNode connectedNode();
+
+        /**
+         * Count one value entering a stage.
+         *
+         * @param stageName the stage
+         */
+        void countIn(String stageName);
+
+        /**
+         * Count one value leaving a stage.
+         *
+         * @param stageName the stage
+         */
+        void countOut(String stageName);
+    }
+
+    /**
+     * Links one stage in front of the stages after it.
+     */
+    @FunctionalInterface
+    private interface Linker {
+        /**
+         * @param context    the running node
+         * @param downstream receives the values this stage emits
+         * @return receives the values entering this stage
+         */
+        Consumer<Object> link(StageContext context, Consumer<Object> downstream);
+    }
+
+    /**
+     * One stage of the description.
+     *
+     * @param name   the stage name, used in metrics
+     * @param linker creates the running form of the stage
+     */
+    private record Stage(String name, Linker linker) {
+    }
+
+    private final String sourceTopic;
+    private final String sourceMessageType;
+    private final List<Stage> stages;
+
+    private TopicPipeline(final String sourceTopic, final String sourceMessageType, final List<Stage> stages) {
+        this.sourceTopic = sourceTopic;
+        this.sourceMessageType = sourceMessageType;
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * Start a pipeline from a subscribed topic.
+     *
+     * @param topic       the graph name of the topic to subscribe to
+     * @param messageType the ROS message type of the topic, for example {@code std_msgs.String._TYPE}
+     * @param <M>         the generated message class of the topic
+     * @return a pipeline that emits every received message
+     */
+    static final <M> TopicPipeline<M> from(final String topic, final String messageType) {
+        return new TopicPipeline<>(topic, messageType, List.of());
+    }
+
+    /**
+     * Transform every value.
+     *
+     * @param name   the stage name
+     * @param mapper the transformation
+     * @param <R>    the type of the transformed values
+     * @return the extended pipeline
+     */
+    final <R> TopicPipeline<R> map(final String name, final Function<? super T, ? extends R> mapper) {
+        return this.then(name, (context, downstream) -> value -> {
+            context.countIn(name);
+            downstream.accept(mapper.apply(this.cast(value)));
+            context.countOut(name);
+        });
+    }
+
+    /**
+     * Keep only the values that match.
+     *
+     * @param name      the stage name
+     * @param predicate which values to keep
+     * @return the extended pipeline
+     */
+    final TopicPipeline<T> filter(final String name, final Predicate<? super T> predicate) {
+        return this.then(name, (context, downstream) -> value -> {
+            context.countIn(name);
+            if (predicate.test(this.cast(value))) {
+                downstream.accept(value);
+                context.countOut(name);
+            }
+        });
+    }
+
+    /**
+     * Let at most one value through per interval and drop the rest.
+     *
+     * @param name     the stage name
+     * @param interval the shortest time between two emitted values
+     * @param timeUnit unit of the interval
+     * @return the extended pipeline
+     */
+    final TopicPipeline<T> throttle(final String name, final long interval, final TimeUnit timeUnit) {
+        final long intervalNanos = timeUnit.toNanos(interval);
+        return this.then(name, (context, downstream) -> new Consumer<Object>() {
+            private long lastEmittedNanos;
+            private boolean emitted;
+
+            @Override
+            public final void accept(final Object value) {
+                context.countIn(name);
+                final long now = System.nanoTime();
+                if (!this.emitted || now - this.lastEmittedNanos >= intervalNanos) {
+                    this.emitted = true;
+                    this.lastEmittedNanos = now;
+                    downstream.accept(value);
+                    context.countOut(name);
+                }
+            }
+        });
+    }
+
+    /**
+     * Collect values into tumbling windows of a fixed size and emit one aggregate per window.
+     *
+     * @param name       the stage name
+     * @param size       values per window
+     * @param aggregator turns the values of one window into the emitted value
+     * @param <R>        the type of the aggregate
+     * @return the extended pipeline
+     */
+    final <R> TopicPipeline<R> window(final String name, final int size, final Function<? super List<T>, ? extends R> aggregator) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1 but was " + size);
+        }
+        return this.then(name, (context, downstream) -> new Consumer<Object>() {
+            private List<T> window = new ArrayList<>(size);
+
+            @Override
+            public final void accept(final Object value) {
+                context.countIn(name);
+                this.window.add(TopicPipeline.this.cast(value));
+                if (this.window.size() == size) {
+                    final List<T> full = this.window;
+                    this.window = new ArrayList<>(size);
+                    downstream.accept(aggregator.apply(full));
+                    context.countOut(name);
+                }
+            }
+        });
+    }
+
+    /**
+     * Collect values into tumbling windows of a fixed duration and emit one aggregate per window.
+     *
+     * <p>The window closes when the first value after its end arrives, which keeps the stage on the
+     * subscriber thread without a timer. A window that saw no values emits nothing.
+     *
+     * @param name       the stage name
+     * @param duration   length of one window
+     * @param timeUnit   unit of the duration
+     * @param aggregator turns the values of one window into the emitted value
+     * @param <R>        the type of the aggregate
+     * @return the extended pipeline
+     */
+    final <R> TopicPipeline<R> window(final String name, final long duration, final TimeUnit timeUnit, final Function<? super List<T>, ? extends R> aggregator) {
+        final long durationNanos = timeUnit.toNanos(duration);
+        return this.then(name, (context, downstream) -> new Consumer<Object>() {
+            private List<T> window = new ArrayList<>();
+            private long windowStartNanos;
+
+            @Override
+            public final void accept(final Object value) {
+                context.countIn(name);
+                final long now = System.nanoTime();
+                if (!this.window.isEmpty() && now - this.windowStartNanos >= durationNanos) {
+                    final List<T> full = this.window;
+                    this.window = new ArrayList<>();
+                    downstream.accept(aggregator.apply(full));
+                    context.countOut(name);
+                }
+                if (this.window.isEmpty()) {
+                    this.windowStartNanos = now;
+                }
+                this.window.add(TopicPipeline.this.cast(value));
+            }
+        });
+    }
+
+    /**
+     * Publish every value to a topic and pass it on unchanged, so later stages can keep working on it.
+     *
+     * @param name        the stage name
+     * @param topic       the graph name of the topic to publish to
+     * @param messageType the ROS message type of the topic
+     * @param filler      copies a value into a fresh message of the topic
+     * @param <M>         the generated message class of the topic
+     * @return the extended pipeline
+     */
+    final <M> TopicPipeline<T> republish(final String name, final String topic, final String messageType, final BiConsumer<? super M, ? super T> filler) {
+        return this.then(name, (context, downstream) -> {
+            final Publisher<M> publisher = context.connectedNode().newPublisher(topic, messageType);
+            return value -> {
+                context.countIn(name);
+                final M message = publisher.newMessage();
+                filler.accept(message, this.cast(value));
+                publisher.publish(message);
+                context.countOut(name);
+                downstream.accept(value);
+            };
+        });
+    }
+
+    /**
+     * @return the graph name of the subscribed topic
+     */
+    final String getSourceTopic() {
+        return this.sourceTopic;
+    }
+
+    /**
+     * @return the ROS message type of the subscribed topic
+     */
+    final String getSourceMessageType() {
+        return this.sourceMessageType;
+    }
+
+    /**
+     * @return the stage names, in order
+     */
+    final List<String> getStageNames() {
+        return this.stages.stream().map(Stage::name).toList();
+    }
+
+    /**
+     * Link the stages into one fused chain.
+     *
+     * @param context the running node
+     * @return receives the messages of the subscribed topic
+     */
+    final Consumer<Object> link(final StageContext context) {
+        Consumer<Object> chain = value -> {
+            // The end of the pipeline; whatever reaches it has already been republished.
+        };
+        for (int index = this.stages.size() - 1; index >= 0; index--) {
+            chain = this.stages.get(index).linker().link(context, chain);
+        }
+        return chain;
+    }
+
+    private final <R> TopicPipeline<R> then(final String name, final Linker linker) {
+        final List<Stage> extended = new ArrayList<>(this.stages);
+        extended.add(new Stage(name, linker));
+        return new TopicPipeline<>(this.sourceTopic, this.sourceMessageType, extended);
+    }
+
+    /**
+     * Values are only ever produced by the previous stage, whose output type is {@code T}.
+     */
+    @SuppressWarnings("unchecked")
+    private final T cast(final Object value) {
+        return (T) value;
+    }
+}
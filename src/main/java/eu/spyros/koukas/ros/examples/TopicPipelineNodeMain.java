@@ -0,0 +1,185 @@
+/**
+ * Copyright 2026 Spyros Koukas
+ *
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.spyros.koukas.ros.examples;
+
+import org.ros.namespace.GraphName;
+import org.ros.node.AbstractNodeMain;
+import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
+import org.ros.node.topic.Subscriber;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A ROS node that runs a {@link TopicPipeline}: it subscribes to the source topic, passes every
+ * message through the pipeline stages, and republishes where the pipeline says so.
+ *
+ * <p>The stages are linked once, when the node starts, into a single chain that the subscriber
+ * callback drives. A message therefore goes from the subscriber through every stage to the
+ * republishing publishers on one thread, without queues between the stages.
+ *
+ * <p>Every stage counts the values it receives and emits in
+ * {@code ros_pipeline_stage_messages_in_total} and {@code ros_pipeline_stage_messages_out_total},
+ * and the node logs the throughput of every stage at a fixed interval.
+ *
+ * @author Spyros Koukas
+ */
+final class TopicPipelineNodeMain extends AbstractNodeMain {
+    /**
+     * Interval of the per-stage throughput log.
+     */
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
+    /**
+     * In and out counters of one stage, and the values seen at the previous report.
+     */
+    private static final class StageMeter {
+        private final MetricsRegistry.Counter in;
+        private final MetricsRegistry.Counter out;
+        private long reportedIn;
+        private long reportedOut;
+
+        private StageMeter(final MetricsRegistry.Counter in, final MetricsRegistry.Counter out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    /**
+     * ROS node name for this pipeline node.
+     */
+    private final String rosNodeName;
+
+    /**
+     * The pipeline to run.
+     */
+    private final TopicPipeline<?> pipeline;
+
+    /**
+     * Metrics of this node, registered in {@link #onStart(ConnectedNode)} and released in {@code onShutdown}.
+     */
+    private MetricsRegistry.Scope metrics;
+
+    /**
+     * Periodic throughput log, started in {@link #onStart(ConnectedNode)}.
+     */
+    private ScheduledFuture<?> report;
+
+    /**
+     * @param rosNodeName the graph name of the ROS node itself
+     * @param pipeline    the pipeline to run
+     */
+    TopicPipelineNodeMain(final String rosNodeName, final TopicPipeline<?> pipeline) {
+        this.rosNodeName = rosNodeName;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * rosjava asks every {@link org.ros.node.NodeMain} for its default ROS graph name.
+     */
+    @Override
+    public final GraphName getDefaultNodeName() {
+        return GraphName.of(this.rosNodeName);
+    }
+
+    /**
+     * Link the pipeline stages and subscribe to the source topic.
+     *
+     * @param connectedNode the connected rosjava node handle
+     */
+    @Override
+    public final void onStart(final ConnectedNode connectedNode) {
+        final var log = connectedNode.getLog();
+
+        this.metrics = MetricsRegistry.getDefault().newScope(this.rosNodeName);
+        final MetricsRegistry.Counter failures = this.metrics.counter("ros_pipeline_failures_total", "Messages dropped because a stage failed",
+                "topic", this.pipeline.getSourceTopic());
+        final Map<String, StageMeter> meters = new LinkedHashMap<>();
+        for (final String stageName : this.pipeline.getStageNames()) {
+            meters.put(stageName, new StageMeter(
+                    this.metrics.counter("ros_pipeline_stage_messages_in_total", "Values received by a pipeline stage", "stage", stageName),
+                    this.metrics.counter("ros_pipeline_stage_messages_out_total", "Values emitted by a pipeline stage", "stage", stageName)));
+        }
+
+        // Link the stages once; republish stages create their publishers here.
+        final Consumer<Object> chain = this.pipeline.link(new TopicPipeline.StageContext() {
+            @Override
+            public final ConnectedNode connectedNode() {
+                return connectedNode;
+            }
+
+            @Override
+            public final void countIn(final String stageName) {
+                meters.get(stageName).in.increment();
+            }
+
+            @Override
+            public final void countOut(final String stageName) {
+                meters.get(stageName).out.increment();
+            }
+        });
+
+        // The subscriber callback drives every stage.
+        final Subscriber<Object> subscriber = connectedNode.newSubscriber(this.pipeline.getSourceTopic(), this.pipeline.getSourceMessageType());
+        subscriber.addMessageListener(message -> {
+            try {
+                chain.accept(message);
+            } catch (final RuntimeException exception) {
+                // One bad message must not stop the pipeline for the ones after it.
+                failures.increment();
+                log.error("Pipeline: Stage failed on a message from [" + this.pipeline.getSourceTopic() + "]", exception);
+            }
+        });
+
+        this.report = connectedNode.getScheduledExecutorService().scheduleAtFixedRate(() -> {
+            final StringBuilder builder = new StringBuilder("Pipeline [").append(this.pipeline.getSourceTopic()).append("]:");
+            for (final Map.Entry<String, StageMeter> meter : meters.entrySet()) {
+                final StageMeter stage = meter.getValue();
+                final long in = stage.in.get();
+                final long out = stage.out.get();
+                builder.append(' ').append(meter.getKey())
+                        .append(" in ").append(String.format("%.1f", (double) (in - stage.reportedIn) / REPORT_INTERVAL_SECONDS)).append("/s")
+                        .append(" out ").append(String.format("%.1f", (double) (out - stage.reportedOut) / REPORT_INTERVAL_SECONDS)).append("/s;");
+                stage.reportedIn = in;
+                stage.reportedOut = out;
+            }
+            log.info(builder.toString());
+        }, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        log.info("Created pipeline from [" + this.pipeline.getSourceTopic() + "] with stages " + this.pipeline.getStageNames());
+    }
+
+    /**
+     * Stop the throughput log and release the metrics of this node when it shuts down.
+     *
+     * @param node the rosjava node being shut down
+     */
+    @Override
+    public final void onShutdown(final Node node) {
+        if (this.report != null) {
+            this.report.cancel(false);
+            this.report = null;
+        }
+        if (this.metrics != null) {
+            this.metrics.close();
+            this.metrics = null;
+        }
+    }
+}